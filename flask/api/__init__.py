@@ -16,12 +16,16 @@ def create_app() -> Flask:
     app.config['WHITE_LIST'] = ["127.0.0.1"]
     app.config['JWT_SECRET_KEY'] = "KSY_sentiment_analysis_app"
     app.config['ALGORITHM'] = "HS256"
+    # 콜백 서명 키 (webflux 의 prediction.callback.secret 과 동일해야 함)
+    app.config['CALLBACK_SECRET_KEY'] = "KSY_sentiment_analysis_callback"
 
     # Api
     # 불용어
     app.config['STOPWORDS'] = ['의','가','이','은','들','는','좀','잘','걍','과','도','를','으로','자','에','와','한','하다']
     # 최대 문장 길이 (학습 데이터 기준)
     app.config['MAX_SENTENCE_LEN'] = 30
+    # 모델 버전 (모델 교체 시 변경, spring boot 측 분석 결과 캐시 무효화에 사용)
+    app.config['MODEL_VERSION'] = "best_model-1"
 
     celery_init_app(app)
 
@@ -1,7 +1,10 @@
 from functools import wraps
 from flask import request, jsonify, current_app
 import datetime
+import hashlib
+import hmac
 import jwt
+import time
 import uuid
 
 class AuthKey():
@@ -32,7 +35,7 @@ def check_whitelist(f):
 
         if(clientIp not in current_app.config['WHITE_LIST']):
             print(clientIp +": 접근 거부")
-            return jsonify("access denied")
+            return jsonify("access denied"), 403
 
         print(clientIp + ": 접근 허가")
         return f(*args, **kwagrs)
@@ -46,25 +49,39 @@ def token_required(f):
         token = request.headers.get("Authorization")
         if(token is None):
             print("토큰이 유효하지 않음 : 접근 거부")
-            return jsonify("Token is invalid : access denied")
+            return jsonify("Token is invalid : access denied"), 401
         
-        payload = jwt.decode(token, current_app.config['JWT_SECRET_KEY'], current_app.config['ALGORITHM'])
+        try:
+            payload = jwt.decode(token, current_app.config['JWT_SECRET_KEY'], current_app.config['ALGORITHM'])
+        except jwt.InvalidTokenError:
+            print("토큰이 유효하지 않음 : 접근 거부")
+            return jsonify("Token is invalid : access denied"), 401
 
         if('authKey' not in locals() and 'authKey' not in globals()):
             print("토큰이 생성되지 않음 : 접근 거부")
-            return jsonify("Token not created : access denied")
+            return jsonify("Token not created : access denied"), 401
         
         if(payload['key'] != authKey.key):
             print("토큰이 유효하지 않음 : 접근 거부")
-            return jsonify("Token is invalid : access denied")
+            return jsonify("Token is invalid : access denied"), 401
 
         if(datetime.datetime.fromtimestamp(payload['exp']) < datetime.datetime.utcnow()):
             print("토큰이 만료됨 : 접근 거부")
-            return jsonify("Token expired : access denied")
+            return jsonify("Token expired : access denied"), 401
     
 
         print(" 토큰 유효함 : 접근 허가")
 
         return f(*args, **kwagrs)
     
-    return decorated_function
\ No newline at end of file
+    return decorated_function
+
+# webflux 콜백 본문 서명 ("{timestamp}.{body}" 의 HMAC-SHA256)
+def sign_callback(body):
+    timestamp = str(int(time.time() * 1000))
+    key = current_app.config['CALLBACK_SECRET_KEY'].encode()
+    signature = hmac.new(key, timestamp.encode() + b'.' + body, hashlib.sha256).hexdigest()
+    return {
+        'X-Callback-Timestamp': timestamp,
+        'X-Callback-Signature': signature
+    }
@@ -1,4 +1,5 @@
 import json
+import requests
 from konlpy.tag import Okt
 from tensorflow.keras.preprocessing.text import Tokenizer
 from tensorflow.keras.preprocessing.sequence import pad_sequences
@@ -7,6 +8,8 @@ from flask import current_app
 
 from celery import shared_task
 
+from api.service.auth_service import sign_callback
+
 # 정수 인코딩한 데이터 이름
 DATA_CONFIGS = 'data_configs.json'
 
@@ -18,14 +21,12 @@ prepro_configs = json.load(open('./static/'+DATA_CONFIGS, 'r', encoding='UTF-8')
 word_vocab = prepro_configs['vocab']
 tokenizer.fit_on_texts(word_vocab)
 
-@shared_task(ignore_result=False)
-def sentiment_predict(new_sentence):
-
+def encode_sentence(new_sentence):
     new_sentence = okt.morphs(new_sentence, stem=True) # 토큰화
     new_sentence = [word for word in new_sentence if not word in current_app.config['STOPWORDS']] # 불용어 제거
-    encoded = tokenizer.texts_to_sequences([new_sentence]) # 정수 인코딩
-    pad_new = pad_sequences(encoded, maxlen = current_app.config['MAX_SENTENCE_LEN']) # 패딩
-    score = float(loaded_model.predict(pad_new)) # 예측
+    return tokenizer.texts_to_sequences([new_sentence])[0] # 정수 인코딩
+
+def to_result(score):
     if(score > 0.5):
         prediction = 'positive'
         score_percent = score * 100
@@ -35,7 +36,68 @@ def sentiment_predict(new_sentence):
     
     result = {
         'predict': prediction,
-        'percentage': f'{score_percent:.2f}'
+        'percentage': round(score_percent, 2),
+        'modelVersion': current_app.config['MODEL_VERSION']
     }
     
-    return result
\ No newline at end of file
+    return result
+
+@shared_task(ignore_result=False)
+def sentiment_predict(new_sentence):
+
+    encoded = encode_sentence(new_sentence)
+    pad_new = pad_sequences([encoded], maxlen = current_app.config['MAX_SENTENCE_LEN']) # 패딩
+    score = float(loaded_model.predict(pad_new)) # 예측
+    return to_result(score)
+
+# 여러 문장을 한번의 model.predict 로 처리
+@shared_task(ignore_result=False)
+def sentiment_predict_batch(new_sentences):
+
+    encoded = [encode_sentence(new_sentence) for new_sentence in new_sentences]
+    pad_new = pad_sequences(encoded, maxlen = current_app.config['MAX_SENTENCE_LEN']) # 패딩
+    scores = loaded_model.predict(pad_new) # 예측
+    return [to_result(float(score)) for score in scores]
+
+# webflux 에서 정수 인코딩/패딩까지 마친 시퀀스를 바로 예측
+@shared_task(ignore_result=False)
+def sentiment_predict_sequences(sequences):
+
+    pad_new = pad_sequences(sequences, maxlen = current_app.config['MAX_SENTENCE_LEN']) # 길이 보정
+    scores = loaded_model.predict(pad_new) # 예측
+    return [to_result(float(score)) for score in scores]
+
+def post_callback(callback_url, payload):
+    body = json.dumps(payload).encode()
+    headers = sign_callback(body)
+    headers['Content-Type'] = 'application/json'
+    return requests.post(callback_url, data=body, headers=headers, timeout=5)
+
+# 예측 결과를 webflux 콜백 엔드포인트로 전달
+# subjects(요청한 글/댓글, job, 멱등 키)를 그대로 돌려줘 요청을 보낸 인스턴스가 아니어도 결과를 저장할 수 있게 함
+@shared_task(bind=True, max_retries=3, default_retry_delay=1)
+def deliver_callback(self, results, job_id, callback_url, subjects=None):
+
+    payload = {
+        'jobId': job_id,
+        'modelVersion': current_app.config['MODEL_VERSION'],
+        'results': results if isinstance(results, list) else [results]
+    }
+    if subjects is not None:
+        payload['subjects'] = subjects
+    try:
+        response = post_callback(callback_url, payload)
+    except requests.RequestException as e:
+        raise self.retry(exc=e)
+    # 410 은 webflux 에서 이미 시간 초과된 job 이므로 재시도하지 않음
+    if response.status_code >= 500:
+        raise self.retry()
+
+# 예측 task 가 실패하면 webflux 가 시간 초과까지 기다리지 않도록 실패를 알림
+@shared_task(ignore_result=True)
+def deliver_callback_error(job_id, callback_url):
+
+    try:
+        post_callback(callback_url, {'jobId': job_id, 'error': 'prediction failed'})
+    except requests.RequestException:
+        pass
@@ -1,17 +1,86 @@
-from flask import Blueprint, jsonify, request
-from api.service.tasks import sentiment_predict
+from flask import Blueprint, jsonify, request, current_app, Response, abort
+from api.service.tasks import sentiment_predict, sentiment_predict_batch, sentiment_predict_sequences, \
+    deliver_callback, deliver_callback_error
 from api.service.auth_service import token_required, check_whitelist
 import json
+import cbor2
+
+CBOR_MIMETYPE = 'application/cbor'
+JSON_MIMETYPE = 'application/json'
 
 api = Blueprint("api", __name__, url_prefix="/api")
 
+@api.after_request
+def add_model_version(response):
+    response.headers['X-Model-Version'] = current_app.config['MODEL_VERSION']
+    return response
+
+# 요청 본문은 Content-Type 에 따라 CBOR 또는 JSON 으로 읽음
+def read_params():
+    if request.mimetype == CBOR_MIMETYPE:
+        return cbor2.loads(request.get_data())
+    if request.mimetype in ('', JSON_MIMETYPE):
+        return json.loads(request.get_data())
+    abort(415)
+
+def to_json_result(result):
+    return {'predict': result['predict'], 'percentage': f"{result['percentage']:.2f}"}
+
+# CBOR 를 받을 수 있는 클라이언트에는 percentage 를 실수 그대로 보내고 JSON 은 기존 형식 유지
+def respond(result):
+    if request.accept_mimetypes.best_match([CBOR_MIMETYPE, JSON_MIMETYPE]) == CBOR_MIMETYPE:
+        return Response(cbor2.dumps(result), mimetype=CBOR_MIMETYPE)
+    if isinstance(result, list):
+        return jsonify([to_json_result(r) for r in result])
+    return jsonify(to_json_result(result))
+
+# 콜백 모드: 결과를 기다리지 않고 job id 만 응답, 결과는 celery 가 webflux 로 전달
+def submit_with_callback(task, params, subjects):
+    job_id = params['jobId']
+    callback_url = params['callbackUrl']
+    expires = params.get('timeoutMillis', 10000) / 1000
+    task.apply_async(
+        task_id=job_id,
+        expires=expires,
+        link=deliver_callback.s(job_id, callback_url, subjects),
+        link_error=deliver_callback_error.si(job_id, callback_url)
+    )
+    return jsonify({'jobId': job_id}), 202
+
 @api.route('/analysis', methods = ['POST'])
 @check_whitelist
 @token_required
 def analysis():
-    params = json.loads(request.get_data())
+    params = read_params()
     if len(params) == 0:
         return 'No parameter'
+    if 'callbackUrl' in params:
+        task = sentiment_predict_sequences.s([params['sequence']]) if 'sequence' in params \
+            else sentiment_predict.s(params['contents'])
+        subjects = [params['subject']] if 'subject' in params else None
+        return submit_with_callback(task, params, subjects)
+    # webflux 에서 인코딩된 시퀀스를 보낸 경우 형태소 분석을 생략
+    if 'sequence' in params:
+        result = sentiment_predict_sequences.delay([params['sequence']])
+        return respond(result.get()[0])
     contents = params['contents']
     result = sentiment_predict.delay(contents)
-    return jsonify(result.get())
\ No newline at end of file
+    return respond(result.get())
+
+@api.route('/analysis/batch', methods = ['POST'])
+@check_whitelist
+@token_required
+def batch_analysis():
+    params = read_params()
+    if len(params) == 0:
+        return 'No parameter'
+    if 'callbackUrl' in params:
+        task = sentiment_predict_sequences.s(params['sequences']) if 'sequences' in params \
+            else sentiment_predict_batch.s(params['contents'])
+        return submit_with_callback(task, params, params.get('subjects'))
+    if 'sequences' in params:
+        result = sentiment_predict_sequences.delay(params['sequences'])
+        return respond(result.get())
+    contents = params['contents']
+    result = sentiment_predict_batch.delay(contents)
+    return respond(result.get())
\ No newline at end of file
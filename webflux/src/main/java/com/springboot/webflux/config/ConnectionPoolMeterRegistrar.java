@@ -0,0 +1,52 @@
+package com.springboot.webflux.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+@RequiredArgsConstructor
+public class ConnectionPoolMeterRegistrar implements ConnectionProvider.MeterRegistrar {
+
+    private static final String METRIC_PREFIX = "sentiment.http.pool.";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, List<Meter>> metersByPool = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        Tags tags = Tags.of("pool", poolName, "remote", remoteAddress.toString());
+
+        metersByPool.put(id, List.of(
+                gauge("active", tags, metrics, ConnectionPoolMetrics::acquiredSize),
+                gauge("idle", tags, metrics, ConnectionPoolMetrics::idleSize),
+                gauge("pending", tags, metrics, ConnectionPoolMetrics::pendingAcquireSize),
+                gauge("allocated", tags, metrics, ConnectionPoolMetrics::allocatedSize),
+                gauge("max", tags, metrics, ConnectionPoolMetrics::maxAllocatedSize)
+        ));
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        List<Meter> meters = metersByPool.remove(id);
+        if (meters != null) {
+            meters.forEach(meterRegistry::remove);
+        }
+    }
+
+    private Meter gauge(String name, Tags tags, ConnectionPoolMetrics metrics, ToDoubleFunction<ConnectionPoolMetrics> value) {
+        return Gauge.builder(METRIC_PREFIX + name, metrics, value)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,156 @@
+package com.springboot.webflux.config;
+
+import com.springboot.webflux.constants.PredictionTarget;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.connection.init.DatabasePopulator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static com.springboot.webflux.constants.SentimentEventType.BACKFILL;
+
+// schema.sql 의 CREATE TABLE IF NOT EXISTS 는 이미 있는 테이블을 건드리지 않으므로
+// 이전 스키마로 만들어진 DB 에 새 컬럼을 추가하고 기존 데이터를 새 컬럼으로 옮김
+// MySQL 에는 ADD COLUMN IF NOT EXISTS 가 없어 information_schema 로 확인한 뒤 필요한 것만 실행하므로 매번 실행해도 됨
+// 한 번만 실행해야 하는 데이터 이전은 schema_migration 에 이름을 남겨 건너뜀
+@Slf4j
+public class SchemaMigrationPopulator implements DatabasePopulator {
+
+    public final static String SENTIMENT_EVENT_BACKFILL = "sentiment_event_backfill";
+
+    @Override
+    public Mono<Void> populate(Connection connection) {
+
+        return migrateMember(connection)
+                .then(migratePredictionColumns(connection, "post"))
+                .then(migratePredictionColumns(connection, "comment"))
+                .then(addColumnIfAbsent(connection, "prediction_job", "requeues", "INT NOT NULL DEFAULT 0"))
+                .then(addColumnIfAbsent(connection, "prediction_job", "next_attempt_at", "DATETIME"))
+                .then(backfillSentimentEvents(connection));
+    }
+
+    // activity_count(LONG = MEDIUMTEXT) / positive_rate 를 BIGINT 카운터로 바꾸고
+    // 카운터는 저장된 비율 대신 post/comment 의 분석 결과로 다시 셈
+    private Mono<Void> migrateMember(Connection connection){
+
+        Mono<Void> activityCount = columnType(connection, "member", "activity_count")
+                .filter(type -> !type.equalsIgnoreCase("bigint"))
+                .flatMap(type -> execute(connection,
+                        "UPDATE member SET activity_count = '0' WHERE activity_count IS NULL OR activity_count = ''")
+                        .then(execute(connection,
+                                "ALTER TABLE member MODIFY COLUMN activity_count BIGINT NOT NULL DEFAULT 0")));
+
+        Mono<Void> positiveRate = columnType(connection, "member", "positive_rate")
+                .flatMap(type -> execute(connection,
+                        "UPDATE member m SET " +
+                                "m.activity_count = " +
+                                "(SELECT COUNT(*) FROM post p WHERE p.member_id = m.member_id AND p.predict_result IS NOT NULL) + " +
+                                "(SELECT COUNT(*) FROM comment c WHERE c.member_id = m.member_id AND c.predict_result IS NOT NULL), " +
+                                "m.positive_count = " +
+                                "(SELECT COUNT(*) FROM post p WHERE p.member_id = m.member_id AND p.predict_result = 'positive') + " +
+                                "(SELECT COUNT(*) FROM comment c WHERE c.member_id = m.member_id AND c.predict_result = 'positive')")
+                        .then(execute(connection, "ALTER TABLE member DROP COLUMN positive_rate"))
+                        .doOnSuccess(done -> log.info("migrated member positive_rate to activity_count / positive_count")));
+
+        return activityCount
+                .then(addColumnIfAbsent(connection, "member", "positive_count", "BIGINT NOT NULL DEFAULT 0"))
+                .then(addColumnIfAbsent(connection, "member", "sentiment_event_id", "BIGINT NOT NULL DEFAULT 0"))
+                .then(addColumnIfAbsent(connection, "member", "sentiment_rebuilt_event_id", "BIGINT NOT NULL DEFAULT 0"))
+                .then(positiveRate);
+    }
+
+    // 이미 분석 결과가 있는 글은 완료 상태로 채움
+    private Mono<Void> migratePredictionColumns(Connection connection, String table){
+
+        return addColumnIfAbsent(connection, table, "predict_state", "VARCHAR(20)")
+                .filter(added -> added)
+                .flatMap(added -> execute(connection,
+                        "UPDATE " + table + " SET predict_state = 'COMPLETED' WHERE predict_result IS NOT NULL"))
+                .then(addColumnIfAbsent(connection, table, "prediction_key", "VARCHAR(100)"))
+                .then();
+    }
+
+    // 원장(sentiment_event)을 만들기 전의 분석 결과를 BACKFILL 이벤트로 채워 원장만으로 집계를 다시 계산할 수 있게 함
+    // 표시를 INSERT IGNORE 한 트랜잭션에서 채우므로 여러 인스턴스가 동시에 시작해도 한 인스턴스만 한 번 실행
+    private Mono<Void> backfillSentimentEvents(Connection connection){
+
+        return Mono.from(connection.beginTransaction())
+                .then(executeUpdate(connection, "INSERT IGNORE INTO schema_migration (name, applied_at) " +
+                        "VALUES ('" + SENTIMENT_EVENT_BACKFILL + "', NOW())"))
+                .filter(inserted -> inserted > 0)
+                .flatMap(inserted -> backfillSentimentEvents(connection, "post", "post_id", PredictionTarget.POST)
+                        .then(backfillSentimentEvents(connection, "comment", "comment_id", PredictionTarget.COMMENT))
+                        .doOnSuccess(done -> log.info("backfilled sentiment_event from post / comment")))
+                .then(Mono.from(connection.commitTransaction()))
+                .onErrorResume(e -> Mono.from(connection.rollbackTransaction()).then(Mono.error(e)));
+    }
+
+    // 글/댓글마다 원장 증감의 합이 현재 상태(결과가 있으면 +1)와 같아지도록 모자란 만큼을 남김
+    // - 원장 이전 결과가 원장에서 수정/삭제로 빠진 경우에도 빠진 원래 결과를 더하므로 합이 맞음
+    // - 시각은 원장에 처음 남은 시각, 원장에 없으면 작성/수정 시각
+    private Mono<Void> backfillSentimentEvents(Connection connection, String table, String idColumn, PredictionTarget target){
+
+        Mono<Long> existing = executeUpdate(connection,
+                "INSERT INTO sentiment_event (member_id, target, target_id, event_type, delta, positive, created_at) " +
+                        "SELECT t.member_id, '" + target.name() + "', t." + idColumn + ", '" + BACKFILL.name() + "', " +
+                        "(t.predict_result IS NOT NULL) - COALESCE(e.total, 0), " +
+                        "(t.predict_result <=> 'positive') - COALESCE(e.positive, 0) <> 0, " +
+                        "COALESCE(e.first_at, t.edited_at, t.wrote_at, NOW()) " +
+                        "FROM " + table + " t LEFT JOIN (" +
+                        "SELECT target_id, SUM(delta) AS total, SUM(IF(positive, delta, 0)) AS positive, MIN(created_at) AS first_at " +
+                        "FROM sentiment_event WHERE target = '" + target.name() + "' GROUP BY target_id" +
+                        ") e ON e.target_id = t." + idColumn + " " +
+                        "WHERE (t.predict_result IS NOT NULL) - COALESCE(e.total, 0) <> 0");
+
+        // 원장 이전 결과가 원장이 생긴 뒤 삭제된 글/댓글은 -1 만 남아 있으므로 되돌림
+        Mono<Long> deleted = executeUpdate(connection,
+                "INSERT INTO sentiment_event (member_id, target, target_id, event_type, delta, positive, created_at) " +
+                        "SELECT e.member_id, e.target, e.target_id, '" + BACKFILL.name() + "', " +
+                        "-SUM(e.delta), SUM(IF(e.positive, e.delta, 0)) <> 0, MIN(e.created_at) " +
+                        "FROM sentiment_event e LEFT JOIN " + table + " t ON t." + idColumn + " = e.target_id " +
+                        "WHERE e.target = '" + target.name() + "' AND t." + idColumn + " IS NULL " +
+                        "GROUP BY e.member_id, e.target, e.target_id HAVING SUM(e.delta) <> 0");
+
+        return existing.zipWhen(inserted -> deleted)
+                .doOnNext(counts -> log.info("backfilled {} {} and {} deleted {} sentiment events",
+                        counts.getT1(), table, counts.getT2(), table))
+                .then();
+    }
+
+    private Mono<Boolean> addColumnIfAbsent(Connection connection, String table, String column, String definition){
+
+        return columnType(connection, table, column)
+                .map(type -> false)
+                .switchIfEmpty(Mono.defer(() -> execute(connection,
+                                "ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition)
+                        .doOnSuccess(done -> log.info("added column {}.{}", table, column))
+                        .thenReturn(true)));
+    }
+
+    private Mono<String> columnType(Connection connection, String table, String column){
+
+        Statement statement = connection.createStatement("SELECT data_type FROM information_schema.columns " +
+                        "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?")
+                .bind(0, table)
+                .bind(1, column);
+        return Flux.from(statement.execute())
+                .flatMap(result -> result.map((row, metadata) -> row.get(0, String.class)))
+                .next();
+    }
+
+    private Mono<Long> executeUpdate(Connection connection, String sql){
+
+        return Flux.from(connection.createStatement(sql).execute())
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, (sum, rows) -> sum + rows.longValue());
+    }
+
+    private Mono<Void> execute(Connection connection, String sql){
+
+        return Flux.from(connection.createStatement(sql).execute())
+                .flatMap(Result::getRowsUpdated)
+                .then();
+    }
+}
@@ -1,19 +1,81 @@
 package com.springboot.webflux.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
 
+    private static final String POOL_NAME = "sentiment-analysis";
+
     @Value("${server.base.address}")
     String baseAddress;
 
+    @Value("${prediction.http.pool.max-connections:50}")
+    int maxConnections;
+
+    @Value("${prediction.http.pool.pending-acquire-max-count:500}")
+    int pendingAcquireMaxCount;
+
+    @Value("${prediction.http.pool.pending-acquire-timeout-millis:5000}")
+    long pendingAcquireTimeoutMillis;
+
+    @Value("${prediction.http.pool.max-idle-seconds:30}")
+    long maxIdleSeconds;
+
+    @Value("${prediction.http.pool.max-life-seconds:300}")
+    long maxLifeSeconds;
+
+    @Value("${prediction.http.pool.evict-interval-seconds:30}")
+    long evictIntervalSeconds;
+
+    @Value("${prediction.http.connect-timeout-millis:2000}")
+    int connectTimeoutMillis;
+
+    @Value("${prediction.http.response-timeout-millis:10000}")
+    long responseTimeoutMillis;
+
+    @Value("${prediction.http.h2c.enabled:false}")
+    boolean h2cEnabled;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider sentimentAnalysisConnectionProvider(MeterRegistry meterRegistry) {
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMillis))
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                .maxLifeTime(Duration.ofSeconds(maxLifeSeconds))
+                .evictInBackground(Duration.ofSeconds(evictIntervalSeconds))
+                .metrics(true, () -> new ConnectionPoolMeterRegistrar(meterRegistry))
+                .build();
+    }
+
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder().baseUrl(baseAddress).build();
+    public WebClient webClient(ConnectionProvider sentimentAnalysisConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(sentimentAnalysisConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMillis));
+
+        if (h2cEnabled) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+
+        return WebClient.builder()
+                .baseUrl(baseAddress)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
     }
 
 }
@@ -35,6 +35,8 @@ public class WebfluxSecurityConfiguration {
     public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
         http.authorizeExchange(exchanges -> exchanges
                         .pathMatchers("/member/signin", "/member/signup").permitAll()
+                        // 콜백은 JWT 대신 HMAC 서명으로 검증
+                        .pathMatchers("/internal/prediction/callback").permitAll()
                         .anyExchange().authenticated())
                 .formLogin().disable().csrf()
                 .disable().cors().and().exceptionHandling()
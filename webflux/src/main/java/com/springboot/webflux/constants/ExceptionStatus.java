@@ -12,7 +12,17 @@ public enum ExceptionStatus {
     MEMBER_NOT_FOUND("멤버를 찾지 못했습니다."),
     POST_NOT_FOUND("게시글을 찾지 못했습니다."),
     COMMENT_NOT_FOUND("댓글을 찾지 못했습니다."),
-    JSON_PARSE_FAILED("JSON 파싱 실패");
+    JSON_PARSE_FAILED("JSON 파싱 실패"),
+    BATCH_RESULT_MISMATCH("배치 분석 결과 개수가 요청과 다릅니다."),
+    PREDICTION_CIRCUIT_OPEN("감정 분석 서버 호출이 일시적으로 차단되었습니다."),
+    PREDICTION_BULKHEAD_FULL("감정 분석 동시 요청 한도를 초과했습니다."),
+    PREDICTION_LIMIT_EXCEEDED("감정 분석 요청 대기열이 가득 찼습니다."),
+    PREDICTION_CALLBACK_FAILED("감정 분석 서버가 분석 실패를 알렸습니다."),
+    PREDICTION_BROKER_FAILED("감정 분석 작업을 broker 에 발행하지 못했습니다."),
+    PREDICTION_TASK_FAILED("감정 분석 작업이 worker 에서 실패했습니다."),
+    PREDICTION_OVERLOADED("감정 분석 요청이 밀려 있습니다. 잠시 후 다시 시도해 주세요."),
+    PREDICTION_RETRY_EXHAUSTED("감정 분석 서버 호출을 재시도했지만 실패했습니다."),
+    PREDICTION_DEADLINE_EXCEEDED("감정 분석 요청 처리 시간이 초과되었습니다.");
 
     private final String message;
 }
@@ -0,0 +1,8 @@
+package com.springboot.webflux.constants;
+
+public enum PredictState {
+
+    PENDING,
+    COMPLETED,
+    FAILED
+}
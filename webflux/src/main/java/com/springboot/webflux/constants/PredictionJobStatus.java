@@ -0,0 +1,9 @@
+package com.springboot.webflux.constants;
+
+public enum PredictionJobStatus {
+
+    PENDING,
+    CLAIMED,
+    DONE,
+    FAILED
+}
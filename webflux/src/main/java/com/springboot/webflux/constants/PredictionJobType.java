@@ -0,0 +1,15 @@
+package com.springboot.webflux.constants;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum PredictionJobType {
+
+    REGISTER(PredictionLane.CREATE),
+    EDIT(PredictionLane.EDIT),
+    BACKFILL(PredictionLane.BACKFILL);
+
+    private final PredictionLane lane;
+}
@@ -0,0 +1,8 @@
+package com.springboot.webflux.constants;
+
+public enum PredictionLane {
+
+    CREATE,
+    EDIT,
+    BACKFILL
+}
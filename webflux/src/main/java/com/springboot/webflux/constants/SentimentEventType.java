@@ -0,0 +1,9 @@
+package com.springboot.webflux.constants;
+
+public enum SentimentEventType {
+    PREDICT,
+    EDIT,
+    DELETE,
+    // 원장을 만들기 전의 분석 결과를 채운 이벤트
+    BACKFILL
+}
@@ -0,0 +1,7 @@
+package com.springboot.webflux.constants;
+
+public enum SentimentRanking {
+
+    POSITIVE,
+    NEGATIVE
+}
@@ -0,0 +1,18 @@
+package com.springboot.webflux.constants;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 회원 감정 추이를 보는 구간: bucketCount 개의 bucket 을 ring 으로 돌려 최근 bucketCount * bucketSeconds 만 유지
+@Getter
+@AllArgsConstructor
+public enum SentimentWindow {
+
+    DAY("24h", 24, 60 * 60),
+    WEEK("7d", 28, 6 * 60 * 60),
+    MONTH("30d", 30, 24 * 60 * 60);
+
+    private final String label;
+    private final int bucketCount;
+    private final long bucketSeconds;
+}
@@ -55,6 +55,14 @@ public class CommentController {
                 .map(CommentResponse::fromEntity);
     }
 
+    @GetMapping("/{commentId}/prediction")
+    public Mono<CommentResponse> awaitPrediction(
+            @PathVariable Long commentId
+    ){
+        return commentService.awaitPrediction(commentId)
+                .map(CommentResponse::fromEntity);
+    }
+
     @GetMapping("/search/member/{memberId}")
     public Flux<CommentResponse> findByMemberId(
             @PathVariable Long memberId
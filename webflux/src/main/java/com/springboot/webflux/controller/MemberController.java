@@ -1,12 +1,17 @@
 package com.springboot.webflux.controller;
 
+import com.springboot.webflux.constants.SentimentRanking;
 import com.springboot.webflux.dto.MemberEditRequest;
+import com.springboot.webflux.dto.MemberRankingResponse;
 import com.springboot.webflux.dto.MemberResponse;
+import com.springboot.webflux.dto.MemberSentimentTrendResponse;
 import com.springboot.webflux.dto.MemberSignInRequest;
 import com.springboot.webflux.dto.MemberSignUpRequest;
 import com.springboot.webflux.service.MemberService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.security.Principal;
@@ -18,6 +23,14 @@ public class MemberController {
 
     private final MemberService memberService;
 
+    @GetMapping("/leaderboard")
+    public Flux<MemberRankingResponse> findLeaderboard(
+            @RequestParam(defaultValue = "POSITIVE") SentimentRanking ranking,
+            @RequestParam(defaultValue = "10") int limit
+    ){
+        return memberService.findLeaderboard(ranking, limit);
+    }
+
     @GetMapping("/{memberId}")
     public Mono<MemberResponse> findById(
             @PathVariable Long memberId
@@ -26,6 +39,21 @@ public class MemberController {
                 .map(MemberResponse::fromEntity);
     }
 
+    @GetMapping(value = "/{memberId}/sentiment/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<MemberResponse> streamSentiment(
+            @PathVariable Long memberId
+    ){
+        return memberService.streamSentiment(memberId)
+                .map(MemberResponse::fromEntity);
+    }
+
+    @GetMapping("/{memberId}/sentiment/trend")
+    public Mono<MemberSentimentTrendResponse> findSentimentTrend(
+            @PathVariable Long memberId
+    ){
+        return memberService.findSentimentTrend(memberId);
+    }
+
     @PostMapping("/signup")
     public Mono<MemberResponse> signUp(
             @RequestBody MemberSignUpRequest request
@@ -5,6 +5,7 @@ import com.springboot.webflux.dto.PostRegisterRequest;
 import com.springboot.webflux.dto.PostResponse;
 import com.springboot.webflux.service.PostService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -55,6 +56,22 @@ public class PostController {
                 .map(PostResponse::fromEntity);
     }
 
+    @GetMapping("/{postId}/prediction")
+    public Mono<PostResponse> awaitPrediction(
+            @PathVariable Long postId
+    ){
+        return postService.awaitPrediction(postId)
+                .map(PostResponse::fromEntity);
+    }
+
+    @GetMapping(value = "/{postId}/prediction/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<PostResponse> streamPrediction(
+            @PathVariable Long postId
+    ){
+        return postService.streamPrediction(postId)
+                .map(PostResponse::fromEntity);
+    }
+
     @GetMapping("/search/member/{memberId}")
     public Flux<PostResponse> findByMemberId(
             @PathVariable Long memberId
@@ -0,0 +1,57 @@
+package com.springboot.webflux.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.webflux.dto.PredictionCallbackRequest;
+import com.springboot.webflux.security.PredictionCallbackVerifier;
+import com.springboot.webflux.service.PredictionCallbackApplier;
+import com.springboot.webflux.service.PredictionCallbackRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+
+import static com.springboot.webflux.security.PredictionCallbackVerifier.SIGNATURE_HEADER;
+import static com.springboot.webflux.security.PredictionCallbackVerifier.TIMESTAMP_HEADER;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/internal/prediction")
+public class PredictionCallbackController {
+
+    private final PredictionCallbackVerifier predictionCallbackVerifier;
+    private final PredictionCallbackRegistry predictionCallbackRegistry;
+    private final PredictionCallbackApplier predictionCallbackApplier;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping("/callback")
+    public Mono<ResponseEntity<Void>> callback(
+            @RequestHeader(value = TIMESTAMP_HEADER, required = false) String timestamp,
+            @RequestHeader(value = SIGNATURE_HEADER, required = false) String signature,
+            @RequestBody byte[] body
+    ){
+        if(!predictionCallbackVerifier.verify(timestamp, signature, body)){
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+
+        PredictionCallbackRequest callback;
+        try {
+            callback = objectMapper.readValue(body, PredictionCallbackRequest.class);
+        } catch (IOException e){
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        if(predictionCallbackRegistry.complete(callback)){
+            return Mono.just(ResponseEntity.noContent().build());
+        }
+
+        // 이 인스턴스에 기다리는 쪽이 없으면 본문의 subject 로 결과를 바로 저장
+        // 저장할 수 없는 콜백만 410 으로 알려 flask 가 재전송하지 않도록 함
+        return predictionCallbackApplier.apply(callback)
+                .map(applied -> applied
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.status(HttpStatus.GONE).<Void>build());
+    }
+}
@@ -0,0 +1,25 @@
+package com.springboot.webflux.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchPredictionRequest {
+
+    private List<String> contents;
+
+    private List<int[]> sequences;
+
+    private String jobId;
+
+    private String callbackUrl;
+
+    private Long timeoutMillis;
+
+    private List<PredictionSubject> subjects;
+}
@@ -1,5 +1,6 @@
 package com.springboot.webflux.dto;
 
+import com.springboot.webflux.constants.PredictState;
 import com.springboot.webflux.entity.Comment;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,6 +21,7 @@ public class CommentResponse {
     private String contents;
     private String predictResult;
     private Float predictPercent;
+    private PredictState predictState;
     private LocalDateTime wroteAt;
     private LocalDateTime editedAt;
 
@@ -31,6 +33,7 @@ public class CommentResponse {
                 .contents(comment.getContents())
                 .predictResult(comment.getPredictResult())
                 .predictPercent(comment.getPredictPercent())
+                .predictState(comment.getPredictState())
                 .wroteAt(comment.getWroteAt())
                 .editedAt(comment.getEditedAt())
                 .build();
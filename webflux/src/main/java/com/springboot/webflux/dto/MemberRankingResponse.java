@@ -0,0 +1,31 @@
+package com.springboot.webflux.dto;
+
+import com.springboot.webflux.service.MemberSentimentLeaderboard;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberRankingResponse {
+
+    private Integer rank;
+    private Long memberId;
+    private Long activityCount;
+    private Long positiveCount;
+    private Float positiveRate;
+
+    public static MemberRankingResponse of(int rank, MemberSentimentLeaderboard.Score score){
+
+        return MemberRankingResponse.builder()
+                .rank(rank)
+                .memberId(score.memberId())
+                .activityCount(score.activityCount())
+                .positiveCount(score.positiveCount())
+                .positiveRate(score.getPositiveRate())
+                .build();
+    }
+}
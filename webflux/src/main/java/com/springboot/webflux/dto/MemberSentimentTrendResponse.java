@@ -0,0 +1,53 @@
+package com.springboot.webflux.dto;
+
+import com.springboot.webflux.constants.SentimentWindow;
+import com.springboot.webflux.service.SentimentTrend;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberSentimentTrendResponse {
+
+    private Long memberId;
+    private Float decayedPositiveRate;
+    private Long halfLifeHours;
+    private List<WindowResponse> windows;
+
+    public static MemberSentimentTrendResponse of(Long memberId, SentimentTrend trend, long halfLifeSeconds){
+
+        return MemberSentimentTrendResponse.builder()
+                .memberId(memberId)
+                .decayedPositiveRate(trend.getDecayedPositiveRate())
+                .halfLifeHours(halfLifeSeconds / (60 * 60))
+                .windows(Arrays.stream(SentimentWindow.values())
+                        .map(window -> WindowResponse.builder()
+                                .window(window.getLabel())
+                                .activityCount(trend.getActivityCount(window))
+                                .positiveCount(trend.getPositiveCount(window))
+                                .positiveRate(trend.getPositiveRate(window))
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    @Getter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class WindowResponse {
+
+        private String window;
+        private Long activityCount;
+        private Long positiveCount;
+        private Float positiveRate;
+    }
+}
@@ -22,6 +22,8 @@ public class MemberSignUpRequest {
                 .username(this.username)
                 .password(this.password)
                 .activityCount(0L)
+                .positiveCount(0L)
+                .sentimentEventId(0L)
                 .registeredAt(LocalDateTime.now())
                 .build();
     }
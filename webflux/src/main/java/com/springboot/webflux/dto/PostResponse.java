@@ -1,5 +1,6 @@
 package com.springboot.webflux.dto;
 
+import com.springboot.webflux.constants.PredictState;
 import com.springboot.webflux.entity.Post;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,6 +20,7 @@ public class PostResponse {
     private String contents;
     private String predictResult;
     private Float predictPercent;
+    private PredictState predictState;
     private LocalDateTime wroteAt;
     private LocalDateTime editedAt;
 
@@ -30,6 +32,7 @@ public class PostResponse {
                 .contents(post.getContents())
                 .predictResult(post.getPredictResult())
                 .predictPercent(post.getPredictPercent())
+                .predictState(post.getPredictState())
                 .wroteAt(post.getWroteAt())
                 .editedAt(post.getEditedAt())
                 .build();
@@ -0,0 +1,21 @@
+package com.springboot.webflux.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PredictionCallbackRequest {
+
+    private String jobId;
+    private String modelVersion;
+    private List<PredictionResult> results;
+    private String error;
+    private List<PredictionSubject> subjects;
+}
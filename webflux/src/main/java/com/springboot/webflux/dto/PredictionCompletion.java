@@ -0,0 +1,17 @@
+package com.springboot.webflux.dto;
+
+import com.springboot.webflux.constants.PredictionTarget;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class PredictionCompletion {
+
+    private final PredictionTarget target;
+    private final Long targetId;
+
+    public boolean matches(PredictionTarget target, Long targetId){
+        return this.target == target && this.targetId.equals(targetId);
+    }
+}
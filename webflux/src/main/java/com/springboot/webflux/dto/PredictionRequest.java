@@ -1,11 +1,23 @@
 package com.springboot.webflux.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Getter;
 
 @Getter
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PredictionRequest {
 
     private String contents;
+
+    private int[] sequence;
+
+    private String jobId;
+
+    private String callbackUrl;
+
+    private Long timeoutMillis;
+
+    private PredictionSubject subject;
 }
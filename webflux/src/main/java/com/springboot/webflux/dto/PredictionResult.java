@@ -0,0 +1,8 @@
+package com.springboot.webflux.dto;
+
+import lombok.Builder;
+import lombok.With;
+
+@Builder
+public record PredictionResult(String predict, Float percentage, @With String modelVersion) {
+}
@@ -0,0 +1,19 @@
+package com.springboot.webflux.dto;
+
+import com.springboot.webflux.constants.PredictionTarget;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+// 분석을 요청한 글/댓글과 그 분석의 outbox job, 멱등 키
+// 콜백 모드에서 flask 가 서명된 콜백 본문에 그대로 돌려주므로 어느 인스턴스든 결과를 저장할 수 있음
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PredictionSubject {
+
+    private PredictionTarget target;
+    private Long targetId;
+    private Long jobId;
+    private String predictionKey;
+}
@@ -1,5 +1,6 @@
 package com.springboot.webflux.entity;
 
+import com.springboot.webflux.constants.PredictState;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -35,6 +36,12 @@ public class Comment {
     @Column("predict_percent")
     private Float predictPercent;
 
+    @Column("predict_state")
+    private PredictState predictState;
+
+    @Column("prediction_key")
+    private String predictionKey;
+
     @CreatedDate
     @Column("wrote_at")
     private LocalDateTime wroteAt;
@@ -26,14 +26,27 @@ public class Member {
     @JsonIgnore
     private String password;
 
+    // 분석 결과가 반영된 글/댓글 수 (positive_rate 계산의 분모)
     @Column("activity_count")
     private Long activityCount;
 
-    @Column("positive_rate")
-    private Float positiveRate;
+    @Column("positive_count")
+    private Long positiveCount;
+
+    // 카운터에 반영된 마지막 sentiment_event (재계산 중 새 반영이 있었는지 확인하는 용도)
+    @Column("sentiment_event_id")
+    private Long sentimentEventId;
 
     @CreatedDate
     @Column("registered_at")
     private LocalDateTime registeredAt;
 
+    // 비율은 저장하지 않고 카운터로 읽을 때마다 계산
+    public Float getPositiveRate(){
+
+        if(activityCount == null || activityCount == 0 || positiveCount == null){
+            return null;
+        }
+        return (float) positiveCount / activityCount;
+    }
 }
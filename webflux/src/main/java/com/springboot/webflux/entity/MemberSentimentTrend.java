@@ -0,0 +1,37 @@
+package com.springboot.webflux.entity;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+// 회원별 감쇠 점수와 구간 카운터 (구간 bucket 은 SentimentTrend 가 인코딩한 byte 배열로 저장)
+@Table("member_sentiment_trend")
+@Builder
+@Getter
+@Setter
+public class MemberSentimentTrend {
+
+    @Id
+    @Column("member_id")
+    private Long memberId;
+
+    @Column("decayed_total")
+    private Double decayedTotal;
+
+    @Column("decayed_positive")
+    private Double decayedPositive;
+
+    // 감쇠 점수를 마지막으로 계산한 시각 (epoch 초)
+    @Column("decayed_at")
+    private Long decayedAt;
+
+    private byte[] buckets;
+
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+}
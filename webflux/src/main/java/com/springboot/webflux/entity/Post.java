@@ -1,5 +1,6 @@
 package com.springboot.webflux.entity;
 
+import com.springboot.webflux.constants.PredictState;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -32,6 +33,12 @@ public class Post {
     @Column("predict_percent")
     private Float predictPercent;
 
+    @Column("predict_state")
+    private PredictState predictState;
+
+    @Column("prediction_key")
+    private String predictionKey;
+
     @CreatedDate
     @Column("wrote_at")
     private LocalDateTime wroteAt;
@@ -0,0 +1,75 @@
+package com.springboot.webflux.entity;
+
+import com.springboot.webflux.constants.PredictionJobStatus;
+import com.springboot.webflux.constants.PredictionJobType;
+import com.springboot.webflux.constants.PredictionTarget;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Table("prediction_job")
+@Builder
+@Getter
+@Setter
+public class PredictionJob {
+
+    @Id
+    @Column("job_id")
+    private Long jobId;
+
+    private PredictionTarget target;
+
+    @Column("target_id")
+    private Long targetId;
+
+    @Column("job_type")
+    private PredictionJobType jobType;
+
+    private PredictionJobStatus status;
+
+    private Integer attempts;
+
+    // 분석 서버를 쓸 수 없어 시도 횟수 증가 없이 다시 대기시킨 횟수, 시도 횟수가 늘면 0 으로 돌아감
+    private Integer requeues;
+
+    @Column("claimed_by")
+    private String claimedBy;
+
+    @Column("claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    @Column("completed_at")
+    private LocalDateTime completedAt;
+
+    @Column("next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    public static PredictionJob of(PredictionTarget target, Long targetId, PredictionJobType jobType){
+        return PredictionJob.builder()
+                .target(target)
+                .targetId(targetId)
+                .jobType(jobType)
+                .status(PredictionJobStatus.PENDING)
+                .attempts(0)
+                .requeues(0)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    // 저장한 쪽이 바로 처리하는 job, claim-timeout 이 지나도록 끝나지 않으면 drainer 가 가져감
+    public static PredictionJob claimed(PredictionTarget target, Long targetId, PredictionJobType jobType, String claimedBy){
+        PredictionJob job = of(target, targetId, jobType);
+        job.setStatus(PredictionJobStatus.CLAIMED);
+        job.setClaimedBy(claimedBy);
+        job.setClaimedAt(job.getCreatedAt());
+        return job;
+    }
+}
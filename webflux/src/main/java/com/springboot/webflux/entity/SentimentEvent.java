@@ -0,0 +1,55 @@
+package com.springboot.webflux.entity;
+
+import com.springboot.webflux.constants.PredictionTarget;
+import com.springboot.webflux.constants.SentimentEventType;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+// 회원 감정 집계의 원장 (추가만 함): 분석 결과가 집계에 들어가면 +1, 빠지면 -1
+@Table("sentiment_event")
+@Builder
+@Getter
+@Setter
+public class SentimentEvent {
+
+    @Id
+    @Column("event_id")
+    private Long eventId;
+
+    @Column("member_id")
+    private Long memberId;
+
+    private PredictionTarget target;
+
+    @Column("target_id")
+    private Long targetId;
+
+    @Column("event_type")
+    private SentimentEventType eventType;
+
+    private Integer delta;
+
+    private Boolean positive;
+
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    public static SentimentEvent of(Long memberId, PredictionTarget target, Long targetId,
+                                    SentimentEventType eventType, int delta, boolean positive){
+        return SentimentEvent.builder()
+                .memberId(memberId)
+                .target(target)
+                .targetId(targetId)
+                .eventType(eventType)
+                .delta(delta)
+                .positive(positive)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
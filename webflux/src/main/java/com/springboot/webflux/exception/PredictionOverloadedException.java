@@ -0,0 +1,20 @@
+package com.springboot.webflux.exception;
+
+import com.springboot.webflux.constants.ExceptionStatus;
+import lombok.Getter;
+
+// 감정 분석 대기열이 밀려 쓰기 요청을 받지 않을 때 사용, 429 와 Retry-After 로 응답
+@Getter
+public class PredictionOverloadedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ExceptionStatus status;
+    private final long retryAfterSeconds;
+
+    public PredictionOverloadedException(ExceptionStatus status, long retryAfterSeconds) {
+        super(status.getMessage());
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
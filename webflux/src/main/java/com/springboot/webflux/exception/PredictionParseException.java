@@ -0,0 +1,18 @@
+package com.springboot.webflux.exception;
+
+import lombok.Getter;
+
+import static com.springboot.webflux.constants.ExceptionStatus.JSON_PARSE_FAILED;
+
+@Getter
+public class PredictionParseException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String payload;
+
+    public PredictionParseException(String payload, Throwable cause) {
+        super(JSON_PARSE_FAILED.getMessage() + ": " + payload, cause);
+        this.payload = payload;
+    }
+}
@@ -0,0 +1,17 @@
+package com.springboot.webflux.exception;
+
+import com.springboot.webflux.constants.ExceptionStatus;
+import lombok.Getter;
+
+@Getter
+public class PredictionUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ExceptionStatus status;
+
+    public PredictionUnavailableException(ExceptionStatus status) {
+        super(status.getMessage());
+        this.status = status;
+    }
+}
@@ -1,8 +1,11 @@
 package com.springboot.webflux.repository;
 
 import com.springboot.webflux.entity.Comment;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public interface CommentRepository extends ReactiveCrudRepository<Comment, Long> {
 
@@ -10,4 +13,12 @@ public interface CommentRepository extends ReactiveCrudRepository<Comment, Long>
 
     Flux<Comment> findByPostId(Long memberId);
 
+    // 읽었을 때의 prediction_key(previousKey) 그대로일 때만 덮어써 동시에 들어온 결과가 같은 이전 결과를 두 번 빼지 않도록 함
+    @Modifying
+    @Query("UPDATE comment SET predict_result = :predictResult, predict_percent = :predictPercent, " +
+            "predict_state = 'COMPLETED', prediction_key = :predictionKey " +
+            "WHERE comment_id = :commentId AND prediction_key <=> :previousKey " +
+            "AND (prediction_key IS NULL OR prediction_key <> :predictionKey)")
+    Mono<Integer> savePredictionResult(Long commentId, String predictResult, Float predictPercent, String predictionKey,
+                                       String previousKey);
 }
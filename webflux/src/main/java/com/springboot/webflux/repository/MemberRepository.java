@@ -1,7 +1,10 @@
 package com.springboot.webflux.repository;
 
 import com.springboot.webflux.entity.Member;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface MemberRepository extends ReactiveCrudRepository<Member, Long> {
@@ -9,4 +12,30 @@ public interface MemberRepository extends ReactiveCrudRepository<Member, Long> {
     Mono<Boolean> existsByUsername(String username);
 
     Mono<Member> findByUsername(String username);
+
+    @Modifying
+    @Query("UPDATE member SET username = :username, password = :password WHERE member_id = :memberId")
+    Mono<Integer> updateAccount(Long memberId, String username, String password);
+
+    @Modifying
+    @Query("UPDATE member SET activity_count = activity_count + :totalDelta, " +
+            "positive_count = positive_count + :positiveDelta, " +
+            "sentiment_event_id = GREATEST(sentiment_event_id, :lastEventId) " +
+            "WHERE member_id = :memberId " +
+            "AND activity_count + :totalDelta >= 0 AND positive_count + :positiveDelta >= 0")
+    Mono<Integer> addSentimentCounts(Long memberId, long totalDelta, long positiveDelta, long lastEventId);
+
+    // 원장에서 다시 계산한 값으로 덮어씀, 계산하는 동안 upToEventId 이후 이벤트가 반영됐으면 0 을 돌려줌
+    // sentiment_rebuilt_event_id 이하 증감은 이미 합산됐으므로 이후 flush 에서 빠짐
+    @Modifying
+    @Query("UPDATE member SET activity_count = :activityCount, positive_count = :positiveCount, " +
+            "sentiment_event_id = :upToEventId, sentiment_rebuilt_event_id = :upToEventId " +
+            "WHERE member_id = :memberId AND sentiment_event_id <= :upToEventId")
+    Mono<Integer> overwriteSentimentCounts(Long memberId, long activityCount, long positiveCount, long upToEventId);
+
+    @Query("SELECT member_id FROM member WHERE member_id > :afterMemberId ORDER BY member_id LIMIT :limit")
+    Flux<Long> findIdsAfter(Long afterMemberId, int limit);
+
+    @Query("SELECT * FROM member WHERE member_id > :afterMemberId AND activity_count > 0 ORDER BY member_id LIMIT :limit")
+    Flux<Member> findWithActivityAfter(Long afterMemberId, int limit);
 }
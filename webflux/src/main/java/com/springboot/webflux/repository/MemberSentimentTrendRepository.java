@@ -0,0 +1,31 @@
+package com.springboot.webflux.repository;
+
+import com.springboot.webflux.entity.MemberSentimentTrend;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface MemberSentimentTrendRepository extends ReactiveCrudRepository<MemberSentimentTrend, Long> {
+
+    // 동시에 처음 반영되는 경우에도 회원마다 행이 하나만 생기도록 INSERT IGNORE 로 만든 뒤 잠금
+    // 그 사이 탈퇴한 회원은 member 에 없으므로 만들지 않음
+    @Modifying
+    @Query("INSERT IGNORE INTO member_sentiment_trend (member_id, decayed_total, decayed_positive, decayed_at, updated_at) " +
+            "SELECT member_id, 0, 0, :decayedAt, :updatedAt FROM member WHERE member_id IN (:memberIds)")
+    Mono<Integer> createIfAbsent(Collection<Long> memberIds, long decayedAt, LocalDateTime updatedAt);
+
+    // 여러 인스턴스가 동시에 flush 해도 교착되지 않도록 항상 member_id 순서로 잠금
+    @Query("SELECT * FROM member_sentiment_trend WHERE member_id IN (:memberIds) ORDER BY member_id FOR UPDATE")
+    Flux<MemberSentimentTrend> findAllForUpdate(Collection<Long> memberIds);
+
+    @Modifying
+    @Query("UPDATE member_sentiment_trend SET decayed_total = :decayedTotal, decayed_positive = :decayedPositive, " +
+            "decayed_at = :decayedAt, buckets = :buckets, updated_at = :updatedAt WHERE member_id = :memberId")
+    Mono<Integer> saveTrend(Long memberId, double decayedTotal, double decayedPositive, long decayedAt,
+                            byte[] buckets, LocalDateTime updatedAt);
+}
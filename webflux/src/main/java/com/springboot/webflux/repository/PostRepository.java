@@ -1,6 +1,8 @@
 package com.springboot.webflux.repository;
 
 import com.springboot.webflux.entity.Post;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -11,4 +13,13 @@ public interface PostRepository extends ReactiveCrudRepository<Post, Long> {
     Flux<Post> findByMemberId(Long memberId);
 
     Mono<Long> countByMemberId(Long memberId);
+
+    // 읽었을 때의 prediction_key(previousKey) 그대로일 때만 덮어써 동시에 들어온 결과가 같은 이전 결과를 두 번 빼지 않도록 함
+    @Modifying
+    @Query("UPDATE post SET predict_result = :predictResult, predict_percent = :predictPercent, " +
+            "predict_state = 'COMPLETED', prediction_key = :predictionKey " +
+            "WHERE post_id = :postId AND prediction_key <=> :previousKey " +
+            "AND (prediction_key IS NULL OR prediction_key <> :predictionKey)")
+    Mono<Integer> savePredictionResult(Long postId, String predictResult, Float predictPercent, String predictionKey,
+                                       String previousKey);
 }
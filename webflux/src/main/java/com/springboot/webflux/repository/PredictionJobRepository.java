@@ -0,0 +1,39 @@
+package com.springboot.webflux.repository;
+
+import com.springboot.webflux.entity.PredictionJob;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PredictionJobRepository extends ReactiveCrudRepository<PredictionJob, Long> {
+
+    @Query("SELECT * FROM prediction_job " +
+            "WHERE (status = 'PENDING' AND (next_attempt_at IS NULL OR next_attempt_at <= :now)) " +
+            "OR (status = 'CLAIMED' AND claimed_at < :claimExpiredAt) " +
+            "ORDER BY job_id LIMIT :limit FOR UPDATE SKIP LOCKED")
+    Flux<PredictionJob> findClaimable(LocalDateTime now, LocalDateTime claimExpiredAt, int limit);
+
+    @Modifying
+    @Query("UPDATE prediction_job SET status = 'CLAIMED', claimed_by = :claimedBy, claimed_at = :claimedAt " +
+            "WHERE job_id IN (:jobIds)")
+    Mono<Integer> claim(List<Long> jobIds, String claimedBy, LocalDateTime claimedAt);
+
+    @Modifying
+    @Query("UPDATE prediction_job SET status = 'DONE', completed_at = :completedAt WHERE job_id = :jobId")
+    Mono<Integer> markDone(Long jobId, LocalDateTime completedAt);
+
+    @Modifying
+    @Query("UPDATE prediction_job SET status = :status, attempts = attempts + 1, requeues = 0, claimed_by = NULL, " +
+            "next_attempt_at = :nextAttemptAt WHERE job_id = :jobId")
+    Mono<Integer> release(Long jobId, String status, LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Query("UPDATE prediction_job SET status = 'PENDING', requeues = requeues + 1, claimed_by = NULL, " +
+            "next_attempt_at = :nextAttemptAt WHERE job_id = :jobId")
+    Mono<Integer> requeue(Long jobId, LocalDateTime nextAttemptAt);
+}
@@ -0,0 +1,31 @@
+package com.springboot.webflux.repository;
+
+import com.springboot.webflux.config.SchemaMigrationPopulator;
+import com.springboot.webflux.entity.SentimentEvent;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface SentimentEventRepository extends ReactiveCrudRepository<SentimentEvent, Long> {
+
+    @Query("SELECT * FROM sentiment_event " +
+            "WHERE member_id = :memberId AND event_id > :afterEventId AND event_id <= :upToEventId " +
+            "ORDER BY event_id LIMIT :limit")
+    Flux<SentimentEvent> findPage(Long memberId, Long afterEventId, Long upToEventId, int limit);
+
+    // 글/댓글의 현재 결과가 더해진 시각 (수정, 삭제 때 구간 카운터에서 원래 bucket 을 찾아 빼는 용도)
+    // 나중에 채운 BACKFILL 이벤트는 event_id 가 더 크지만 시각은 원래 결과의 시각이므로 시각 순서로 찾음
+    @Query("SELECT created_at FROM sentiment_event " +
+            "WHERE target = :target AND target_id = :targetId AND delta > 0 ORDER BY created_at DESC, event_id DESC LIMIT 1")
+    Mono<LocalDateTime> findLastAddedAt(String target, Long targetId);
+
+    @Query("SELECT COALESCE(MAX(event_id), 0) FROM sentiment_event")
+    Mono<Long> findLastEventId();
+
+    // 원장 이전의 분석 결과를 원장에 채웠는지 (SchemaMigrationPopulator)
+    @Query("SELECT COUNT(*) FROM schema_migration WHERE name = '" + SchemaMigrationPopulator.SENTIMENT_EVENT_BACKFILL + "'")
+    Mono<Long> countBackfill();
+}
@@ -0,0 +1,73 @@
+package com.springboot.webflux.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.LongSupplier;
+
+// flask 가 보낸 콜백 본문의 HMAC-SHA256 서명 검증 (서명 대상: "{timestamp}.{body}")
+@Service
+public class PredictionCallbackVerifier {
+
+    public final static String TIMESTAMP_HEADER = "X-Callback-Timestamp";
+    public final static String SIGNATURE_HEADER = "X-Callback-Signature";
+
+    private final static String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec secretKey;
+    private final long maxSkewMillis;
+    private final LongSupplier currentTimeMillis;
+
+    @Autowired
+    public PredictionCallbackVerifier(@Value("${prediction.callback.secret}") String secret,
+                                      @Value("${prediction.callback.max-skew-seconds:300}") long maxSkewSeconds) {
+        this(secret, Duration.ofSeconds(maxSkewSeconds), System::currentTimeMillis);
+    }
+
+    PredictionCallbackVerifier(String secret, Duration maxSkew, LongSupplier currentTimeMillis) {
+        this.secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.maxSkewMillis = maxSkew.toMillis();
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    public boolean verify(String timestamp, String signature, byte[] body){
+
+        if(timestamp == null || signature == null){
+            return false;
+        }
+
+        long sentAt;
+        try {
+            sentAt = Long.parseLong(timestamp);
+        } catch (NumberFormatException e){
+            return false;
+        }
+        if(Math.abs(currentTimeMillis.getAsLong() - sentAt) > maxSkewMillis){
+            return false;
+        }
+
+        byte[] expected = sign(timestamp, body).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public String sign(String timestamp, byte[] body){
+
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secretKey);
+            mac.update(timestamp.getBytes(StandardCharsets.US_ASCII));
+            mac.update((byte) '.');
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e){
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,5 +0,0 @@
-package com.springboot.webflux.security;
-
-public class SentimentAnalysisAuthToken {
-    public static String token;
-}
@@ -0,0 +1,144 @@
+package com.springboot.webflux.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReference;
+
+// flask 인증 토큰을 공유하고 만료 전에 미리 재발급
+// - 발급 받은 토큰은 유효시간의 refresh-fraction 지점에서 timer 로 재발급
+// - 그 지점이 지났지만 아직 만료 전이면 기존 토큰을 그대로 쓰면서 백그라운드에서 한 번만 재발급
+// - 발급 요청은 동시에 하나만 나가고 기다리는 쪽은 같은 결과를 공유, 실패는 error-backoff 동안 공유해 인증 서버로 몰리지 않도록 함
+@Slf4j
+public class SentimentAnalysisTokenManager {
+
+    private final static String TOKEN_URI = "/auth/token";
+    private final static String EXPIRATION = "exp";
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final double refreshFraction;
+    private final Duration defaultTokenLifetime;
+    private final Duration errorBackoff;
+    private final Clock clock;
+
+    private final AtomicReference<AuthToken> currentToken = new AtomicReference<>();
+    private final AtomicReference<Disposable> scheduledRefresh = new AtomicReference<>();
+    private final Mono<AuthToken> sharedFetch;
+
+    public SentimentAnalysisTokenManager(WebClient webClient,
+                                         ObjectMapper objectMapper,
+                                         double refreshFraction,
+                                         long defaultLifetimeSeconds,
+                                         long errorBackoffMillis) {
+        this(webClient, objectMapper, refreshFraction, Duration.ofSeconds(defaultLifetimeSeconds),
+                Duration.ofMillis(errorBackoffMillis), Clock.systemUTC());
+    }
+
+    SentimentAnalysisTokenManager(WebClient webClient, ObjectMapper objectMapper, double refreshFraction,
+                                  Duration defaultTokenLifetime, Duration errorBackoff, Clock clock) {
+        this.webClient = webClient;
+        this.objectMapper = objectMapper;
+        this.refreshFraction = refreshFraction;
+        this.defaultTokenLifetime = defaultTokenLifetime;
+        this.errorBackoff = errorBackoff;
+        this.clock = clock;
+        // 진행 중인 발급은 공유하고, 성공하면 다음 요청이 새로 발급하도록 바로 비우며 실패는 error-backoff 동안 유지
+        this.sharedFetch = Mono.defer(this::fetchToken)
+                .doOnNext(this::store)
+                .cache(authToken -> Duration.ZERO, e -> errorBackoff, () -> Duration.ZERO);
+    }
+
+    public Mono<String> getToken(){
+
+        return Mono.defer(() -> {
+            AuthToken token = currentToken.get();
+            Instant now = clock.instant();
+
+            if(token == null || !now.isBefore(token.expiresAt())){
+                return sharedFetch.map(AuthToken::value);
+            }
+            if(!now.isBefore(token.refreshAt())){
+                refreshInBackground();
+            }
+            return Mono.just(token.value());
+        });
+    }
+
+    public Mono<String> refreshToken(String rejectedToken){
+
+        return Mono.defer(() -> {
+            AuthToken token = currentToken.get();
+            if(token != null && !token.value().equals(rejectedToken)){
+                return Mono.just(token.value());
+            }
+            if(token != null){
+                currentToken.compareAndSet(token, null);
+            }
+            return sharedFetch.map(AuthToken::value);
+        });
+    }
+
+    private void refreshInBackground(){
+
+        sharedFetch.subscribe(
+                authToken -> {},
+                e -> log.warn("sentiment analysis token refresh failed", e));
+    }
+
+    private void store(AuthToken authToken){
+
+        currentToken.set(authToken);
+        // 유효시간이 아주 짧은 토큰이 재발급을 연달아 일으키지 않도록 최소 error-backoff 만큼은 기다림
+        Duration delay = Duration.between(clock.instant(), authToken.refreshAt());
+        Disposable previous = scheduledRefresh.getAndSet(Mono.delay(delay.compareTo(errorBackoff) < 0 ? errorBackoff : delay)
+                .subscribe(tick -> refreshInBackground()));
+        if(previous != null){
+            previous.dispose();
+        }
+    }
+
+    private Mono<AuthToken> fetchToken(){
+
+        return webClient.get()
+                .uri(TOKEN_URI)
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(this::toAuthToken);
+    }
+
+    private AuthToken toAuthToken(String token){
+
+        Instant issuedAt = clock.instant();
+        Instant expiresAt = expirationOf(token, issuedAt);
+        long lifetimeMillis = Math.max(Duration.between(issuedAt, expiresAt).toMillis(), 0);
+        return new AuthToken(token, issuedAt.plusMillis((long) (lifetimeMillis * refreshFraction)), expiresAt);
+    }
+
+    private Instant expirationOf(String token, Instant issuedAt){
+
+        try {
+            String payload = token.split("\\.")[1];
+            JsonNode claims = objectMapper.readTree(
+                    new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8));
+            if(claims.has(EXPIRATION)){
+                return Instant.ofEpochSecond(claims.get(EXPIRATION).asLong());
+            }
+        } catch (Exception e){
+            // exp 를 읽을 수 없는 토큰은 기본 유효시간을 사용한다.
+        }
+        return issuedAt.plus(defaultTokenLifetime);
+    }
+
+    private record AuthToken(String value, Instant refreshAt, Instant expiresAt) {
+    }
+}
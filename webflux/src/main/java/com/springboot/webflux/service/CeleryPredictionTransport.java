@@ -0,0 +1,281 @@
+package com.springboot.webflux.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_BROKER_FAILED;
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_TASK_FAILED;
+
+// flask 를 거치지 않고 celery 프로토콜(v2) 메시지를 redis broker 에 바로 넣고 result backend 에서 결과를 수거
+// 한 번의 tick 에서 쌓인 메시지는 LPUSH 한 번, 대기 중인 결과는 MGET 한 번으로 처리
+@Slf4j
+@Service
+public class CeleryPredictionTransport {
+
+    public final static String PREDICT_TASK = "api.service.tasks.sentiment_predict";
+    public final static String PREDICT_BATCH_TASK = "api.service.tasks.sentiment_predict_batch";
+    public final static String PREDICT_SEQUENCES_TASK = "api.service.tasks.sentiment_predict_sequences";
+
+    private final static String RESULT_KEY_PREFIX = "celery-task-meta-";
+    private final static String SUCCESS = "SUCCESS";
+    private final static String FAILURE = "FAILURE";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final String queue;
+    private final Duration pollInterval;
+    private final Duration resultTimeout;
+    private final int maxBatchSize;
+    private final String origin;
+
+    private final Queue<Outbound> outbound = new ConcurrentLinkedQueue<>();
+    private final Map<String, Sinks.One<JsonNode>> pending = new ConcurrentHashMap<>();
+
+    private final Counter published;
+    private final Counter failed;
+    private final Counter timedOut;
+
+    private Disposable subscription;
+
+    public CeleryPredictionTransport(ReactiveStringRedisTemplate redisTemplate,
+                                     ObjectMapper objectMapper,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${prediction.celery.enabled:false}") boolean enabled,
+                                     @Value("${prediction.celery.queue:celery}") String queue,
+                                     @Value("${prediction.celery.poll-interval-millis:10}") long pollIntervalMillis,
+                                     @Value("${prediction.celery.result-timeout-millis:10000}") long resultTimeoutMillis,
+                                     @Value("${prediction.celery.max-batch-size:256}") int maxBatchSize) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.queue = queue;
+        this.pollInterval = Duration.ofMillis(pollIntervalMillis);
+        this.resultTimeout = Duration.ofMillis(resultTimeoutMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.origin = "webflux-" + UUID.randomUUID();
+        this.published = meterRegistry.counter("sentiment.prediction.celery.published");
+        this.failed = meterRegistry.counter("sentiment.prediction.celery.failed");
+        this.timedOut = meterRegistry.counter("sentiment.prediction.celery.timeouts");
+        meterRegistry.gaugeMapSize("sentiment.prediction.celery.pending", List.of(), pending);
+        meterRegistry.gaugeCollectionSize("sentiment.prediction.celery.outbound", List.of(), outbound);
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start(){
+
+        if(!enabled){
+            return;
+        }
+        subscription = Flux.interval(pollInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> exchange()
+                        .doOnError(e -> log.warn("celery broker exchange failed", e))
+                        .onErrorResume(e -> Mono.empty()), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop(){
+
+        if(subscription != null){
+            subscription.dispose();
+        }
+    }
+
+    public Mono<JsonNode> submit(String task, Object... args){
+
+        return Mono.defer(() -> {
+            String taskId = UUID.randomUUID().toString();
+            Sinks.One<JsonNode> sink = Sinks.one();
+            pending.put(taskId, sink);
+            outbound.add(new Outbound(taskId, toMessage(taskId, task, args)));
+
+            return sink.asMono()
+                    .timeout(resultTimeout)
+                    .doOnError(TimeoutException.class, e -> timedOut.increment())
+                    .doFinally(signal -> pending.remove(taskId));
+        });
+    }
+
+    // 쌓인 메시지 발행 후 대기 중인 결과 수거
+    Mono<Void> exchange(){
+
+        return publish().then(collect());
+    }
+
+    private Mono<Void> publish(){
+
+        List<Outbound> batch = new ArrayList<>();
+        Outbound next;
+        while(batch.size() < maxBatchSize && (next = outbound.poll()) != null){
+            batch.add(next);
+        }
+        if(batch.isEmpty()){
+            return Mono.empty();
+        }
+
+        List<String> messages = new ArrayList<>(batch.size());
+        for(Outbound item : batch){
+            messages.add(item.message());
+        }
+
+        // 발행하지 못한 작업은 result-timeout 까지 기다리게 두지 않고 바로 실패시킴
+        return redisTemplate.opsForList().leftPushAll(queue, messages)
+                .doOnSuccess(length -> published.increment(messages.size()))
+                .doOnError(e -> {
+                    for(Outbound item : batch){
+                        fail(item.taskId(), new RuntimeException(PREDICTION_BROKER_FAILED.getMessage(), e));
+                    }
+                })
+                .then();
+    }
+
+    private Mono<Void> collect(){
+
+        if(pending.isEmpty()){
+            return Mono.empty();
+        }
+
+        List<String> taskIds = new ArrayList<>(pending.keySet());
+        List<String> keys = new ArrayList<>(taskIds.size());
+        for(String taskId : taskIds){
+            keys.add(RESULT_KEY_PREFIX + taskId);
+        }
+
+        return redisTemplate.opsForValue().multiGet(keys)
+                .flatMap(values -> {
+                    List<String> doneKeys = new ArrayList<>();
+                    for(int i = 0; i < taskIds.size(); i++){
+                        String value = values.get(i);
+                        if(value != null && complete(taskIds.get(i), value)){
+                            doneKeys.add(keys.get(i));
+                        }
+                    }
+                    return doneKeys.isEmpty()
+                            ? Mono.<Void>empty()
+                            : redisTemplate.delete(Flux.fromIterable(doneKeys)).then();
+                });
+    }
+
+    // 아직 끝나지 않은 상태(STARTED, RETRY 등)는 다음 tick 에서 다시 조회
+    private boolean complete(String taskId, String value){
+
+        JsonNode meta;
+        try {
+            meta = objectMapper.readTree(value);
+        } catch (JsonProcessingException e){
+            return fail(taskId, new RuntimeException(PREDICTION_TASK_FAILED.getMessage() + ": unreadable result"));
+        }
+
+        String status = meta.path("status").asText();
+        if(SUCCESS.equals(status)){
+            Sinks.One<JsonNode> sink = pending.remove(taskId);
+            if(sink != null){
+                sink.tryEmitValue(meta.get("result"));
+            }
+            return true;
+        }
+        if(FAILURE.equals(status)){
+            return fail(taskId, new RuntimeException(PREDICTION_TASK_FAILED.getMessage() + ": "
+                    + meta.path("result").path("exc_message")));
+        }
+        return false;
+    }
+
+    private boolean fail(String taskId, Throwable error){
+
+        failed.increment();
+        Sinks.One<JsonNode> sink = pending.remove(taskId);
+        if(sink != null){
+            sink.tryEmitError(error);
+        }
+        return true;
+    }
+
+    private String toMessage(String taskId, String task, Object[] args){
+
+        ArrayNode body = objectMapper.createArrayNode();
+        body.add(objectMapper.valueToTree(args));
+        body.addObject();
+        ObjectNode embed = body.addObject();
+        embed.putNull("callbacks");
+        embed.putNull("errbacks");
+        embed.putNull("chain");
+        embed.putNull("chord");
+
+        ObjectNode headers = objectMapper.createObjectNode();
+        headers.put("lang", "py");
+        headers.put("task", task);
+        headers.put("id", taskId);
+        headers.putNull("shadow");
+        headers.putNull("eta");
+        // 결과를 기다리지 않게 된 작업은 worker 가 버리도록 만료 시각 지정
+        headers.put("expires", OffsetDateTime.now(ZoneOffset.UTC).plus(resultTimeout).toString());
+        headers.putNull("group");
+        headers.putNull("group_index");
+        headers.put("retries", 0);
+        headers.putArray("timelimit").addNull().addNull();
+        headers.put("root_id", taskId);
+        headers.putNull("parent_id");
+        headers.put("argsrepr", "(...)");
+        headers.put("kwargsrepr", "{}");
+        headers.put("origin", origin);
+        headers.put("ignore_result", false);
+
+        ObjectNode properties = objectMapper.createObjectNode();
+        properties.put("correlation_id", taskId);
+        properties.put("reply_to", origin);
+        properties.put("delivery_mode", 2);
+        properties.putObject("delivery_info")
+                .put("exchange", "")
+                .put("routing_key", queue);
+        properties.put("priority", 0);
+        properties.put("body_encoding", "base64");
+        properties.put("delivery_tag", UUID.randomUUID().toString());
+
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("body", Base64.getEncoder().encodeToString(body.toString().getBytes(StandardCharsets.UTF_8)));
+        message.put("content-encoding", "utf-8");
+        message.put("content-type", "application/json");
+        message.set("headers", headers);
+        message.set("properties", properties);
+        return message.toString();
+    }
+
+    private record Outbound(String taskId, String message) {
+    }
+}
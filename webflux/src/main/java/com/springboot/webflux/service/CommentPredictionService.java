@@ -1,168 +1,239 @@
 package com.springboot.webflux.service;
 
-import com.springboot.webflux.dto.PredictionRequest;
+import com.springboot.webflux.constants.PredictionJobStatus;
+import com.springboot.webflux.constants.PredictionJobType;
+import com.springboot.webflux.dto.PredictionResult;
+import com.springboot.webflux.dto.PredictionSubject;
 import com.springboot.webflux.entity.Comment;
+import com.springboot.webflux.entity.PredictionJob;
+import com.springboot.webflux.exception.PredictionUnavailableException;
 import com.springboot.webflux.repository.CommentRepository;
+import com.springboot.webflux.repository.PredictionJobRepository;
 import com.springboot.webflux.repository.MemberRepository;
-import com.springboot.webflux.security.SentimentAnalysisAuthToken;
 import lombok.RequiredArgsConstructor;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
 
-import static com.springboot.webflux.constants.ExceptionStatus.JSON_PARSE_FAILED;
+import java.time.LocalDateTime;
+
+import static com.springboot.webflux.constants.PredictState.*;
+import static com.springboot.webflux.constants.PredictionJobType.EDIT;
+import static com.springboot.webflux.constants.PredictionJobType.REGISTER;
+import static com.springboot.webflux.constants.PredictionTarget.COMMENT;
 
 @Service
 @RequiredArgsConstructor
 public class CommentPredictionService {
 
-    @Autowired
-    private final WebClient webClient;
+    private final static String INLINE_OWNER = "inline";
+
+    private final SentimentEngine sentimentEngine;
+    private final PredictionPipeline predictionPipeline;
+    private final PredictionEventHub predictionEventHub;
+    private final PredictionAdmissionController predictionAdmissionController;
+    private final MemberSentimentAggregator memberSentimentAggregator;
+    private final SentimentLedger sentimentLedger;
 
     private final MemberRepository memberRepository;
     private final CommentRepository commentRepository;
+    private final PredictionJobRepository predictionJobRepository;
+    private final TransactionalOperator transactionalOperator;
 
-    private final JSONParser parser = new JSONParser();
+    private Mono<PredictionResult> callSentimentAnalysisApi(String contents) {
 
-    private final static String PREDICTION_URI = "/api/analysis";
-    private final static String TOKEN_URI = "/auth/token";
-    private final static String POSITIVE = "positive";
-    private final static String PERCENTAGE = "percentage";
-    private final static String PREDICT = "predict";
-
-    private Mono<String> sentimentAnalysis(String contents){
+        return sentimentEngine.analyze(contents);
+    }
 
-        PredictionRequest predictionRequest = PredictionRequest.builder()
-                .contents(contents)
-                .build();
+    // 회원 집계는 원장(sentiment_event)에 남긴 +1 / -1 만큼만 반영
+    // 실제로 덮어쓴 행에 결과가 있었으면(수정) 그 결과를 빼고 새 결과를 더함 (활동 수는 그대로)
+    private Mono<Comment> applySentimentCounts(Comment analyzedComment, String previousResult){
 
-        return webClient.post()
-                .uri(PREDICTION_URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .contentType(MediaType.APPLICATION_JSON)
-                .header(HttpHeaders.AUTHORIZATION, SentimentAnalysisAuthToken.token)
-                .bodyValue(predictionRequest)
-                .retrieve()
-                .bodyToMono(String.class);
+        return sentimentLedger.recordPrediction(analyzedComment.getMemberId(), COMMENT, analyzedComment.getCommentId(),
+                        previousResult, analyzedComment.getPredictResult())
+                .thenReturn(analyzedComment);
     }
 
-    private Mono<String> getSentimentAnalysisToken(){
-        return webClient.get()
-                .uri(TOKEN_URI)
-                .retrieve()
-                .bodyToMono(String.class)
-                .doOnNext(token -> SentimentAnalysisAuthToken.token = token);
+    // 집계가 커밋 후에 반영되므로 트랜잭션이 끝난 뒤에 발행
+    private Mono<Comment> publishMember(Comment analyzedComment){
+
+        Long memberId = analyzedComment.getMemberId();
+        if(!predictionEventHub.hasMemberSubscribers(memberId)){
+            return Mono.just(analyzedComment);
+        }
+        return memberRepository.findById(memberId)
+                .map(memberSentimentAggregator::withPending)
+                .doOnNext(predictionEventHub::publishMember)
+                .thenReturn(analyzedComment);
     }
 
-    private Mono<String> callSentimentAnalysisApi(String contents) {
+    public Mono<Comment> saveAndPredictForRegister(Comment comment){
 
-        if(SentimentAnalysisAuthToken.token == null){
-            return getSentimentAnalysisToken()
-                    .flatMap(token -> sentimentAnalysis(contents));
+        if(predictionPipeline.isAsyncEnabled()){
+            return saveWithPredictionJob(comment, REGISTER);
         }
-        return sentimentAnalysis(contents);
+        return predictionAdmissionController.admit()
+                .flatMap(admitted -> admitted
+                        ? saveAndPredictInline(comment, REGISTER)
+                        : saveWithPredictionJob(comment, REGISTER))
+                .contextWrite(PredictionConcurrencyLimiter.withLane(REGISTER.getLane()));
     }
 
-    private Mono<Comment> updatePositiveRate(Comment updatedComment){
-        return memberRepository.findById(updatedComment.getMemberId())
-                .flatMap(member -> {
-                    Long count = member.getActivityCount() + 1;
+    public Mono<Comment> saveAndPredictForEdit(Comment comment){
 
-                    Float positiveRate = member.getPositiveRate();
-                    String predictResult = updatedComment.getPredictResult();
-                    Float newRate = calculateNewPositiveRateForRegister(positiveRate, predictResult, count);
+        if(predictionPipeline.isAsyncEnabled()){
+            return saveWithPredictionJob(comment, EDIT);
+        }
+        return predictionAdmissionController.admit()
+                .flatMap(admitted -> admitted
+                        ? saveAndPredictInline(comment, EDIT)
+                        : saveWithPredictionJob(comment, EDIT))
+                .contextWrite(PredictionConcurrencyLimiter.withLane(EDIT.getLane()));
+    }
 
-                    member.setPositiveRate(newRate);
-                    member.setActivityCount(count);
-                    return memberRepository.save(member).then(Mono.just(updatedComment));
-                });
+    public Mono<Void> processPredictionJob(PredictionJob job){
 
+        return commentRepository.findById(job.getTargetId())
+                .flatMap(comment -> analyzeAndSaveResult(comment, job.getJobId()))
+                .doOnSuccess(result -> predictionPipeline.complete(COMMENT, job.getTargetId()))
+                .then()
+                .contextWrite(PredictionConcurrencyLimiter.withLane(job.getJobType().getLane()));
     }
 
-    private Mono<Comment> getBackPositiveRate(Comment editedComment){
+    private Mono<Comment> saveWithPredictionJob(Comment comment, PredictionJobType jobType){
+
+        comment.setPredictState(PENDING);
 
-        return memberRepository.findById(editedComment.getMemberId())
-                .flatMap(member -> {
-                    Long count = member.getActivityCount() - 1;
+        return transactionalOperator.transactional(commentRepository.save(comment)
+                        .flatMap(savedComment -> predictionJobRepository
+                                .save(PredictionJob.of(COMMENT, savedComment.getCommentId(), jobType))
+                                .thenReturn(savedComment)))
+                .doOnNext(savedComment -> predictionPipeline.wakeUp());
+    }
 
-                    Float positiveRate = member.getPositiveRate();
-                    String predictResult = editedComment.getPredictResult();
-                    Float newRate = calculateNewPositiveRateForEdit(positiveRate, predictResult, count);
+    // 댓글과 분석 job 을 한 트랜잭션에서 저장하고 바로 분석, 결과를 저장하는 트랜잭션에서 job 을 완료 처리
+    // 분석 서버를 쓸 수 없거나 분석이 실패하면 job 을 drainer 에 넘기고, 중간에 끊긴 job 도 claim-timeout 이 지나면 drainer 가 처리
+    private Mono<Comment> saveAndPredictInline(Comment comment, PredictionJobType jobType){
 
-                    member.setPositiveRate(newRate);
-                    member.setActivityCount(count);
-                    return memberRepository.save(member).then(Mono.just(editedComment));
-                });
+        comment.setPredictState(PENDING);
 
+        return transactionalOperator.transactional(commentRepository.save(comment)
+                        .flatMap(savedComment -> predictionJobRepository
+                                .save(PredictionJob.claimed(COMMENT, savedComment.getCommentId(), jobType, INLINE_OWNER))
+                                .map(job -> Tuples.of(savedComment, job.getJobId()))))
+                .flatMap(saved -> analyzeAndSaveResult(saved.getT1(), saved.getT2())
+                        .onErrorResume(e -> handOverToDrainer(saved.getT1(), saved.getT2(), e)));
     }
 
-    public Mono<Comment> callSentimentAnalysisApiAndSaveResultForRegister(Comment savedComment){
+    private Mono<Comment> handOverToDrainer(Comment savedComment, Long jobId, Throwable e){
 
-        return Mono.just(savedComment)
-                .zipWhen(comment -> callSentimentAnalysisApi(comment.getContents()))
-                .flatMap(tuple -> {
-                    Comment comment = tuple.getT1();
-                    String result = tuple.getT2();
+        if(!(e instanceof PredictionUnavailableException)){
+            return predictionJobRepository.release(jobId, PredictionJobStatus.PENDING.name(), LocalDateTime.now())
+                    .then(Mono.error(e));
+        }
+        return predictionJobRepository.requeue(jobId, LocalDateTime.now())
+                .thenReturn(savedComment)
+                .doOnNext(pendingComment -> predictionPipeline.wakeUp());
+    }
 
-                    return parseSentimentAnalysisResultJson(comment, result);
-                })
-                .flatMap(this::updatePositiveRate);
+    private Mono<Void> markJobDone(Long jobId){
+
+        return predictionJobRepository.markDone(jobId, LocalDateTime.now()).then();
     }
 
-    public Mono<Comment> callSentimentAnalysisApiAndSaveResultForEdit(Comment savedComment){
+    // 집계에 들어가 있던 결과는 삭제와 같은 트랜잭션에서 원장에 -1 로 남겨 집계에서 뺌
+    public Mono<Void> delete(Comment comment){
+
+        Mono<Void> retract = comment.getPredictResult() == null
+                ? Mono.empty()
+                : sentimentLedger.recordDelete(comment.getMemberId(), COMMENT, comment.getCommentId(), comment.getPredictResult());
+
+        return transactionalOperator.transactional(commentRepository.delete(comment).then(retract))
+                .then(Mono.defer(() -> publishMember(comment)).then());
+    }
 
-        return Mono.just(savedComment)
-                .flatMap(this::getBackPositiveRate)
-                .zipWhen(post -> callSentimentAnalysisApi(post.getContents()))
-                .flatMap(tuple -> {
-                    Comment comment = tuple.getT1();
-                    String result = tuple.getT2();
+    public Mono<Void> markPredictionFailed(Long commentId){
 
-                    return parseSentimentAnalysisResultJson(comment, result);
+        return commentRepository.findById(commentId)
+                .flatMap(comment -> {
+                    comment.setPredictState(FAILED);
+                    return commentRepository.save(comment);
                 })
-                .flatMap(this::updatePositiveRate);
-    }
-
-    private float calculateNewPositiveRateForRegister(Float positiveRate, String predictResult, Long count){
-        if(positiveRate == null){
-            if(POSITIVE.equals(predictResult)){
-                return 1f;
-            }
-            return 0f;
-        } else {
-            if(POSITIVE.equals(predictResult)){
-                return (positiveRate * (count - 1) + 1) / count;
-            }
-        }
-        return (positiveRate * (count - 1)) / count;
+                .doOnSuccess(result -> predictionPipeline.complete(COMMENT, commentId))
+                .then();
     }
 
-    private Float calculateNewPositiveRateForEdit(Float positiveRate, String predictResult, Long count){
-        if(POSITIVE.equals(predictResult)){
-            return (positiveRate * (count + 1) - 1) / count;
+    // 콜백 모드에서 어느 인스턴스가 콜백을 받더라도 결과를 저장할 수 있도록 대상, job, 멱등 키를 요청에 실어 보냄
+    private Mono<Comment> analyzeAndSaveResult(Comment savedComment, Long jobId){
+
+        String predictionKey = PredictionIdempotencyKey.of(COMMENT, savedComment.getCommentId(), savedComment.getContents());
+        if(predictionKey.equals(savedComment.getPredictionKey())){
+            return completeAlreadyApplied(savedComment, jobId);
         }
-        return (positiveRate * (count + 1)) / count;
+
+        return callSentimentAnalysisApi(savedComment.getContents())
+                .contextWrite(PredictionCallbackRegistry.withSubject(
+                        new PredictionSubject(COMMENT, savedComment.getCommentId(), jobId, predictionKey)))
+                .flatMap(result -> saveResult(savedComment.getCommentId(), result, predictionKey, jobId));
     }
 
-    private Mono<Comment> parseSentimentAnalysisResultJson(Comment comment, String result){
+    // 기다리던 인스턴스가 없는 콜백의 결과를 저장, 그 사이 내용이 바뀌었으면 새 내용의 분석이 따로 있으므로 버림
+    public Mono<Void> applyCallbackResult(PredictionSubject subject, PredictionResult result){
 
-        try {
-            JSONObject resultJsonObj = (JSONObject) parser.parse(result);
+        return commentRepository.findById(subject.getTargetId())
+                .filter(comment -> subject.getPredictionKey().equals(
+                        PredictionIdempotencyKey.of(COMMENT, comment.getCommentId(), comment.getContents())))
+                .flatMap(comment -> saveResult(comment.getCommentId(), result, subject.getPredictionKey(), subject.getJobId()))
+                .doOnNext(savedComment -> predictionPipeline.complete(COMMENT, savedComment.getCommentId()))
+                .then();
+    }
 
-            Float percentage = Float.valueOf(String.valueOf(resultJsonObj.get(PERCENTAGE)));
-            String predict = String.valueOf(resultJsonObj.get(PREDICT));
+    // 분석하는 동안 다른 수정이나 같은 분석의 결과가 먼저 반영됐을 수 있으므로 트랜잭션 안에서 다시 읽은 행을 기준으로 저장
+    private Mono<Comment> saveResult(Long commentId, PredictionResult result, String predictionKey, Long jobId){
+
+        return transactionalOperator.transactional(
+                        commentRepository.findById(commentId)
+                                .flatMap(current -> {
+                                    String previousResult = current.getPredictResult();
+                                    return saveSentimentAnalysisResult(current, result, predictionKey)
+                                            .flatMap(applied -> markJobDone(jobId).thenReturn(applied))
+                                            .filter(applied -> applied)
+                                            .flatMap(applied -> applySentimentCounts(current, previousResult));
+                                }))
+                .flatMap(this::publishMember)
+                .switchIfEmpty(Mono.defer(() -> commentRepository.findById(commentId)));
+    }
 
-            comment.setPredictResult(predict);
-            comment.setPredictPercent(percentage);
+    // 같은 내용의 분석이 이미 반영된 경우(재시도, outbox 재처리, 내용이 같은 수정) 통계는 건드리지 않고 상태만 정리
+    private Mono<Comment> completeAlreadyApplied(Comment comment, Long jobId){
 
-            return commentRepository.save(comment);
-        } catch (Exception e){
-            return Mono.error(new RuntimeException(JSON_PARSE_FAILED.getMessage()));
+        if(comment.getPredictState() == COMPLETED){
+            return markJobDone(jobId).thenReturn(comment);
         }
+        comment.setPredictState(COMPLETED);
+        return transactionalOperator.transactional(commentRepository.save(comment)
+                        .flatMap(savedComment -> markJobDone(jobId).thenReturn(savedComment)));
+    }
+
+    // 읽은 뒤로 prediction_key 가 바뀌지 않았을 때만(compare-and-set) 결과를 기록하고, 기록한 쪽만 회원 통계에 반영하도록 true 를 돌려줌
+    // 그 사이 내용이 바뀌었으면 새 내용의 분석이 따로 있으므로 기록하지 않음
+    private Mono<Boolean> saveSentimentAnalysisResult(Comment comment, PredictionResult result, String predictionKey){
+
+        if(!predictionKey.equals(PredictionIdempotencyKey.of(COMMENT, comment.getCommentId(), comment.getContents()))){
+            return Mono.just(false);
+        }
+        return commentRepository.savePredictionResult(comment.getCommentId(), result.predict(), result.percentage(),
+                        predictionKey, comment.getPredictionKey())
+                .map(updated -> {
+                    if(updated == 0){
+                        return false;
+                    }
+                    comment.setPredictResult(result.predict());
+                    comment.setPredictPercent(result.percentage());
+                    comment.setPredictState(COMPLETED);
+                    comment.setPredictionKey(predictionKey);
+                    return true;
+                });
     }
 }
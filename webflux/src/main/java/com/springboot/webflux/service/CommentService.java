@@ -7,13 +7,17 @@ import com.springboot.webflux.repository.CommentRepository;
 import com.springboot.webflux.repository.MemberRepository;
 import com.springboot.webflux.repository.PostRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 import static com.springboot.webflux.constants.ExceptionStatus.*;
+import static com.springboot.webflux.constants.PredictState.PENDING;
+import static com.springboot.webflux.constants.PredictionTarget.COMMENT;
 
 @Service
 @RequiredArgsConstructor
@@ -23,6 +27,10 @@ public class CommentService {
     private final PostRepository postRepository;
     private final MemberRepository memberRepository;
     private final CommentPredictionService commentPredictionService;
+    private final PredictionPipeline predictionPipeline;
+
+    @Value("${prediction.async.await-timeout-seconds:30}")
+    private long awaitTimeoutSeconds;
 
     public Mono<Comment> write(CommentRegisterRequest commentRequest, String username){
 
@@ -31,8 +39,7 @@ public class CommentService {
                 .switchIfEmpty(Mono.error(new RuntimeException(INVALID_REQUEST.getMessage())))
                 .flatMap(member -> postRepository.findById(commentRequest.getPostId()))
                 .switchIfEmpty(Mono.error(new RuntimeException(POST_NOT_FOUND.getMessage())))
-                .flatMap(post -> commentRepository.save(commentRequest.toEntity()))
-                .flatMap(commentPredictionService::callSentimentAnalysisApiAndSaveResultForRegister);
+                .flatMap(post -> commentPredictionService.saveAndPredictForRegister(commentRequest.toEntity()));
     }
 
     public Mono<Comment> edit(CommentEditRequest commentRequest, String username){
@@ -46,9 +53,8 @@ public class CommentService {
 
                     comment.setContents(commentRequest.getContents());
                     comment.setEditedAt(LocalDateTime.now());
-                    return commentRepository.save(comment);
-                })
-                .flatMap(commentPredictionService::callSentimentAnalysisApiAndSaveResultForEdit);
+                    return commentPredictionService.saveAndPredictForEdit(comment);
+                });
     }
 
     public Mono<Void> delete(Long commentId, String username){
@@ -57,7 +63,7 @@ public class CommentService {
                 .zipWhen(comment -> memberRepository.findById(comment.getMemberId()))
                 .filter(tuple -> tuple.getT2().getUsername().equals(username))
                 .switchIfEmpty(Mono.error(new RuntimeException(INVALID_REQUEST.getMessage())))
-                .flatMap(tuple -> commentRepository.delete(tuple.getT1()));
+                .flatMap(tuple -> commentPredictionService.delete(tuple.getT1()));
     }
 
     public Mono<Comment> findById(Long commentId) {
@@ -66,6 +72,18 @@ public class CommentService {
                 .switchIfEmpty(Mono.error(new RuntimeException(COMMENT_NOT_FOUND.getMessage())));
     }
 
+    public Mono<Comment> awaitPrediction(Long commentId) {
+
+        Mono<Comment> current = findById(commentId);
+        Flux<Comment> completed = predictionPipeline.completions(COMMENT, commentId)
+                .concatMap(completion -> commentRepository.findById(commentId));
+
+        return Flux.merge(current, completed)
+                .filter(comment -> comment.getPredictState() != PENDING)
+                .next()
+                .timeout(Duration.ofSeconds(awaitTimeoutSeconds), Mono.defer(() -> findById(commentId)));
+    }
+
     public Flux<Comment> findByMemberId(Long memberId) {
          
         return memberRepository.findById(memberId)
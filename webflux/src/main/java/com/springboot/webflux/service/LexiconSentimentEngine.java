@@ -0,0 +1,113 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.dto.PredictionResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Flask 모델의 분석 결과로 학습하는 나이브 베이즈 어휘 점수기.
+// 단어 사전의 정수 인덱스를 그대로 배열 인덱스로 사용한다.
+@Component
+public class LexiconSentimentEngine implements SentimentEngine {
+
+    public final static String MODEL_VERSION = "lexicon";
+
+    private final static String POSITIVE = "positive";
+    private final static String NEGATIVE = "negative";
+
+    private final SentimentVocabulary sentimentVocabulary;
+    private final float confidenceThreshold;
+    private final long minEvidence;
+
+    private final AtomicIntegerArray positiveCounts;
+    private final AtomicIntegerArray negativeCounts;
+    private final AtomicLong positiveDocuments = new AtomicLong();
+    private final AtomicLong negativeDocuments = new AtomicLong();
+    private final AtomicLong positiveTokens = new AtomicLong();
+    private final AtomicLong negativeTokens = new AtomicLong();
+
+    public LexiconSentimentEngine(SentimentVocabulary sentimentVocabulary,
+                                  @Value("${prediction.local.confidence-threshold:0.95}") float confidenceThreshold,
+                                  @Value("${prediction.local.min-evidence:200}") long minEvidence) {
+        this.sentimentVocabulary = sentimentVocabulary;
+        this.confidenceThreshold = confidenceThreshold;
+        this.minEvidence = minEvidence;
+        this.positiveCounts = new AtomicIntegerArray(Math.max(sentimentVocabulary.size(), 1));
+        this.negativeCounts = new AtomicIntegerArray(Math.max(sentimentVocabulary.size(), 1));
+    }
+
+    @Override
+    public Mono<PredictionResult> analyze(String contents){
+
+        return Mono.fromSupplier(() -> score(sentimentVocabulary.encode(contents)))
+                .filter(this::isConfident)
+                .map(LexiconScore::toResult);
+    }
+
+    public boolean isConfident(LexiconScore score){
+        return score.evidence() >= minEvidence && score.confidence() >= confidenceThreshold;
+    }
+
+    public LexiconScore score(int[] tokenIds){
+
+        int[] distinct = distinct(tokenIds);
+        double vocabularySize = positiveCounts.length();
+        double positiveTotal = positiveTokens.get() + vocabularySize;
+        double negativeTotal = negativeTokens.get() + vocabularySize;
+
+        double logOdds = Math.log((positiveDocuments.get() + 1d) / (negativeDocuments.get() + 1d));
+        long evidence = 0;
+        for(int id : distinct){
+            int positive = positiveCounts.get(id);
+            int negative = negativeCounts.get(id);
+            logOdds += Math.log((positive + 1d) / positiveTotal) - Math.log((negative + 1d) / negativeTotal);
+            evidence += positive + negative;
+        }
+
+        double positiveProbability = 1d / (1d + Math.exp(-logOdds));
+        return positiveProbability >= 0.5
+                ? new LexiconScore(POSITIVE, (float) positiveProbability, evidence)
+                : new LexiconScore(NEGATIVE, (float) (1d - positiveProbability), evidence);
+    }
+
+    public void learn(int[] tokenIds, String predict){
+
+        int[] distinct = distinct(tokenIds);
+        boolean positive = POSITIVE.equals(predict);
+        AtomicIntegerArray counts = positive ? positiveCounts : negativeCounts;
+
+        for(int id : distinct){
+            counts.incrementAndGet(id);
+        }
+        (positive ? positiveDocuments : negativeDocuments).incrementAndGet();
+        (positive ? positiveTokens : negativeTokens).addAndGet(distinct.length);
+    }
+
+    private int[] distinct(int[] tokenIds){
+
+        int[] sorted = tokenIds.clone();
+        Arrays.sort(sorted);
+        int length = 0;
+        for(int i = 0; i < sorted.length; i++){
+            if(sorted[i] > 0 && sorted[i] < positiveCounts.length() && (length == 0 || sorted[length - 1] != sorted[i])){
+                sorted[length++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, length);
+    }
+
+    public record LexiconScore(String predict, float confidence, long evidence) {
+
+        public PredictionResult toResult(){
+            return PredictionResult.builder()
+                    .predict(predict)
+                    .percentage(Math.round(confidence * 10000) / 100f)
+                    .modelVersion(MODEL_VERSION)
+                    .build();
+        }
+    }
+}
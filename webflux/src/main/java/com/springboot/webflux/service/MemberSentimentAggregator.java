@@ -0,0 +1,360 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.entity.Member;
+import com.springboot.webflux.repository.MemberRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// 회원별 감정 집계(activity_count, positive_count) 증감을 메모리에 모았다가 주기적으로 한 번에 반영 (write-behind)
+// 자주 글을 쓰는 회원의 member 행을 분석마다 갱신하지 않고, flush 때 여러 회원을 multi-row UPDATE 한 문장으로 처리
+//
+// - 카운터는 LongAdder 라 같은 회원에 동시에 더해도 락 없이 cell 로 나뉘어 쌓이고, flush 는 sumThenReset 으로 가져감
+// - flush 는 flush-interval 마다, 또는 대기 중인 회원 수가 flush-threshold 를 넘으면 바로 실행
+// - flush 는 max-rows-per-statement 만큼씩 나눠 문장마다 커밋하고, 실패하면 아직 커밋되지 않은 묶음만 다시 메모리에 더해 재시도
+// - 조회(MemberResponse)는 DB 값에 아직 반영되지 않은 증감을 더해 보여줌 (flush 중인 증감은 잠깐 빠져 보일 수 있음)
+// - 감정 추이(SentimentTrendTracker) 증감도 회원별로 함께 모았다가 집계를 반영한 뒤 한 트랜잭션으로 반영
+//   분석 트랜잭션이 추이 행을 잠그지 않으므로 같은 회원의 분석끼리 줄 서지 않음
+//
+// 종료: @PreDestroy 에서 timer 를 멈추고 남은 증감을 shutdown-timeout 안에서 마지막으로 flush
+// 장애: 프로세스가 비정상 종료되면 마지막 flush 이후 증감(최대 flush-interval 만큼)은 사라짐
+//       원장(sentiment_event)은 분석 결과와 같은 트랜잭션에 저장되므로 SentimentAggregateRebuilder 로 다시 계산해 복구
+//       다시 계산한 회원은 member.sentiment_rebuilt_event_id 에 합산한 마지막 event_id 가 남으므로
+//       flush 는 마지막 event_id 가 그 이하인 묶음을 건너뛰어, 늦게 도착한 커밋 후 반영이나 다른 인스턴스의 증감이 두 번 더해지지 않음
+//       정확한 실시간 반영이 필요하면 prediction.aggregator.enabled=false 로 분석마다 바로 UPDATE
+//       (이때 추이는 커밋된 뒤 따로 반영하며, 실패하면 로그만 남김)
+@Slf4j
+@Service
+public class MemberSentimentAggregator {
+
+    private final MemberRepository memberRepository;
+    private final MemberSentimentLeaderboard memberSentimentLeaderboard;
+    private final Function<List<MemberDelta>, Mono<Void>> writer;
+    private final Function<Map<Long, List<SentimentTrendTracker.Change>>, Mono<Void>> trendWriter;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int flushThreshold;
+    private final int maxRowsPerStatement;
+    private final Duration shutdownTimeout;
+
+    private final Map<Long, Delta> deltas = new ConcurrentHashMap<>();
+    private final Sinks.Many<Boolean> flushRequests = Sinks.many().multicast().directBestEffort();
+
+    private final Counter flushedRows;
+    private final Counter failedFlushes;
+    private final Timer flushTimer;
+
+    private Disposable subscription;
+
+    @Autowired
+    public MemberSentimentAggregator(MemberRepository memberRepository,
+                                     MemberSentimentLeaderboard memberSentimentLeaderboard,
+                                     SentimentTrendTracker sentimentTrendTracker,
+                                     DatabaseClient databaseClient,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${prediction.aggregator.enabled:true}") boolean enabled,
+                                     @Value("${prediction.aggregator.flush-interval-millis:1000}") long flushIntervalMillis,
+                                     @Value("${prediction.aggregator.flush-threshold:1024}") int flushThreshold,
+                                     @Value("${prediction.aggregator.max-rows-per-statement:500}") int maxRowsPerStatement,
+                                     @Value("${prediction.aggregator.shutdown-timeout-seconds:10}") long shutdownTimeoutSeconds) {
+        this(memberRepository, memberSentimentLeaderboard, batchUpdate(databaseClient),
+                sentimentTrendTracker::apply, meterRegistry, enabled,
+                Duration.ofMillis(flushIntervalMillis), flushThreshold, maxRowsPerStatement,
+                Duration.ofSeconds(shutdownTimeoutSeconds));
+    }
+
+    MemberSentimentAggregator(MemberRepository memberRepository, MemberSentimentLeaderboard memberSentimentLeaderboard,
+                              Function<List<MemberDelta>, Mono<Void>> writer,
+                              Function<Map<Long, List<SentimentTrendTracker.Change>>, Mono<Void>> trendWriter,
+                              MeterRegistry meterRegistry, boolean enabled, Duration flushInterval,
+                              int flushThreshold, int maxRowsPerStatement, Duration shutdownTimeout) {
+        this.memberRepository = memberRepository;
+        this.memberSentimentLeaderboard = memberSentimentLeaderboard;
+        this.writer = writer;
+        this.trendWriter = trendWriter;
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        this.flushThreshold = flushThreshold;
+        this.maxRowsPerStatement = maxRowsPerStatement;
+        this.shutdownTimeout = shutdownTimeout;
+        this.flushedRows = meterRegistry.counter("sentiment.member.aggregator.flushed.rows");
+        this.failedFlushes = meterRegistry.counter("sentiment.member.aggregator.flush.failures");
+        this.flushTimer = meterRegistry.timer("sentiment.member.aggregator.flush");
+        meterRegistry.gaugeMapSize("sentiment.member.aggregator.pending", List.of(), deltas);
+    }
+
+    @PostConstruct
+    public void start(){
+
+        if(!enabled){
+            return;
+        }
+        subscription = Flux.merge(Flux.interval(flushInterval).map(tick -> true), flushRequests.asFlux())
+                .onBackpressureDrop()
+                .concatMap(request -> flush()
+                        .doOnError(e -> log.warn("member sentiment flush failed", e))
+                        .onErrorResume(e -> Mono.empty()), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop(){
+
+        if(subscription != null){
+            subscription.dispose();
+        }
+        if(enabled && !deltas.isEmpty()){
+            flush().block(shutdownTimeout);
+        }
+    }
+
+    // 트랜잭션 안에서 호출되면 커밋된 뒤에만 메모리와 순위에 더해 롤백된 분석 결과가 섞이지 않도록 함
+    public Mono<Void> apply(Long memberId, long totalDelta, long positiveDelta, long lastEventId,
+                            List<SentimentTrendTracker.Change> trendChanges){
+
+        Runnable committed = () -> {
+            if(enabled){
+                add(memberId, totalDelta, positiveDelta, lastEventId, trendChanges);
+            }
+            else if(!trendChanges.isEmpty()){
+                trendWriter.apply(Map.of(memberId, trendChanges)).subscribe(
+                        done -> {},
+                        e -> log.warn("member sentiment trend update failed", e));
+            }
+            memberSentimentLeaderboard.applyDelta(memberId, totalDelta, positiveDelta);
+        };
+        Mono<Void> write = enabled
+                ? Mono.empty()
+                : memberRepository.addSentimentCounts(memberId, totalDelta, positiveDelta, lastEventId).then();
+
+        return write.then(TransactionSynchronizationManager.forCurrentTransaction()
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .doOnNext(synchronization -> synchronization.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCommit() {
+                        return Mono.fromRunnable(committed);
+                    }
+                }))
+                .switchIfEmpty(Mono.fromRunnable(committed))
+                .onErrorResume(NoTransactionException.class, e -> Mono.fromRunnable(committed))
+                .then());
+    }
+
+    // 순위 index 는 DB 값에 아직 flush 되지 않은 증감을 더해 채우고 주기적으로 다시 읽어 맞춤
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLeaderboard(){
+
+        memberSentimentLeaderboard.start(this::withPending);
+    }
+
+    // DB 에서 읽은 회원에 아직 flush 되지 않은 증감을 더함
+    public Member withPending(Member member){
+        return withPending(member, 0);
+    }
+
+    // afterEventId 까지 다시 계산한 값에는 그 이후 증감만 더함
+    public Member withPending(Member member, long afterEventId){
+
+        Delta delta = deltas.get(member.getMemberId());
+        if(delta == null || delta.lastEventId.get() <= afterEventId){
+            return member;
+        }
+        member.setActivityCount(valueOf(member.getActivityCount()) + delta.total.sum());
+        member.setPositiveCount(valueOf(member.getPositiveCount()) + delta.positive.sum());
+        return member;
+    }
+
+    void add(Long memberId, long totalDelta, long positiveDelta, long lastEventId){
+        add(memberId, totalDelta, positiveDelta, lastEventId, List.of());
+    }
+
+    void add(Long memberId, long totalDelta, long positiveDelta, long lastEventId,
+             List<SentimentTrendTracker.Change> trendChanges){
+
+        while(true){
+            Delta delta = deltas.computeIfAbsent(memberId, id -> new Delta());
+            delta.total.add(totalDelta);
+            delta.positive.add(positiveDelta);
+            delta.lastEventId.accumulateAndGet(lastEventId, Math::max);
+            delta.trendChanges.addAll(trendChanges);
+            if(!delta.retired){
+                break;
+            }
+            // flush 가 방금 이 Delta 를 map 에서 뺐으면 아직 가져가지 않은 값만 새 Delta 로 옮김
+            totalDelta = delta.total.sumThenReset();
+            positiveDelta = delta.positive.sumThenReset();
+            trendChanges = delta.pollTrendChanges();
+            if(totalDelta == 0 && positiveDelta == 0 && trendChanges.isEmpty()){
+                break;
+            }
+        }
+
+        if(deltas.size() >= flushThreshold){
+            flushRequests.tryEmitNext(true);
+        }
+    }
+
+    Mono<Void> flush(){
+
+        return Mono.defer(() -> {
+            List<MemberDelta> drained = drain();
+            if(drained.isEmpty()){
+                return Mono.<Void>empty();
+            }
+
+            long start = System.nanoTime();
+            AtomicInteger committedRows = new AtomicInteger();
+            return Flux.fromIterable(drained)
+                    .buffer(maxRowsPerStatement)
+                    .concatMap(chunk -> writer.apply(chunk)
+                            .doOnSuccess(result -> committedRows.addAndGet(chunk.size())))
+                    .then()
+                    .doOnSuccess(result -> {
+                        flushedRows.increment(drained.size());
+                        flushTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                    })
+                    .doOnError(e -> {
+                        failedFlushes.increment();
+                        // 커밋된 묶음의 집계는 다시 더하지 않고, 아직 반영하지 않은 추이 증감만 되돌림
+                        for(int i = 0; i < drained.size(); i++){
+                            MemberDelta row = drained.get(i);
+                            if(i < committedRows.get()){
+                                add(row.memberId(), 0, 0, 0, row.trendChanges());
+                            }
+                            else{
+                                add(row.memberId(), row.totalDelta(), row.positiveDelta(), row.lastEventId(),
+                                        row.trendChanges());
+                            }
+                        }
+                    })
+                    .then(Mono.defer(() -> flushTrends(drained)));
+        });
+    }
+
+    // 집계는 이미 반영됐으므로 실패하면 추이 증감만 되돌림
+    private Mono<Void> flushTrends(List<MemberDelta> drained){
+
+        Map<Long, List<SentimentTrendTracker.Change>> changes = new TreeMap<>();
+        for(MemberDelta row : drained){
+            List<SentimentTrendTracker.Change> trendChanges = row.trendChanges();
+            if(!trendChanges.isEmpty()){
+                changes.put(row.memberId(), trendChanges);
+            }
+        }
+        if(changes.isEmpty()){
+            return Mono.empty();
+        }
+        return trendWriter.apply(changes)
+                .doOnError(e -> {
+                    failedFlushes.increment();
+                    changes.forEach((memberId, trendChanges) -> add(memberId, 0, 0, 0, trendChanges));
+                });
+    }
+
+    // 지난 flush 이후 변화가 없던 회원만 map 에서 빼서 map 이 계속 커지지 않도록 함
+    private List<MemberDelta> drain(){
+
+        List<MemberDelta> drained = new ArrayList<>();
+        for(Map.Entry<Long, Delta> entry : deltas.entrySet()){
+            Delta delta = entry.getValue();
+            long total = delta.total.sumThenReset();
+            long positive = delta.positive.sumThenReset();
+            List<SentimentTrendTracker.Change> trendChanges = delta.pollTrendChanges();
+
+            if(total == 0 && positive == 0 && trendChanges.isEmpty() && deltas.remove(entry.getKey(), delta)){
+                delta.retired = true;
+                total = delta.total.sumThenReset();
+                positive = delta.positive.sumThenReset();
+                trendChanges = delta.pollTrendChanges();
+            }
+            if(total != 0 || positive != 0 || !trendChanges.isEmpty()){
+                drained.add(new MemberDelta(entry.getKey(), total, positive, delta.lastEventId.get(), trendChanges));
+            }
+        }
+        return drained;
+    }
+
+    private static long valueOf(Long count){
+        return count == null ? 0 : count;
+    }
+
+    // member 와 증감 목록을 파생 테이블로 JOIN 해 여러 회원을 UPDATE 한 문장으로 반영
+    // 마지막 event_id 가 다시 계산한 지점(sentiment_rebuilt_event_id) 이하인 증감은 이미 합산됐으므로 건너뜀
+    private static Function<List<MemberDelta>, Mono<Void>> batchUpdate(DatabaseClient databaseClient){
+
+        return chunk -> {
+            StringBuilder sql = new StringBuilder("UPDATE member m JOIN (");
+            for(int i = 0; i < chunk.size(); i++){
+                sql.append(i == 0
+                        ? "SELECT ? AS member_id, ? AS total_delta, ? AS positive_delta, ? AS last_event_id"
+                        : " UNION ALL SELECT ?, ?, ?, ?");
+            }
+            sql.append(") d ON m.member_id = d.member_id AND d.last_event_id > m.sentiment_rebuilt_event_id " +
+                    "SET m.activity_count = GREATEST(m.activity_count + d.total_delta, 0), " +
+                    "m.positive_count = GREATEST(m.positive_count + d.positive_delta, 0), " +
+                    "m.sentiment_event_id = GREATEST(m.sentiment_event_id, d.last_event_id)");
+
+            DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+            int index = 0;
+            for(MemberDelta row : chunk){
+                spec = spec.bind(index++, row.memberId())
+                        .bind(index++, row.totalDelta())
+                        .bind(index++, row.positiveDelta())
+                        .bind(index++, row.lastEventId());
+            }
+            return spec.fetch().rowsUpdated().then();
+        };
+    }
+
+    record MemberDelta(Long memberId, long totalDelta, long positiveDelta, long lastEventId,
+                       List<SentimentTrendTracker.Change> trendChanges) {
+    }
+
+    private static final class Delta {
+
+        private final LongAdder total = new LongAdder();
+        private final LongAdder positive = new LongAdder();
+        private final AtomicLong lastEventId = new AtomicLong();
+        private final Queue<SentimentTrendTracker.Change> trendChanges = new ConcurrentLinkedQueue<>();
+        private volatile boolean retired;
+
+        private List<SentimentTrendTracker.Change> pollTrendChanges(){
+
+            List<SentimentTrendTracker.Change> polled = new ArrayList<>();
+            SentimentTrendTracker.Change change;
+            while((change = trendChanges.poll()) != null){
+                polled.add(change);
+            }
+            return polled;
+        }
+    }
+}
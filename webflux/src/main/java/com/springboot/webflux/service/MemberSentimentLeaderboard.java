@@ -0,0 +1,280 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.constants.SentimentRanking;
+import com.springboot.webflux.entity.Member;
+import com.springboot.webflux.repository.MemberRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+// 긍정 비율 상위/하위 회원 순위를 메모리에서 바로 응답
+// member 전체를 positive_count / activity_count 로 정렬하는 쿼리를 요청마다 돌리지 않도록
+// 집계가 바뀔 때마다 회원 index 와 순위별 후보 집합(size + buffer 명)만 고침
+//
+// - index: 회원별 현재 카운터 (DB 값 + 아직 flush 되지 않은 증감), 활동이 있는 회원만 들고 있음
+// - 후보 집합: 정렬된 집합이라 갱신은 O(log(size + buffer)), 후보 밖의 회원은 모두 후보의 마지막보다 순위가 낮음
+//   후보가 size 보다 적어지면 index 를 한 번 훑어 heap 으로 다시 채움
+// - 조회: 후보가 바뀔 때 만들어 둔 상위 size 명 목록을 잠금 없이 읽음
+// - 순위: 긍정 비율, 같으면 활동 수가 많은 순, 그래도 같으면 member_id 순 (비율은 곱셈으로 비교해 오차 없음)
+//
+// 시작할 때 MemberSentimentAggregator 가 member 를 keyset 으로 읽어 index 를 채우고 reconcile-interval 마다 다시 읽음
+// applyDelta 는 이 인스턴스에서 커밋된 증감만 받으므로 다른 인스턴스의 증감은 다음 reconcile 에서 반영됨
+// (인스턴스가 여럿이면 순위가 최대 reconcile-interval + flush-interval 만큼 늦을 수 있음)
+// 읽는 도중 flush 나 커밋이 겹친 회원은 값이 조금 어긋날 수 있고 다음 reconcile 에서 맞춰짐
+@Slf4j
+@Service
+public class MemberSentimentLeaderboard {
+
+    private final MemberRepository memberRepository;
+    private final boolean enabled;
+    private final int size;
+    private final int capacity;
+    private final long minActivityCount;
+    private final int pageSize;
+    private final Duration reconcileInterval;
+
+    private final Map<Long, Score> index = new HashMap<>();
+    private final Map<SentimentRanking, Board> boards = new EnumMap<>(SentimentRanking.class);
+    private final Counter refills;
+
+    // load 도중 applyDelta 로 바뀐 회원, 읽은 뒤에 활동이 생겼을 수 있으므로 load 가 지우지 않음
+    private Set<Long> changedDuringLoad;
+    private Disposable subscription;
+
+    public MemberSentimentLeaderboard(MemberRepository memberRepository,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${prediction.leaderboard.enabled:true}") boolean enabled,
+                                      @Value("${prediction.leaderboard.size:20}") int size,
+                                      @Value("${prediction.leaderboard.buffer:20}") int buffer,
+                                      @Value("${prediction.leaderboard.min-activity-count:5}") long minActivityCount,
+                                      @Value("${prediction.leaderboard.page-size:1000}") int pageSize,
+                                      @Value("${prediction.leaderboard.reconcile-interval-seconds:60}") long reconcileIntervalSeconds) {
+        this.memberRepository = memberRepository;
+        this.enabled = enabled;
+        this.size = size;
+        this.capacity = size + buffer;
+        this.minActivityCount = minActivityCount;
+        this.pageSize = pageSize;
+        this.reconcileInterval = Duration.ofSeconds(reconcileIntervalSeconds);
+        this.boards.put(SentimentRanking.POSITIVE, new Board(MOST_POSITIVE));
+        this.boards.put(SentimentRanking.NEGATIVE, new Board(MOST_NEGATIVE));
+        this.refills = meterRegistry.counter("sentiment.leaderboard.refills");
+        meterRegistry.gaugeMapSize("sentiment.leaderboard.members", List.of(), index);
+    }
+
+    // 바로 한 번 load 하고 reconcile-interval 마다 다시 load
+    public void start(Function<Member, Member> withPending){
+
+        if(!enabled){
+            return;
+        }
+        subscription = Flux.interval(Duration.ZERO, reconcileInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> load(withPending)
+                        .doOnNext(count -> log.debug("loaded {} members into sentiment leaderboard", count))
+                        .doOnError(e -> log.warn("sentiment leaderboard load failed", e))
+                        .onErrorResume(e -> Mono.empty()), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop(){
+
+        if(subscription != null){
+            subscription.dispose();
+        }
+    }
+
+    // 활동이 있는 회원을 member_id 순서로 page-size 만큼씩 읽어 index 를 덮어쓰고, 읽히지 않은 회원은 index 에서 뺌
+    // withPending: 읽은 값에 아직 flush 되지 않은 증감을 더함
+    public Mono<Long> load(Function<Member, Member> withPending){
+
+        if(!enabled){
+            return Mono.just(0L);
+        }
+
+        return Mono.defer(() -> {
+            Set<Long> loaded = new HashSet<>();
+            synchronized(this){
+                changedDuringLoad = new HashSet<>();
+            }
+
+            return memberRepository.findWithActivityAfter(0L, pageSize)
+                    .collectList()
+                    .expand(page -> page.size() < pageSize
+                            ? Mono.empty()
+                            : memberRepository.findWithActivityAfter(page.get(page.size() - 1).getMemberId(), pageSize)
+                                    .collectList())
+                    .concatMapIterable(page -> page)
+                    .map(withPending)
+                    .doOnNext(member -> {
+                        loaded.add(member.getMemberId());
+                        put(member.getMemberId(), member.getActivityCount(), member.getPositiveCount());
+                    })
+                    .count()
+                    .doOnNext(count -> removeUnloaded(loaded))
+                    .doFinally(signal -> {
+                        synchronized(this){
+                            changedDuringLoad = null;
+                        }
+                    });
+        });
+    }
+
+    // 다른 인스턴스에서 활동이 0 이 된 회원
+    private synchronized void removeUnloaded(Set<Long> loaded){
+
+        List<Long> removed = index.keySet().stream()
+                .filter(memberId -> !loaded.contains(memberId) && !changedDuringLoad.contains(memberId))
+                .toList();
+        for(Long memberId : removed){
+            update(memberId, 0, 0);
+        }
+    }
+
+    // 커밋된 증감을 더함 (index 에 없으면 카운터가 0 이던 회원)
+    public void applyDelta(Long memberId, long totalDelta, long positiveDelta){
+
+        if(!enabled){
+            return;
+        }
+        synchronized(this){
+            Score current = index.get(memberId);
+            long activityCount = (current == null ? 0 : current.activityCount()) + totalDelta;
+            long positiveCount = (current == null ? 0 : current.positiveCount()) + positiveDelta;
+            update(memberId, activityCount, positiveCount);
+            if(changedDuringLoad != null){
+                changedDuringLoad.add(memberId);
+            }
+        }
+    }
+
+    // 원장에서 다시 계산하거나 DB 에서 읽은 값으로 덮어씀
+    public void put(Long memberId, Long activityCount, Long positiveCount){
+
+        if(!enabled){
+            return;
+        }
+        synchronized(this){
+            update(memberId, activityCount == null ? 0 : activityCount, positiveCount == null ? 0 : positiveCount);
+        }
+    }
+
+    public List<Score> top(SentimentRanking ranking, int limit){
+
+        List<Score> ranked = boards.get(ranking).snapshot;
+        return ranked.subList(0, Math.max(0, Math.min(limit, ranked.size())));
+    }
+
+    public int getSize(){
+        return size;
+    }
+
+    private void update(Long memberId, long activityCount, long positiveCount){
+
+        activityCount = Math.max(activityCount, 0);
+        positiveCount = Math.min(Math.max(positiveCount, 0), activityCount);
+        Score score = activityCount == 0 ? null : new Score(memberId, activityCount, positiveCount);
+        Score previous = score == null ? index.remove(memberId) : index.put(memberId, score);
+
+        for(Board board : boards.values()){
+            board.update(previous, score);
+        }
+    }
+
+    private boolean eligible(Score score){
+        return score != null && score.activityCount() >= minActivityCount;
+    }
+
+    // positive / activity 를 나누지 않고 교차 곱으로 비교
+    private final static Comparator<Score> BY_RATE = (a, b) ->
+            Long.compare(a.positiveCount() * b.activityCount(), b.positiveCount() * a.activityCount());
+    private final static Comparator<Score> TIE_BREAK = Comparator.comparingLong(Score::activityCount).reversed()
+            .thenComparing(Score::memberId);
+    private final static Comparator<Score> MOST_POSITIVE = BY_RATE.reversed().thenComparing(TIE_BREAK);
+    private final static Comparator<Score> MOST_NEGATIVE = BY_RATE.thenComparing(TIE_BREAK);
+
+    private final class Board {
+
+        private final Comparator<Score> order;
+        private final TreeSet<Score> candidates;
+        // 후보 집합에 순위 대상 회원이 모두 들어 있으면 true (후보 밖에 더 나은 회원이 있을 수 없음)
+        private boolean complete = true;
+        private volatile List<Score> snapshot = List.of();
+
+        private Board(Comparator<Score> order){
+            this.order = order;
+            this.candidates = new TreeSet<>(order);
+        }
+
+        private void update(Score previous, Score score){
+
+            Score last = candidates.isEmpty() ? null : candidates.last();
+            boolean changed = previous != null && candidates.remove(previous);
+
+            // 후보 밖의 회원은 모두 last 이하이므로 last 이상일 때만 후보에 넣을 수 있음
+            if(eligible(score) && (complete || (last != null && order.compare(score, last) <= 0))){
+                candidates.add(score);
+                changed = true;
+                if(candidates.size() > capacity){
+                    candidates.pollLast();
+                    complete = false;
+                }
+            }
+
+            if(candidates.size() < size && !complete){
+                refill();
+                changed = true;
+            }
+            if(changed){
+                snapshot = candidates.stream().limit(size).toList();
+            }
+        }
+
+        // index 를 훑어 순위가 가장 낮은 후보가 heap 의 맨 위에 오도록 capacity 명만 남김
+        private void refill(){
+
+            PriorityQueue<Score> heap = new PriorityQueue<>(capacity + 1, order.reversed());
+            int eligibleCount = 0;
+            for(Score score : index.values()){
+                if(!eligible(score)){
+                    continue;
+                }
+                eligibleCount++;
+                heap.offer(score);
+                if(heap.size() > capacity){
+                    heap.poll();
+                }
+            }
+            candidates.clear();
+            candidates.addAll(heap);
+            complete = eligibleCount <= capacity;
+            refills.increment();
+        }
+    }
+
+    public record Score(Long memberId, long activityCount, long positiveCount) {
+
+        public Float getPositiveRate(){
+            return activityCount == 0 ? null : (float) positiveCount / activityCount;
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package com.springboot.webflux.service;
 
+import com.springboot.webflux.constants.SentimentRanking;
 import com.springboot.webflux.dto.MemberEditRequest;
+import com.springboot.webflux.dto.MemberRankingResponse;
 import com.springboot.webflux.dto.MemberSignInRequest;
+import com.springboot.webflux.dto.MemberSentimentTrendResponse;
 import com.springboot.webflux.dto.MemberSignUpRequest;
 import com.springboot.webflux.entity.Member;
 import com.springboot.webflux.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 import static com.springboot.webflux.constants.ExceptionStatus.*;
 
 @Service
@@ -17,12 +23,43 @@ public class MemberService {
 
     private final MemberRepository memberRepository;
     private final JwtService jwtService;
+    private final PredictionEventHub predictionEventHub;
+    private final MemberSentimentAggregator memberSentimentAggregator;
+    private final SentimentTrendTracker sentimentTrendTracker;
+    private final MemberSentimentLeaderboard memberSentimentLeaderboard;
 
     public Mono<Member> findById(Long memberId){
         return memberRepository.findById(memberId)
+                .map(memberSentimentAggregator::withPending)
                 .switchIfEmpty(Mono.error(new RuntimeException(MEMBER_NOT_FOUND.getMessage())));
     }
 
+    public Flux<Member> streamSentiment(Long memberId){
+
+        return Flux.merge(predictionEventHub.memberEvents(memberId), findById(memberId));
+    }
+
+    // 저장된 추이만 읽으므로 post/comment 를 다시 훑지 않음
+    public Mono<MemberSentimentTrendResponse> findSentimentTrend(Long memberId){
+
+        return memberRepository.existsById(memberId)
+                .filter(exists -> exists)
+                .switchIfEmpty(Mono.error(new RuntimeException(MEMBER_NOT_FOUND.getMessage())))
+                .flatMap(exists -> sentimentTrendTracker.find(memberId))
+                .map(trend -> MemberSentimentTrendResponse.of(memberId, trend, sentimentTrendTracker.getHalfLifeSeconds()));
+    }
+
+    // 메모리의 순위만 읽으므로 DB 를 조회하지 않음
+    public Flux<MemberRankingResponse> findLeaderboard(SentimentRanking ranking, int limit){
+
+        if(limit < 1 || limit > memberSentimentLeaderboard.getSize()){
+            return Flux.error(new RuntimeException(INVALID_REQUEST.getMessage()));
+        }
+        List<MemberSentimentLeaderboard.Score> ranked = memberSentimentLeaderboard.top(ranking, limit);
+        return Flux.range(0, ranked.size())
+                .map(index -> MemberRankingResponse.of(index + 1, ranked.get(index)));
+    }
+
     public Mono<Member> signUp(MemberSignUpRequest memberRequest){
 
         return memberRepository.existsByUsername(memberRequest.getUsername())
@@ -38,16 +75,15 @@ public class MemberService {
                 .map(member -> jwtService.generateAccessToken(member.getMemberId()));
     }
 
+    // 집계 컬럼은 flush, 재계산이 따로 갱신하므로 전체 행을 저장하지 않고 계정 정보만 바꿈
     public Mono<Member> edit(MemberEditRequest memberRequest, String username){
 
         return memberRepository.findById(memberRequest.getMemberId())
                 .filter(member -> member.getUsername().equals(username))
                 .switchIfEmpty(Mono.error(new RuntimeException(INVALID_REQUEST.getMessage())))
-                .flatMap(member -> {
-                    member.setUsername(memberRequest.getUsername());
-                    member.setPassword(memberRequest.getPassword());
-                    return memberRepository.save(member);
-                });
+                .flatMap(member -> memberRepository.updateAccount(member.getMemberId(),
+                        memberRequest.getUsername(), memberRequest.getPassword()))
+                .then(findById(memberRequest.getMemberId()));
     }
 
 }
\ No newline at end of file
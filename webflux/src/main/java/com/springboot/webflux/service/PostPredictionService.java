@@ -1,168 +1,248 @@
 package com.springboot.webflux.service;
 
-import com.springboot.webflux.dto.PredictionRequest;
+import com.springboot.webflux.constants.PredictionJobStatus;
+import com.springboot.webflux.constants.PredictionJobType;
+import com.springboot.webflux.dto.PredictionResult;
+import com.springboot.webflux.dto.PredictionSubject;
 import com.springboot.webflux.entity.Post;
+import com.springboot.webflux.entity.PredictionJob;
+import com.springboot.webflux.exception.PredictionUnavailableException;
 import com.springboot.webflux.repository.MemberRepository;
 import com.springboot.webflux.repository.PostRepository;
-import com.springboot.webflux.security.SentimentAnalysisAuthToken;
+import com.springboot.webflux.repository.PredictionJobRepository;
 import lombok.RequiredArgsConstructor;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
 
-import static com.springboot.webflux.constants.ExceptionStatus.JSON_PARSE_FAILED;
+import java.time.LocalDateTime;
+
+import static com.springboot.webflux.constants.PredictState.*;
+import static com.springboot.webflux.constants.PredictionJobType.EDIT;
+import static com.springboot.webflux.constants.PredictionJobType.REGISTER;
+import static com.springboot.webflux.constants.PredictionTarget.POST;
 
 @Service
 @RequiredArgsConstructor
 public class PostPredictionService {
 
-    @Autowired
-    private final WebClient webClient;
+    private final static String INLINE_OWNER = "inline";
+
+    private final SentimentEngine sentimentEngine;
+    private final PredictionPipeline predictionPipeline;
+    private final PredictionEventHub predictionEventHub;
+    private final PredictionAdmissionController predictionAdmissionController;
+    private final MemberSentimentAggregator memberSentimentAggregator;
+    private final SentimentLedger sentimentLedger;
 
     private final MemberRepository memberRepository;
     private final PostRepository postRepository;
+    private final PredictionJobRepository predictionJobRepository;
+    private final TransactionalOperator transactionalOperator;
 
-    private final JSONParser parser = new JSONParser();
+    private Mono<PredictionResult> callSentimentAnalysisApi(String contents) {
 
-    private final static String PREDICTION_URI = "/api/analysis";
-    private final static String TOKEN_URI = "/auth/token";
-    private final static String POSITIVE = "positive";
-    private final static String PERCENTAGE = "percentage";
-    private final static String PREDICT = "predict";
+        return sentimentEngine.analyze(contents);
+    }
 
-    private Mono<String> sentimentAnalysis(String contents){
+    // 회원 집계는 원장(sentiment_event)에 남긴 +1 / -1 만큼만 반영
+    // 실제로 덮어쓴 행에 결과가 있었으면(수정) 그 결과를 빼고 새 결과를 더함 (활동 수는 그대로)
+    private Mono<Post> applySentimentCounts(Post analyzedPost, String previousResult){
 
-        PredictionRequest predictionRequest = PredictionRequest.builder()
-                .contents(contents)
-                .build();
+        return sentimentLedger.recordPrediction(analyzedPost.getMemberId(), POST, analyzedPost.getPostId(),
+                        previousResult, analyzedPost.getPredictResult())
+                .thenReturn(analyzedPost);
+    }
 
-        return webClient.post()
-                .uri(PREDICTION_URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .contentType(MediaType.APPLICATION_JSON)
-                .header(HttpHeaders.AUTHORIZATION, SentimentAnalysisAuthToken.token)
-                .bodyValue(predictionRequest)
-                .retrieve()
-                .bodyToMono(String.class);
+    // 집계가 커밋 후에 반영되므로 트랜잭션이 끝난 뒤에 발행
+    private Mono<Post> publishMember(Post analyzedPost){
+
+        Long memberId = analyzedPost.getMemberId();
+        if(!predictionEventHub.hasMemberSubscribers(memberId)){
+            return Mono.just(analyzedPost);
+        }
+        return memberRepository.findById(memberId)
+                .map(memberSentimentAggregator::withPending)
+                .doOnNext(predictionEventHub::publishMember)
+                .thenReturn(analyzedPost);
     }
 
-    private Mono<String> getSentimentAnalysisToken(){
+    public Mono<Post> saveAndPredictForRegister(Post post){
 
-        return webClient.get()
-                .uri(TOKEN_URI)
-                .retrieve()
-                .bodyToMono(String.class)
-                .doOnNext(token -> SentimentAnalysisAuthToken.token = token);
+        if(predictionPipeline.isAsyncEnabled()){
+            return saveWithPredictionJob(post, REGISTER);
+        }
+        return predictionAdmissionController.admit()
+                .flatMap(admitted -> admitted
+                        ? saveAndPredictInline(post, REGISTER)
+                        : saveWithPredictionJob(post, REGISTER))
+                .contextWrite(PredictionConcurrencyLimiter.withLane(REGISTER.getLane()));
     }
 
-    private Mono<String> callSentimentAnalysisApi(String contents) {
+    public Mono<Post> saveAndPredictForEdit(Post post){
 
-        if(SentimentAnalysisAuthToken.token == null){
-            return getSentimentAnalysisToken()
-                    .flatMap(token -> sentimentAnalysis(contents));
+        if(predictionPipeline.isAsyncEnabled()){
+            return saveWithPredictionJob(post, EDIT);
         }
-        return sentimentAnalysis(contents);
+        return predictionAdmissionController.admit()
+                .flatMap(admitted -> admitted
+                        ? saveAndPredictInline(post, EDIT)
+                        : saveWithPredictionJob(post, EDIT))
+                .contextWrite(PredictionConcurrencyLimiter.withLane(EDIT.getLane()));
     }
 
-    private Mono<Post> updatePositiveRate(Post updatedPost){
-        return memberRepository.findById(updatedPost.getMemberId())
-                .flatMap(member -> {
-                    Long count = member.getActivityCount() + 1;
+    public Mono<Void> processPredictionJob(PredictionJob job){
 
-                    Float positiveRate = member.getPositiveRate();
-                    String predictResult = updatedPost.getPredictResult();
-                    Float newRate = calculateNewPositiveRateForRegister(positiveRate, predictResult, count);
+        return postRepository.findById(job.getTargetId())
+                .flatMap(post -> analyzeAndSaveResult(post, job.getJobId()))
+                .doOnSuccess(result -> predictionPipeline.complete(POST, job.getTargetId()))
+                .then()
+                .contextWrite(PredictionConcurrencyLimiter.withLane(job.getJobType().getLane()));
+    }
+
+    private Mono<Post> saveWithPredictionJob(Post post, PredictionJobType jobType){
 
-                    member.setPositiveRate(newRate);
-                    member.setActivityCount(count);
-                    return memberRepository.save(member).then(Mono.just(updatedPost));
+        post.setPredictState(PENDING);
+
+        return transactionalOperator.transactional(postRepository.save(post)
+                        .flatMap(savedPost -> predictionJobRepository
+                                .save(PredictionJob.of(POST, savedPost.getPostId(), jobType))
+                                .thenReturn(savedPost)))
+                .doOnNext(savedPost -> {
+                    predictionEventHub.publishPost(savedPost);
+                    predictionPipeline.wakeUp();
                 });
     }
 
-    private Mono<Post> getBackPositiveRate(Post editedPost){
+    // 글과 분석 job 을 한 트랜잭션에서 저장하고 바로 분석, 결과를 저장하는 트랜잭션에서 job 을 완료 처리
+    // 분석 서버를 쓸 수 없거나 분석이 실패하면 job 을 drainer 에 넘기고, 중간에 끊긴 job 도 claim-timeout 이 지나면 drainer 가 처리
+    private Mono<Post> saveAndPredictInline(Post post, PredictionJobType jobType){
 
-        return memberRepository.findById(editedPost.getMemberId())
-                .flatMap(member -> {
-                    Long count = member.getActivityCount() - 1;
+        post.setPredictState(PENDING);
 
-                    Float positiveRate = member.getPositiveRate();
-                    String predictResult = editedPost.getPredictResult();
-                    Float newRate = calculateNewPositiveRateForEdit(positiveRate, predictResult, count);
+        return transactionalOperator.transactional(postRepository.save(post)
+                        .flatMap(savedPost -> predictionJobRepository
+                                .save(PredictionJob.claimed(POST, savedPost.getPostId(), jobType, INLINE_OWNER))
+                                .map(job -> Tuples.of(savedPost, job.getJobId()))))
+                .flatMap(saved -> analyzeAndSaveResult(saved.getT1(), saved.getT2())
+                        .onErrorResume(e -> handOverToDrainer(saved.getT1(), saved.getT2(), e)));
+    }
 
-                    member.setPositiveRate(newRate);
-                    member.setActivityCount(count);
-                    return memberRepository.save(member).then(Mono.just(editedPost));
+    private Mono<Post> handOverToDrainer(Post savedPost, Long jobId, Throwable e){
+
+        if(!(e instanceof PredictionUnavailableException)){
+            return predictionJobRepository.release(jobId, PredictionJobStatus.PENDING.name(), LocalDateTime.now())
+                    .then(Mono.error(e));
+        }
+        return predictionJobRepository.requeue(jobId, LocalDateTime.now())
+                .thenReturn(savedPost)
+                .doOnNext(pendingPost -> {
+                    predictionEventHub.publishPost(pendingPost);
+                    predictionPipeline.wakeUp();
                 });
+    }
 
+    private Mono<Void> markJobDone(Long jobId){
+
+        return predictionJobRepository.markDone(jobId, LocalDateTime.now()).then();
     }
 
-    public Mono<Post> callSentimentAnalysisApiAndSaveResultForRegister(Post savedPost){
+    // 집계에 들어가 있던 결과는 삭제와 같은 트랜잭션에서 원장에 -1 로 남겨 집계에서 뺌
+    public Mono<Void> delete(Post post){
 
-        return Mono.just(savedPost)
-                .zipWhen(post -> callSentimentAnalysisApi(post.getContents()))
-                .flatMap(tuple -> {
-                    Post post = tuple.getT1();
-                    String result = tuple.getT2();
+        Mono<Void> retract = post.getPredictResult() == null
+                ? Mono.empty()
+                : sentimentLedger.recordDelete(post.getMemberId(), POST, post.getPostId(), post.getPredictResult());
 
-                    return parseSentimentAnalysisResultJson(post, result);
-                })
-                .flatMap(this::updatePositiveRate);
+        return transactionalOperator.transactional(postRepository.delete(post).then(retract))
+                .then(Mono.defer(() -> publishMember(post)).then());
     }
 
-    public Mono<Post> callSentimentAnalysisApiAndSaveResultForEdit(Post savedPost){
+    public Mono<Void> markPredictionFailed(Long postId){
 
-        return Mono.just(savedPost)
-                .flatMap(this::getBackPositiveRate)
-                .zipWhen(post -> callSentimentAnalysisApi(post.getContents()))
-                .flatMap(tuple -> {
-                    Post post = tuple.getT1();
-                    String result = tuple.getT2();
-
-                    return parseSentimentAnalysisResultJson(post, result);
+        return postRepository.findById(postId)
+                .flatMap(post -> {
+                    post.setPredictState(FAILED);
+                    return postRepository.save(post);
                 })
-                .flatMap(this::updatePositiveRate);
-    }
-
-    private Float calculateNewPositiveRateForRegister(Float positiveRate, String predictResult, Long count){
-        if(positiveRate == null){
-            if(POSITIVE.equals(predictResult)){
-                return 1f;
-            }
-            return 0f;
-        } else {
-            if(POSITIVE.equals(predictResult)){
-                return (positiveRate * (count - 1) + 1) / count;
-            }
-        }
-        return (positiveRate * (count - 1)) / count;
+                .doOnNext(predictionEventHub::publishPost)
+                .doOnSuccess(result -> predictionPipeline.complete(POST, postId))
+                .then();
     }
 
-    private Float calculateNewPositiveRateForEdit(Float positiveRate, String predictResult, Long count){
-        if(POSITIVE.equals(predictResult)){
-            return (positiveRate * (count + 1) - 1) / count;
+    // 콜백 모드에서 어느 인스턴스가 콜백을 받더라도 결과를 저장할 수 있도록 대상, job, 멱등 키를 요청에 실어 보냄
+    private Mono<Post> analyzeAndSaveResult(Post savedPost, Long jobId){
+
+        String predictionKey = PredictionIdempotencyKey.of(POST, savedPost.getPostId(), savedPost.getContents());
+        if(predictionKey.equals(savedPost.getPredictionKey())){
+            return completeAlreadyApplied(savedPost, jobId);
         }
-        return (positiveRate * (count + 1)) / count;
+
+        return callSentimentAnalysisApi(savedPost.getContents())
+                .contextWrite(PredictionCallbackRegistry.withSubject(
+                        new PredictionSubject(POST, savedPost.getPostId(), jobId, predictionKey)))
+                .flatMap(result -> saveResult(savedPost.getPostId(), result, predictionKey, jobId));
     }
 
-    private Mono<Post> parseSentimentAnalysisResultJson(Post post, String result){
+    // 기다리던 인스턴스가 없는 콜백의 결과를 저장, 그 사이 내용이 바뀌었으면 새 내용의 분석이 따로 있으므로 버림
+    public Mono<Void> applyCallbackResult(PredictionSubject subject, PredictionResult result){
 
-        try {
-            JSONObject resultJsonObj = (JSONObject) parser.parse(result);
+        return postRepository.findById(subject.getTargetId())
+                .filter(post -> subject.getPredictionKey().equals(
+                        PredictionIdempotencyKey.of(POST, post.getPostId(), post.getContents())))
+                .flatMap(post -> saveResult(post.getPostId(), result, subject.getPredictionKey(), subject.getJobId()))
+                .doOnNext(savedPost -> predictionPipeline.complete(POST, savedPost.getPostId()))
+                .then();
+    }
 
-            Float percentage = Float.valueOf(String.valueOf(resultJsonObj.get(PERCENTAGE)));
-            String predict = String.valueOf(resultJsonObj.get(PREDICT));
+    // 분석하는 동안 다른 수정이나 같은 분석의 결과가 먼저 반영됐을 수 있으므로 트랜잭션 안에서 다시 읽은 행을 기준으로 저장
+    private Mono<Post> saveResult(Long postId, PredictionResult result, String predictionKey, Long jobId){
+
+        return transactionalOperator.transactional(
+                        postRepository.findById(postId)
+                                .flatMap(current -> {
+                                    String previousResult = current.getPredictResult();
+                                    return saveSentimentAnalysisResult(current, result, predictionKey)
+                                            .flatMap(applied -> markJobDone(jobId).thenReturn(applied))
+                                            .filter(applied -> applied)
+                                            .flatMap(applied -> applySentimentCounts(current, previousResult));
+                                }))
+                .flatMap(this::publishMember)
+                .switchIfEmpty(Mono.defer(() -> postRepository.findById(postId)))
+                .doOnNext(predictionEventHub::publishPost);
+    }
+
+    // 같은 내용의 분석이 이미 반영된 경우(재시도, outbox 재처리, 내용이 같은 수정) 통계는 건드리지 않고 상태만 정리
+    private Mono<Post> completeAlreadyApplied(Post post, Long jobId){
+
+        if(post.getPredictState() == COMPLETED){
+            return markJobDone(jobId).thenReturn(post);
+        }
+        post.setPredictState(COMPLETED);
+        return transactionalOperator.transactional(postRepository.save(post)
+                        .flatMap(savedPost -> markJobDone(jobId).thenReturn(savedPost)))
+                .doOnNext(predictionEventHub::publishPost);
+    }
 
-            post.setPredictResult(predict);
-            post.setPredictPercent(percentage);
+    // 읽은 뒤로 prediction_key 가 바뀌지 않았을 때만(compare-and-set) 결과를 기록하고, 기록한 쪽만 회원 통계에 반영하도록 true 를 돌려줌
+    // 그 사이 내용이 바뀌었으면 새 내용의 분석이 따로 있으므로 기록하지 않음
+    private Mono<Boolean> saveSentimentAnalysisResult(Post post, PredictionResult result, String predictionKey){
 
-            return postRepository.save(post);
-        } catch (Exception e){
-            return Mono.error(new RuntimeException(JSON_PARSE_FAILED.getMessage()));
+        if(!predictionKey.equals(PredictionIdempotencyKey.of(POST, post.getPostId(), post.getContents()))){
+            return Mono.just(false);
         }
+        return postRepository.savePredictionResult(post.getPostId(), result.predict(), result.percentage(),
+                        predictionKey, post.getPredictionKey())
+                .map(updated -> {
+                    if(updated == 0){
+                        return false;
+                    }
+                    post.setPredictResult(result.predict());
+                    post.setPredictPercent(result.percentage());
+                    post.setPredictState(COMPLETED);
+                    post.setPredictionKey(predictionKey);
+                    return true;
+                });
     }
 }
@@ -6,13 +6,17 @@ import com.springboot.webflux.entity.Post;
 import com.springboot.webflux.repository.MemberRepository;
 import com.springboot.webflux.repository.PostRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 import static com.springboot.webflux.constants.ExceptionStatus.*;
+import static com.springboot.webflux.constants.PredictState.PENDING;
+import static com.springboot.webflux.constants.PredictionTarget.POST;
 
 @Service
 @RequiredArgsConstructor
@@ -21,14 +25,18 @@ public class PostService {
     private final PostRepository postRepository;
     private final MemberRepository memberRepository;
     private final PostPredictionService postPredictionService;
+    private final PredictionPipeline predictionPipeline;
+    private final PredictionEventHub predictionEventHub;
+
+    @Value("${prediction.async.await-timeout-seconds:30}")
+    private long awaitTimeoutSeconds;
 
     public Mono<Post> write(PostRegisterRequest postRequest, String username) {
 
         return memberRepository.findById(postRequest.getMemberId())
                 .filter(member -> member.getUsername().equals(username))
                 .switchIfEmpty(Mono.error(new RuntimeException(INVALID_REQUEST.getMessage())))
-                .flatMap(member -> postRepository.save(postRequest.toEntity()))
-                .flatMap(postPredictionService::callSentimentAnalysisApiAndSaveResultForRegister);
+                .flatMap(member -> postPredictionService.saveAndPredictForRegister(postRequest.toEntity()));
     }
 
     public Mono<Post> edit(PostEditRequest postRequest, String username){
@@ -42,9 +50,8 @@ public class PostService {
 
                     post.setContents(postRequest.getContents());
                     post.setEditedAt(LocalDateTime.now());
-                    return postRepository.save(post);
-                })
-                .flatMap(postPredictionService::callSentimentAnalysisApiAndSaveResultForEdit);
+                    return postPredictionService.saveAndPredictForEdit(post);
+                });
     }
 
     public Mono<Void> delete(Long postId, String username){
@@ -53,7 +60,7 @@ public class PostService {
                 .zipWhen(post -> memberRepository.findById(post.getMemberId()))
                 .filter(tuple -> tuple.getT2().getUsername().equals(username))
                 .switchIfEmpty(Mono.error(new RuntimeException(INVALID_REQUEST.getMessage())))
-                .flatMap(tuple -> postRepository.delete(tuple.getT1()));
+                .flatMap(tuple -> postPredictionService.delete(tuple.getT1()));
     }
 
     public Mono<Post> findById(Long postId) {
@@ -62,6 +69,24 @@ public class PostService {
                 .switchIfEmpty(Mono.error(new RuntimeException(POST_NOT_FOUND.getMessage())));
     }
 
+    public Mono<Post> awaitPrediction(Long postId) {
+
+        Mono<Post> current = findById(postId);
+        Flux<Post> completed = predictionPipeline.completions(POST, postId)
+                .concatMap(completion -> postRepository.findById(postId));
+
+        return Flux.merge(current, completed)
+                .filter(post -> post.getPredictState() != PENDING)
+                .next()
+                .timeout(Duration.ofSeconds(awaitTimeoutSeconds), Mono.defer(() -> findById(postId)));
+    }
+
+    // 현재 상태를 먼저 보내고 이후 예측 결과가 바뀔 때마다 전달 (구독을 먼저 걸어 그 사이 변경을 놓치지 않음)
+    public Flux<Post> streamPrediction(Long postId){
+
+        return Flux.merge(predictionEventHub.postEvents(postId), findById(postId));
+    }
+
     public Flux<Post> findByMemberId(Long memberId){
 
         return memberRepository.findById(memberId)
@@ -0,0 +1,88 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.exception.PredictionOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_OVERLOADED;
+
+// 쓰기 요청을 받기 전에 감정 분석 대기열(limiter)이 얼마나 밀려 있는지 확인
+// 밀려 있으면 설정에 따라 바로 429 로 거절하거나, 글은 저장하고 분석만 outbox 로 미룸
+@Service
+public class PredictionAdmissionController {
+
+    public enum Mode {
+        REJECT,
+        DEFER
+    }
+
+    private final PredictionConcurrencyLimiter predictionConcurrencyLimiter;
+    private final boolean enabled;
+    private final Mode mode;
+    private final int maxBacklog;
+    private final long maxEstimatedDelayMillis;
+    private final long minRetryAfterSeconds;
+
+    private final Counter admitted;
+    private final Counter shed;
+
+    public PredictionAdmissionController(PredictionConcurrencyLimiter predictionConcurrencyLimiter,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${prediction.admission.enabled:true}") boolean enabled,
+                                         @Value("${prediction.admission.mode:DEFER}") Mode mode,
+                                         @Value("${prediction.admission.max-backlog:192}") int maxBacklog,
+                                         @Value("${prediction.admission.max-estimated-delay-millis:1500}") long maxEstimatedDelayMillis,
+                                         @Value("${prediction.admission.min-retry-after-seconds:1}") long minRetryAfterSeconds) {
+        this.predictionConcurrencyLimiter = predictionConcurrencyLimiter;
+        this.enabled = enabled;
+        this.mode = mode;
+        this.maxBacklog = maxBacklog;
+        this.maxEstimatedDelayMillis = maxEstimatedDelayMillis;
+        this.minRetryAfterSeconds = minRetryAfterSeconds;
+        this.admitted = meterRegistry.counter("sentiment.prediction.admission.admitted");
+        this.shed = Counter.builder("sentiment.prediction.admission.shed")
+                .tag("mode", mode.name())
+                .register(meterRegistry);
+        Gauge.builder("sentiment.prediction.admission.backlog", this, PredictionAdmissionController::getBacklog)
+                .register(meterRegistry);
+        Gauge.builder("sentiment.prediction.admission.estimated-delay", predictionConcurrencyLimiter,
+                        PredictionConcurrencyLimiter::getEstimatedDelayMillis)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    // true: 바로 분석, false: 분석을 outbox 로 미룸, REJECT 모드에서 밀려 있으면 429 에러
+    public Mono<Boolean> admit(){
+
+        return Mono.fromCallable(() -> {
+            if(!enabled){
+                return true;
+            }
+
+            long estimatedDelayMillis = predictionConcurrencyLimiter.getEstimatedDelayMillis();
+            if(getBacklog() < maxBacklog && estimatedDelayMillis < maxEstimatedDelayMillis){
+                admitted.increment();
+                return true;
+            }
+
+            shed.increment();
+            if(mode == Mode.DEFER){
+                return false;
+            }
+            throw new PredictionOverloadedException(PREDICTION_OVERLOADED, retryAfterSeconds(estimatedDelayMillis));
+        });
+    }
+
+    public int getBacklog(){
+        return predictionConcurrencyLimiter.getQueued() + predictionConcurrencyLimiter.getInFlight();
+    }
+
+    private long retryAfterSeconds(long estimatedDelayMillis){
+
+        return Math.max(minRetryAfterSeconds, (estimatedDelayMillis + 999) / 1000);
+    }
+}
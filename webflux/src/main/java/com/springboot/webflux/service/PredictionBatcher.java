@@ -0,0 +1,110 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.dto.PredictionResult;
+import com.springboot.webflux.dto.PredictionSubject;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.springboot.webflux.constants.ExceptionStatus.BATCH_RESULT_MISMATCH;
+
+@Service
+public class PredictionBatcher {
+
+    private final SentimentAnalysisClient sentimentAnalysisClient;
+    private final int maxBatchSize;
+    private final Duration batchWindow;
+
+    private final DistributionSummary batchSizeSummary;
+    private final DistributionSummary batchFillRatioSummary;
+
+    private FluxSink<PendingPrediction> pendingSink;
+    private Disposable batchSubscription;
+
+    public PredictionBatcher(SentimentAnalysisClient sentimentAnalysisClient,
+                             MeterRegistry meterRegistry,
+                             @Value("${prediction.batch.max-size:32}") int maxBatchSize,
+                             @Value("${prediction.batch.window-millis:20}") long batchWindowMillis) {
+        this.sentimentAnalysisClient = sentimentAnalysisClient;
+        this.maxBatchSize = maxBatchSize;
+        this.batchWindow = Duration.ofMillis(batchWindowMillis);
+        this.batchSizeSummary = DistributionSummary.builder("sentiment.prediction.batch.size")
+                .register(meterRegistry);
+        this.batchFillRatioSummary = DistributionSummary.builder("sentiment.prediction.batch.fill.ratio")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start(){
+        batchSubscription = Flux.<PendingPrediction>create(sink -> pendingSink = sink)
+                .bufferTimeout(maxBatchSize, batchWindow)
+                .flatMap(this::dispatch)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop(){
+        batchSubscription.dispose();
+    }
+
+    public Mono<PredictionResult> submit(String contents){
+
+        return Mono.deferContextual(context -> {
+            PendingPrediction pendingPrediction = new PendingPrediction(contents,
+                    PredictionCallbackRegistry.subjectOf(context));
+            pendingSink.next(pendingPrediction);
+            return pendingPrediction.result.asMono();
+        });
+    }
+
+    private Mono<Void> dispatch(List<PendingPrediction> batch){
+
+        batchSizeSummary.record(batch.size());
+        batchFillRatioSummary.record((double) batch.size() / maxBatchSize);
+
+        List<String> contents = batch.stream()
+                .map(pendingPrediction -> pendingPrediction.contents)
+                .collect(Collectors.toList());
+
+        List<PredictionSubject> subjects = batch.stream()
+                .anyMatch(pendingPrediction -> pendingPrediction.subject != null)
+                ? batch.stream().map(pendingPrediction -> pendingPrediction.subject).collect(Collectors.toList())
+                : null;
+
+        return sentimentAnalysisClient.analyzeBatch(contents, subjects)
+                .filter(results -> results.size() == batch.size())
+                .switchIfEmpty(Mono.error(new RuntimeException(BATCH_RESULT_MISMATCH.getMessage())))
+                .doOnNext(results -> {
+                    for(int i = 0; i < batch.size(); i++){
+                        batch.get(i).result.tryEmitValue(results.get(i));
+                    }
+                })
+                .doOnError(e -> batch.forEach(pendingPrediction -> pendingPrediction.result.tryEmitError(e)))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private static class PendingPrediction {
+
+        private final String contents;
+        private final PredictionSubject subject;
+        private final Sinks.One<PredictionResult> result = Sinks.one();
+
+        private PendingPrediction(String contents, PredictionSubject subject) {
+            this.contents = contents;
+            this.subject = subject;
+        }
+    }
+}
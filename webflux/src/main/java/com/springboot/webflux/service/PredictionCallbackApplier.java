@@ -0,0 +1,57 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.dto.PredictionCallbackRequest;
+import com.springboot.webflux.dto.PredictionResult;
+import com.springboot.webflux.dto.PredictionSubject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// 이 인스턴스에 기다리는 쪽이 없는 콜백(다른 인스턴스가 보낸 분석, 재시작, 시간 초과)의 결과를
+// 서명된 본문에 담겨 온 subject(대상, outbox job, 멱등 키)로 바로 저장
+@Service
+public class PredictionCallbackApplier {
+
+    private final PostPredictionService postPredictionService;
+    private final CommentPredictionService commentPredictionService;
+
+    private final Counter applied;
+
+    public PredictionCallbackApplier(PostPredictionService postPredictionService,
+                                     CommentPredictionService commentPredictionService,
+                                     MeterRegistry meterRegistry) {
+        this.postPredictionService = postPredictionService;
+        this.commentPredictionService = commentPredictionService;
+        this.applied = meterRegistry.counter("sentiment.prediction.callback.applied");
+    }
+
+    // 저장할 결과가 없으면 false (실패 콜백이거나 subject 가 없는 요청)
+    public Mono<Boolean> apply(PredictionCallbackRequest callback){
+
+        List<PredictionSubject> subjects = callback.getSubjects();
+        List<PredictionResult> results = callback.getResults();
+        if(callback.getError() != null || subjects == null || results == null || subjects.size() != results.size()){
+            return Mono.just(false);
+        }
+
+        return Flux.range(0, subjects.size())
+                .filter(i -> subjects.get(i) != null)
+                .concatMap(i -> apply(subjects.get(i), results.get(i).withModelVersion(callback.getModelVersion()))
+                        .thenReturn(i))
+                .count()
+                .map(count -> count > 0);
+    }
+
+    private Mono<Void> apply(PredictionSubject subject, PredictionResult result){
+
+        Mono<Void> saved = switch (subject.getTarget()){
+            case POST -> postPredictionService.applyCallbackResult(subject, result);
+            case COMMENT -> commentPredictionService.applyCallbackResult(subject, result);
+        };
+        return saved.doOnSuccess(done -> applied.increment());
+    }
+}
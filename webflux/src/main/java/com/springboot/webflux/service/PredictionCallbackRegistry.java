@@ -0,0 +1,103 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.dto.PredictionCallbackRequest;
+import com.springboot.webflux.dto.PredictionSubject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_CALLBACK_FAILED;
+
+// 이 인스턴스에서 콜백을 기다리는 분석 job
+// 기다리는 쪽이 없는 콜백(다른 인스턴스가 보냈거나 재시작, 시간 초과)은 본문의 subject 로 PredictionCallbackApplier 가 저장
+@Service
+public class PredictionCallbackRegistry {
+
+    private final static String SUBJECT_KEY = PredictionCallbackRegistry.class.getName() + ".subject";
+
+    private final Map<String, Sinks.One<PredictionCallbackRequest>> pending = new ConcurrentHashMap<>();
+    private final Duration timeout;
+
+    private final Counter completed;
+    private final Counter timedOut;
+    private final Counter late;
+
+    public PredictionCallbackRegistry(MeterRegistry meterRegistry,
+                                      @Value("${prediction.callback.timeout-millis:10000}") long timeoutMillis) {
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.completed = meterRegistry.counter("sentiment.prediction.callback.completed");
+        this.timedOut = meterRegistry.counter("sentiment.prediction.callback.timeouts");
+        this.late = meterRegistry.counter("sentiment.prediction.callback.late");
+        meterRegistry.gaugeMapSize("sentiment.prediction.callback.pending", List.of(), pending);
+    }
+
+    // 분석 요청에 실어 보낼 글/댓글 정보는 호출 측에서 Reactor Context 에 넣음
+    public static Function<Context, Context> withSubject(PredictionSubject subject){
+        return context -> context.put(SUBJECT_KEY, subject);
+    }
+
+    public static PredictionSubject subjectOf(ContextView context){
+        return context.getOrDefault(SUBJECT_KEY, null);
+    }
+
+    public Duration getTimeout(){
+        return timeout;
+    }
+
+    public int getPendingCount(){
+        return pending.size();
+    }
+
+    Set<String> pendingJobIds(){
+        return pending.keySet();
+    }
+
+    // 콜백이 제출 응답보다 먼저 도착해도 받을 수 있도록 제출 전에 job id 를 등록
+    public Mono<PredictionCallbackRequest> await(Function<String, Mono<?>> submit){
+
+        return Mono.defer(() -> {
+            String jobId = UUID.randomUUID().toString();
+            Sinks.One<PredictionCallbackRequest> sink = Sinks.one();
+            pending.put(jobId, sink);
+
+            return submit.apply(jobId)
+                    .then(sink.asMono())
+                    .timeout(timeout)
+                    .doOnError(TimeoutException.class, e -> timedOut.increment())
+                    .doFinally(signal -> pending.remove(jobId));
+        });
+    }
+
+    // 시간 초과로 이미 정리된 job 의 콜백은 false
+    public boolean complete(PredictionCallbackRequest callback){
+
+        Sinks.One<PredictionCallbackRequest> sink = callback.getJobId() == null
+                ? null : pending.remove(callback.getJobId());
+        if(sink == null){
+            late.increment();
+            return false;
+        }
+
+        completed.increment();
+        if(callback.getError() != null){
+            sink.tryEmitError(new RuntimeException(PREDICTION_CALLBACK_FAILED.getMessage() + ": " + callback.getError()));
+        } else {
+            sink.tryEmitValue(callback);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,241 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.exception.PredictionUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_BULKHEAD_FULL;
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_CIRCUIT_OPEN;
+
+@Slf4j
+@Service
+public class PredictionCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean enabled;
+    private final int slidingWindowSize;
+    private final int minimumCalls;
+    private final float failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenPermittedCalls;
+    private final Duration callTimeout;
+    private final LongSupplier nanoClock;
+
+    private final Semaphore bulkhead;
+    private final MeterRegistry meterRegistry;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadFullRejections;
+
+    private final boolean[] outcomes;
+    private int outcomeIndex;
+    private int recordedCalls;
+    private int failedCalls;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    @Autowired
+    public PredictionCircuitBreaker(MeterRegistry meterRegistry,
+                                    @Value("${prediction.circuit.enabled:true}") boolean enabled,
+                                    @Value("${prediction.circuit.sliding-window-size:50}") int slidingWindowSize,
+                                    @Value("${prediction.circuit.minimum-calls:20}") int minimumCalls,
+                                    @Value("${prediction.circuit.failure-rate-threshold:50}") float failureRateThreshold,
+                                    @Value("${prediction.circuit.open-duration-seconds:30}") long openDurationSeconds,
+                                    @Value("${prediction.circuit.half-open-permitted-calls:5}") int halfOpenPermittedCalls,
+                                    @Value("${prediction.circuit.call-timeout-millis:15000}") long callTimeoutMillis,
+                                    @Value("${prediction.bulkhead.max-concurrent-calls:64}") int maxConcurrentCalls) {
+        this(meterRegistry, enabled, slidingWindowSize, minimumCalls, failureRateThreshold,
+                Duration.ofSeconds(openDurationSeconds), halfOpenPermittedCalls,
+                Duration.ofMillis(callTimeoutMillis), maxConcurrentCalls, System::nanoTime);
+    }
+
+    PredictionCircuitBreaker(MeterRegistry meterRegistry, boolean enabled, int slidingWindowSize,
+                             int minimumCalls, float failureRateThreshold, Duration openDuration,
+                             int halfOpenPermittedCalls, Duration callTimeout, int maxConcurrentCalls,
+                             LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.slidingWindowSize = slidingWindowSize;
+        this.minimumCalls = Math.min(minimumCalls, slidingWindowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenPermittedCalls = halfOpenPermittedCalls;
+        this.callTimeout = callTimeout;
+        this.nanoClock = nanoClock;
+        this.outcomes = new boolean[slidingWindowSize];
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.meterRegistry = meterRegistry;
+        this.circuitOpenRejections = Counter.builder("sentiment.prediction.circuit.rejected")
+                .tag("reason", "circuit_open")
+                .register(meterRegistry);
+        this.bulkheadFullRejections = Counter.builder("sentiment.prediction.circuit.rejected")
+                .tag("reason", "bulkhead_full")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.prediction.circuit.state", this, breaker -> breaker.state.ordinal())
+                .register(meterRegistry);
+        Gauge.builder("sentiment.prediction.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> execute(Supplier<Mono<T>> call){
+
+        if(!enabled){
+            return Mono.defer(call);
+        }
+
+        return Mono.defer(() -> {
+            if(!tryAcquirePermission()){
+                circuitOpenRejections.increment();
+                return Mono.error(new PredictionUnavailableException(PREDICTION_CIRCUIT_OPEN));
+            }
+            if(!bulkhead.tryAcquire()){
+                releasePermission();
+                bulkheadFullRejections.increment();
+                return Mono.error(new PredictionUnavailableException(PREDICTION_BULKHEAD_FULL));
+            }
+
+            return call.get()
+                    .timeout(callTimeout)
+                    .doOnSuccess(result -> onSuccess())
+                    .doOnError(e -> {
+                        if(e instanceof PredictionUnavailableException){
+                            releasePermission();
+                        } else if(PredictionErrors.isServerSide(e)){
+                            onFailure();
+                        } else {
+                            onSuccess();
+                        }
+                    })
+                    .doFinally(signal -> {
+                        bulkhead.release();
+                        if(signal == SignalType.CANCEL){
+                            releasePermission();
+                        }
+                    });
+        });
+    }
+
+    public boolean isCallPermitted(){
+
+        if(!enabled){
+            return true;
+        }
+        synchronized (this){
+            return state != State.OPEN || nanoClock.getAsLong() - openedAt >= openDurationNanos;
+        }
+    }
+
+    public State getState(){
+        return state;
+    }
+
+    private synchronized boolean tryAcquirePermission(){
+
+        if(state == State.OPEN && nanoClock.getAsLong() - openedAt >= openDurationNanos){
+            transitionTo(State.HALF_OPEN);
+        }
+
+        return switch (state){
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if(halfOpenPermits == 0){
+                    yield false;
+                }
+                halfOpenPermits--;
+                yield true;
+            }
+        };
+    }
+
+    private synchronized void releasePermission(){
+
+        if(state == State.HALF_OPEN && halfOpenPermits + halfOpenSuccesses < halfOpenPermittedCalls){
+            halfOpenPermits++;
+        }
+    }
+
+    private synchronized void onSuccess(){
+
+        if(state == State.HALF_OPEN){
+            if(++halfOpenSuccesses >= halfOpenPermittedCalls){
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if(state == State.CLOSED){
+            record(false);
+        }
+    }
+
+    private synchronized void onFailure(){
+
+        if(state == State.HALF_OPEN){
+            transitionTo(State.OPEN);
+            return;
+        }
+        if(state == State.CLOSED){
+            record(true);
+            if(recordedCalls >= minimumCalls && failedCalls * 100f / recordedCalls >= failureRateThreshold){
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    private void record(boolean failed){
+
+        if(recordedCalls == slidingWindowSize){
+            if(outcomes[outcomeIndex]){
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[outcomeIndex] = failed;
+        if(failed){
+            failedCalls++;
+        }
+        outcomeIndex = (outcomeIndex + 1) % slidingWindowSize;
+    }
+
+    private void transitionTo(State next){
+
+        State previous = state;
+        state = next;
+
+        switch (next){
+            case OPEN -> openedAt = nanoClock.getAsLong();
+            case HALF_OPEN -> {
+                halfOpenPermits = halfOpenPermittedCalls;
+                halfOpenSuccesses = 0;
+            }
+            case CLOSED -> {
+                outcomeIndex = 0;
+                recordedCalls = 0;
+                failedCalls = 0;
+            }
+        }
+
+        log.info("prediction circuit breaker {} -> {}", previous, next);
+        meterRegistry.counter("sentiment.prediction.circuit.transitions",
+                "from", previous.name(), "to", next.name()).increment();
+    }
+}
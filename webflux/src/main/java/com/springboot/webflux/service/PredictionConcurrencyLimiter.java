@@ -0,0 +1,346 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.constants.PredictionLane;
+import com.springboot.webflux.exception.PredictionUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_LIMIT_EXCEEDED;
+
+// AIMD 방식으로 Flask 동시 요청 수를 조절한다.
+// 응답 시간이 최소 RTT * tolerance 이내면 한도를 조금씩 늘리고, 지연되거나 실패하면 비율로 줄인다.
+// 한도를 넘는 요청은 lane(CREATE > EDIT > BACKFILL) 별 대기열에서 기다리고, 자리가 나면 가중치 기반 round robin 으로 꺼낸다.
+// 낮은 lane 도 가중치만큼은 차례가 오므로 높은 lane 이 계속 차 있어도 굶지 않는다.
+// lane 은 호출 측에서 Reactor Context 에 넣고(withLane), 없으면 CREATE 로 본다.
+@Service
+public class PredictionConcurrencyLimiter {
+
+    private final static String LANE_KEY = PredictionConcurrencyLimiter.class.getName() + ".lane";
+    private final static double SERVICE_TIME_WEIGHT = 0.1;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double rttTolerance;
+    private final int minRttResetSamples;
+    private final LongSupplier nanoClock;
+
+    private final Map<PredictionLane, Lane> lanes = new EnumMap<>(PredictionLane.class);
+
+    private double limit;
+    private int inFlight;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samplesSinceReset;
+    private double averageServiceNanos;
+
+    @Autowired
+    public PredictionConcurrencyLimiter(MeterRegistry meterRegistry,
+                                        @Value("${prediction.limiter.enabled:true}") boolean enabled,
+                                        @Value("${prediction.limiter.initial-limit:8}") int initialLimit,
+                                        @Value("${prediction.limiter.min-limit:1}") int minLimit,
+                                        @Value("${prediction.limiter.max-limit:${prediction.bulkhead.max-concurrent-calls:64}}") int maxLimit,
+                                        @Value("${prediction.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                        @Value("${prediction.limiter.rtt-tolerance:2.0}") double rttTolerance,
+                                        @Value("${prediction.limiter.min-rtt-reset-samples:500}") int minRttResetSamples,
+                                        @Value("${prediction.limiter.lane.create.weight:6}") int createWeight,
+                                        @Value("${prediction.limiter.lane.create.capacity:256}") int createCapacity,
+                                        @Value("${prediction.limiter.lane.create.max-wait-millis:2000}") long createMaxWaitMillis,
+                                        @Value("${prediction.limiter.lane.edit.weight:3}") int editWeight,
+                                        @Value("${prediction.limiter.lane.edit.capacity:256}") int editCapacity,
+                                        @Value("${prediction.limiter.lane.edit.max-wait-millis:5000}") long editMaxWaitMillis,
+                                        @Value("${prediction.limiter.lane.backfill.weight:1}") int backfillWeight,
+                                        @Value("${prediction.limiter.lane.backfill.capacity:1024}") int backfillCapacity,
+                                        @Value("${prediction.limiter.lane.backfill.max-wait-millis:60000}") long backfillMaxWaitMillis) {
+        this(meterRegistry, enabled, initialLimit, minLimit, maxLimit, backoffRatio, rttTolerance, minRttResetSamples, Map.of(
+                PredictionLane.CREATE, new LaneSettings(createWeight, createCapacity, Duration.ofMillis(createMaxWaitMillis)),
+                PredictionLane.EDIT, new LaneSettings(editWeight, editCapacity, Duration.ofMillis(editMaxWaitMillis)),
+                PredictionLane.BACKFILL, new LaneSettings(backfillWeight, backfillCapacity, Duration.ofMillis(backfillMaxWaitMillis))),
+                System::nanoTime);
+    }
+
+    PredictionConcurrencyLimiter(MeterRegistry meterRegistry, boolean enabled, int initialLimit, int minLimit,
+                                 int maxLimit, double backoffRatio, double rttTolerance, int minRttResetSamples,
+                                 Map<PredictionLane, LaneSettings> settings, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.rttTolerance = rttTolerance;
+        this.minRttResetSamples = minRttResetSamples;
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        for(PredictionLane lane : PredictionLane.values()){
+            lanes.put(lane, new Lane(settings.get(lane),
+                    Timer.builder("sentiment.prediction.limiter.queue.time")
+                            .tag("lane", lane.name())
+                            .register(meterRegistry),
+                    Counter.builder("sentiment.prediction.limiter.shed")
+                            .tag("lane", lane.name())
+                            .register(meterRegistry)));
+            Gauge.builder("sentiment.prediction.limiter.queued", this, limiter -> limiter.getDepth(lane))
+                    .tag("lane", lane.name())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("sentiment.prediction.limiter.limit", this, PredictionConcurrencyLimiter::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("sentiment.prediction.limiter.inflight", this, PredictionConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+    }
+
+    public static Function<Context, Context> withLane(PredictionLane lane){
+        return context -> context.put(LANE_KEY, lane);
+    }
+
+    public <T> Mono<T> execute(Supplier<Mono<T>> call){
+
+        if(!enabled){
+            return Mono.defer(call);
+        }
+
+        return Mono.deferContextual(context -> Mono.usingWhen(
+                acquire(lanes.get(context.getOrDefault(LANE_KEY, PredictionLane.CREATE))),
+                permit -> call.get()
+                        .doOnSuccess(result -> onSample(nanoClock.getAsLong() - permit.startedAt, false))
+                        .doOnError(e -> {
+                            // 서킷 차단처럼 Flask 까지 가지 않은 실패는 응답 시간 표본으로 쓰지 않음
+                            if(!(e instanceof PredictionUnavailableException)){
+                                onSample(nanoClock.getAsLong() - permit.startedAt, PredictionErrors.isServerSide(e));
+                            }
+                        }),
+                permit -> Mono.fromRunnable(permit::release),
+                (permit, e) -> Mono.fromRunnable(permit::release),
+                permit -> Mono.fromRunnable(permit::release)));
+    }
+
+    public synchronized double getLimit(){
+        return limit;
+    }
+
+    public synchronized int getInFlight(){
+        return inFlight;
+    }
+
+    public synchronized int getDepth(PredictionLane lane){
+        return lanes.get(lane).waiters.size();
+    }
+
+    public synchronized int getQueued(){
+
+        int queued = 0;
+        for(Lane lane : lanes.values()){
+            queued += lane.waiters.size();
+        }
+        return queued;
+    }
+
+    // 지금 줄을 선 요청이 permit 을 받기까지 예상되는 시간 (평균 처리 시간 x 대기 수 / 동시 처리 한도)
+    public synchronized long getEstimatedDelayMillis(){
+
+        return (long) (averageServiceNanos * getQueued() / Math.max(1, (int) limit) / 1_000_000);
+    }
+
+    private Mono<Permit> acquire(Lane lane){
+
+        long enqueuedAt = nanoClock.getAsLong();
+
+        Mono<Permit> permit = Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            synchronized (this){
+                if(inFlight < (int) limit && isIdle()){
+                    inFlight++;
+                    waiter.granted = true;
+                } else if(lane.waiters.size() >= lane.settings.capacity()){
+                    waiter = null;
+                } else {
+                    lane.waiters.addLast(waiter);
+                }
+            }
+
+            if(waiter == null){
+                lane.shed.increment();
+                sink.error(new PredictionUnavailableException(PREDICTION_LIMIT_EXCEEDED));
+            } else if(waiter.granted){
+                sink.success(new Permit(nanoClock.getAsLong()));
+            } else {
+                Waiter queued = waiter;
+                sink.onCancel(() -> cancelWaiting(lane, queued));
+            }
+        });
+
+        return permit
+                .timeout(lane.settings.maxWait())
+                .onErrorMap(TimeoutException.class, e -> {
+                    lane.shed.increment();
+                    return new PredictionUnavailableException(PREDICTION_LIMIT_EXCEEDED);
+                })
+                .doOnNext(granted -> lane.queueTimer.record(granted.startedAt - enqueuedAt, TimeUnit.NANOSECONDS));
+    }
+
+    // 대기열이 비어 있을 때만 바로 통과시켜 먼저 기다린 요청을 앞지르지 않도록 함
+    private boolean isIdle(){
+
+        for(Lane lane : lanes.values()){
+            if(!lane.waiters.isEmpty()){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void cancelWaiting(Lane lane, Waiter waiter){
+
+        Permit permit;
+        synchronized (this){
+            if(!waiter.granted){
+                lane.waiters.remove(waiter);
+                return;
+            }
+            permit = waiter.permit;
+        }
+        permit.release();
+    }
+
+    private void release(long serviceNanos){
+
+        synchronized (this){
+            inFlight--;
+            averageServiceNanos = averageServiceNanos == 0
+                    ? serviceNanos
+                    : averageServiceNanos + SERVICE_TIME_WEIGHT * (serviceNanos - averageServiceNanos);
+        }
+        grantWaiters();
+    }
+
+    private void grantWaiters(){
+
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this){
+            Lane lane;
+            while(inFlight < (int) limit && (lane = nextLane()) != null){
+                Waiter waiter = lane.waiters.pollFirst();
+                if(lane.waiters.isEmpty()){
+                    lane.currentWeight = 0;
+                }
+                waiter.granted = true;
+                waiter.permit = new Permit(nanoClock.getAsLong());
+                inFlight++;
+                granted.add(waiter);
+            }
+        }
+        granted.forEach(waiter -> waiter.sink.success(waiter.permit));
+    }
+
+    private void onSample(long rttNanos, boolean dropped){
+
+        synchronized (this){
+            adjustLimit(rttNanos, dropped);
+        }
+        grantWaiters();
+    }
+
+    private void adjustLimit(long rttNanos, boolean dropped){
+
+        if(++samplesSinceReset >= minRttResetSamples){
+            minRttNanos = rttNanos;
+            samplesSinceReset = 0;
+        } else if(!dropped){
+            minRttNanos = Math.min(minRttNanos, rttNanos);
+        }
+
+        if(dropped || rttNanos > minRttNanos * rttTolerance){
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if(inFlight * 2 >= limit){
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    // smooth weighted round robin: 대기 중인 lane 마다 가중치를 더하고 가장 큰 lane 을 고른 뒤 전체 가중치만큼 뺀다
+    private Lane nextLane(){
+
+        Lane selected = null;
+        int totalWeight = 0;
+        for(Lane lane : lanes.values()){
+            if(lane.waiters.isEmpty()){
+                continue;
+            }
+            lane.currentWeight += lane.settings.weight();
+            totalWeight += lane.settings.weight();
+            if(selected == null || lane.currentWeight > selected.currentWeight){
+                selected = lane;
+            }
+        }
+        if(selected != null){
+            selected.currentWeight -= totalWeight;
+        }
+        return selected;
+    }
+
+    record LaneSettings(int weight, int capacity, Duration maxWait) {
+    }
+
+    private static class Lane {
+
+        private final LaneSettings settings;
+        private final Timer queueTimer;
+        private final Counter shed;
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+        private int currentWeight;
+
+        private Lane(LaneSettings settings, Timer queueTimer, Counter shed) {
+            this.settings = settings;
+            this.queueTimer = queueTimer;
+            this.shed = shed;
+        }
+    }
+
+    private static class Waiter {
+
+        private final MonoSink<Permit> sink;
+        private boolean granted;
+        private Permit permit;
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+
+    private class Permit {
+
+        private final long startedAt;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        private void release(){
+            if(released.compareAndSet(false, true)){
+                PredictionConcurrencyLimiter.this.release(nanoClock.getAsLong() - startedAt);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.springboot.webflux.service;
+
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+public final class PredictionErrors {
+
+    private PredictionErrors() {
+    }
+
+    public static boolean isServerSide(Throwable e){
+
+        if(e instanceof WebClientResponseException responseException){
+            return responseException.getStatusCode().is5xxServerError()
+                    || responseException.getRawStatusCode() == 429;
+        }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
+    }
+
+    // 같은 요청을 다시 보내면 성공할 수 있는 실패 (응답 본문을 읽다 연결이 끊긴 경우 포함)
+    public static boolean isRetryable(Throwable e){
+
+        return isServerSide(e) || e instanceof IOException;
+    }
+}
@@ -0,0 +1,98 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.entity.Member;
+import com.springboot.webflux.entity.Post;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// post / member 단위 topic 으로 예측 결과와 positiveRate 변경을 구독자에게 전달
+// 구독자마다 버퍼는 bufferSize 까지만 두고, 넘치면 버퍼에 쌓인 결과까지만 보내고 해당 구독자 스트림을 종료 (클라이언트가 재연결)
+@Service
+public class PredictionEventHub {
+
+    private final Map<Long, Topic<Post>> postTopics = new ConcurrentHashMap<>();
+    private final Map<Long, Topic<Member>> memberTopics = new ConcurrentHashMap<>();
+    private final int bufferSize;
+
+    private final Counter droppedSubscribers;
+
+    public PredictionEventHub(MeterRegistry meterRegistry,
+                              @Value("${prediction.stream.buffer-size:16}") int bufferSize) {
+        this.bufferSize = bufferSize;
+        this.droppedSubscribers = meterRegistry.counter("sentiment.prediction.stream.dropped");
+        meterRegistry.gaugeMapSize("sentiment.prediction.stream.topics", Tags.of("topic", "post"), postTopics);
+        meterRegistry.gaugeMapSize("sentiment.prediction.stream.topics", Tags.of("topic", "member"), memberTopics);
+    }
+
+    public Flux<Post> postEvents(Long postId){
+        return subscribe(postTopics, postId);
+    }
+
+    public Flux<Member> memberEvents(Long memberId){
+        return subscribe(memberTopics, memberId);
+    }
+
+    public void publishPost(Post post){
+        publish(postTopics, post.getPostId(), post);
+    }
+
+    public void publishMember(Member member){
+        publish(memberTopics, member.getMemberId(), member);
+    }
+
+    public boolean hasMemberSubscribers(Long memberId){
+        return memberTopics.containsKey(memberId);
+    }
+
+    int getTopicCount(){
+        return postTopics.size() + memberTopics.size();
+    }
+
+    // 구독자 수 증감을 compute 안에서 처리해 topic 제거와 새 구독이 엇갈리지 않도록 함
+    private <T> Flux<T> subscribe(Map<Long, Topic<T>> topics, Long id){
+
+        return Flux.defer(() -> {
+            Topic<T> topic = topics.compute(id, (key, existing) -> {
+                Topic<T> current = existing == null ? new Topic<>() : existing;
+                current.subscribers++;
+                return current;
+            });
+
+            return topic.sink.asFlux()
+                    .onBackpressureBuffer(bufferSize, dropped -> {}, BufferOverflowStrategy.ERROR)
+                    .onErrorResume(Exceptions::isOverflow, e -> {
+                        droppedSubscribers.increment();
+                        return Flux.empty();
+                    })
+                    .doFinally(signal -> topics.computeIfPresent(id,
+                            (key, current) -> --current.subscribers == 0 ? null : current));
+        });
+    }
+
+    private <T> void publish(Map<Long, Topic<T>> topics, Long id, T event){
+
+        Topic<T> topic = topics.get(id);
+        if(topic == null){
+            return;
+        }
+        while(topic.sink.tryEmitNext(event) == Sinks.EmitResult.FAIL_NON_SERIALIZED){
+            Thread.onSpinWait();
+        }
+    }
+
+    private static final class Topic<T> {
+
+        private final Sinks.Many<T> sink = Sinks.many().multicast().directBestEffort();
+        private int subscribers;
+    }
+}
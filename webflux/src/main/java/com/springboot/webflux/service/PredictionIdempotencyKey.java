@@ -0,0 +1,31 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.constants.PredictionTarget;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// 분석 결과를 회원 통계에 반영할 때 쓰는 키: 대상 + id + 내용 해시
+// 재시도나 outbox 재처리로 같은 내용의 분석이 다시 들어와도 키가 같으면 한 번만 반영
+public final class PredictionIdempotencyKey {
+
+    private PredictionIdempotencyKey() {
+    }
+
+    public static String of(PredictionTarget target, Long targetId, String contents){
+
+        return target.name() + ":" + targetId + ":" + sha256(contents);
+    }
+
+    private static String sha256(String contents){
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(contents.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.constants.PredictionJobStatus;
+import com.springboot.webflux.entity.PredictionJob;
+import com.springboot.webflux.exception.PredictionUnavailableException;
+import com.springboot.webflux.repository.PredictionJobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class PredictionJobDrainer {
+
+    private final PredictionJobRepository predictionJobRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final PostPredictionService postPredictionService;
+    private final CommentPredictionService commentPredictionService;
+    private final PredictionPipeline predictionPipeline;
+    private final PredictionCircuitBreaker predictionCircuitBreaker;
+
+    private final int batchSize;
+    private final int concurrency;
+    private final int maxAttempts;
+    private final int maxRequeues;
+    private final Duration pollInterval;
+    private final Duration claimTimeout;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final String owner;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter completedCounter;
+    private final Counter failedCounter;
+
+    private Disposable subscription;
+
+    public PredictionJobDrainer(PredictionJobRepository predictionJobRepository,
+                                TransactionalOperator transactionalOperator,
+                                PostPredictionService postPredictionService,
+                                CommentPredictionService commentPredictionService,
+                                PredictionPipeline predictionPipeline,
+                                PredictionCircuitBreaker predictionCircuitBreaker,
+                                MeterRegistry meterRegistry,
+                                @Value("${prediction.outbox.batch-size:32}") int batchSize,
+                                @Value("${prediction.async.concurrency:16}") int concurrency,
+                                @Value("${prediction.outbox.max-attempts:5}") int maxAttempts,
+                                @Value("${prediction.outbox.poll-interval-millis:1000}") long pollIntervalMillis,
+                                @Value("${prediction.outbox.claim-timeout-seconds:300}") long claimTimeoutSeconds,
+                                @Value("${prediction.outbox.backoff-base-millis:1000}") long backoffBaseMillis,
+                                @Value("${prediction.outbox.backoff-max-millis:300000}") long backoffMaxMillis,
+                                @Value("${prediction.outbox.max-requeues:20}") int maxRequeues) {
+        this.predictionJobRepository = predictionJobRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.postPredictionService = postPredictionService;
+        this.commentPredictionService = commentPredictionService;
+        this.predictionPipeline = predictionPipeline;
+        this.predictionCircuitBreaker = predictionCircuitBreaker;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+        this.maxRequeues = maxRequeues;
+        this.pollInterval = Duration.ofMillis(pollIntervalMillis);
+        this.claimTimeout = Duration.ofSeconds(claimTimeoutSeconds);
+        this.backoffBase = Duration.ofMillis(backoffBaseMillis);
+        this.backoffMax = Duration.ofMillis(backoffMaxMillis);
+        this.owner = hostName() + "-" + UUID.randomUUID();
+        this.completedCounter = Counter.builder("sentiment.prediction.outbox.completed")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("sentiment.prediction.outbox.failed")
+                .register(meterRegistry);
+        meterRegistry.gauge("sentiment.prediction.outbox.inflight", inFlight);
+    }
+
+    @PostConstruct
+    public void start(){
+
+        subscription = Flux.merge(Flux.interval(Duration.ZERO, pollInterval), predictionPipeline.wakeUps())
+                .onBackpressureDrop()
+                .concatMap(tick -> drain(), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop(){
+
+        if(subscription != null){
+            subscription.dispose();
+        }
+    }
+
+    public Mono<Void> drain(){
+
+        return drainBatch()
+                .repeat()
+                .takeWhile(claimed -> claimed == batchSize)
+                .then()
+                .doOnError(e -> log.warn("prediction job drain failed", e))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private Mono<Integer> drainBatch(){
+
+        return claim()
+                .flatMap(jobs -> Flux.fromIterable(jobs)
+                        .flatMap(this::process, concurrency)
+                        .reduce(true, (settled, processed) -> settled && processed)
+                        .map(settled -> settled ? jobs.size() : 0));
+    }
+
+    private Mono<List<PredictionJob>> claim(){
+
+        return Mono.defer(() -> {
+            if(!predictionCircuitBreaker.isCallPermitted()){
+                return Mono.just(List.of());
+            }
+            LocalDateTime now = LocalDateTime.now();
+
+            return transactionalOperator.transactional(predictionJobRepository
+                    .findClaimable(now, now.minus(claimTimeout), batchSize)
+                    .collectList()
+                    .flatMap(jobs -> {
+                        if(jobs.isEmpty()){
+                            return Mono.just(jobs);
+                        }
+                        List<Long> jobIds = jobs.stream()
+                                .map(PredictionJob::getJobId)
+                                .collect(Collectors.toList());
+                        return predictionJobRepository.claim(jobIds, owner, now).thenReturn(jobs);
+                    }));
+        });
+    }
+
+    private Mono<Boolean> process(PredictionJob job){
+
+        return Mono.defer(() -> {
+                    inFlight.incrementAndGet();
+                    return handle(job);
+                })
+                .then(Mono.defer(() -> predictionJobRepository.markDone(job.getJobId(), LocalDateTime.now())))
+                .doOnSuccess(updated -> completedCounter.increment())
+                .thenReturn(true)
+                .onErrorResume(e -> fail(job, e))
+                .doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    private Mono<Void> handle(PredictionJob job){
+
+        return switch (job.getTarget()){
+            case POST -> postPredictionService.processPredictionJob(job);
+            case COMMENT -> commentPredictionService.processPredictionJob(job);
+        };
+    }
+
+    // 실패한 job 은 바로 다시 점유하지 않고 지수적으로 늘어나는 간격 뒤에 다시 시도
+    // 분석 서버를 쓸 수 없어 거절된 job 은 시도 횟수를 늘리지 않지만 max-requeues 번을 넘기면 한 번의 실패로 셈
+    private Mono<Boolean> fail(PredictionJob job, Throwable e){
+
+        if(e instanceof PredictionUnavailableException && job.getRequeues() + 1 < maxRequeues){
+            return predictionJobRepository.requeue(job.getJobId(), nextAttemptAt(job.getRequeues()))
+                    .thenReturn(false);
+        }
+
+        log.warn("prediction job {} failed (attempt {})", job.getJobId(), job.getAttempts() + 1, e);
+
+        if(job.getAttempts() + 1 < maxAttempts){
+            return predictionJobRepository.release(job.getJobId(), PredictionJobStatus.PENDING.name(),
+                            nextAttemptAt(job.getAttempts()))
+                    .thenReturn(true);
+        }
+
+        failedCounter.increment();
+        Mono<Void> markTargetFailed = switch (job.getTarget()){
+            case POST -> postPredictionService.markPredictionFailed(job.getTargetId());
+            case COMMENT -> commentPredictionService.markPredictionFailed(job.getTargetId());
+        };
+        return predictionJobRepository.release(job.getJobId(), PredictionJobStatus.FAILED.name(), null)
+                .then(markTargetFailed)
+                .thenReturn(true);
+    }
+
+    private LocalDateTime nextAttemptAt(int retries){
+
+        Duration backoff = backoffBase.multipliedBy(1L << Math.min(retries, 20));
+        return LocalDateTime.now().plus(backoff.compareTo(backoffMax) < 0 ? backoff : backoffMax);
+    }
+
+    private static String hostName(){
+
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e){
+            return "unknown";
+        }
+    }
+}
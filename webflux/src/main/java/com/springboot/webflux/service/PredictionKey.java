@@ -0,0 +1,33 @@
+package com.springboot.webflux.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+public final class PredictionKey {
+
+    private final static Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    private PredictionKey() {
+    }
+
+    public static String normalize(String contents){
+
+        String normalized = Normalizer.normalize(contents, Normalizer.Form.NFC).strip();
+        return WHITESPACES.matcher(normalized).replaceAll(" ");
+    }
+
+    public static String of(String contents){
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(normalize(contents).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+    }
+}
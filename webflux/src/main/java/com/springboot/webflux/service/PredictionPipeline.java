@@ -0,0 +1,51 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.constants.PredictionTarget;
+import com.springboot.webflux.dto.PredictionCompletion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+@Service
+public class PredictionPipeline {
+
+    private final boolean asyncEnabled;
+
+    private final Sinks.Many<Boolean> wakeUps = Sinks.many().multicast().directBestEffort();
+    private final Sinks.Many<PredictionCompletion> completions = Sinks.many().multicast().directBestEffort();
+
+    public PredictionPipeline(@Value("${prediction.async.enabled:false}") boolean asyncEnabled) {
+        this.asyncEnabled = asyncEnabled;
+    }
+
+    public boolean isAsyncEnabled(){
+        return asyncEnabled;
+    }
+
+    public void wakeUp(){
+        emit(wakeUps, Boolean.TRUE);
+    }
+
+    public Flux<Boolean> wakeUps(){
+        return wakeUps.asFlux();
+    }
+
+    public void complete(PredictionTarget target, Long targetId){
+        emit(completions, new PredictionCompletion(target, targetId));
+    }
+
+    public Flux<PredictionCompletion> completions(PredictionTarget target, Long targetId){
+        return completions.asFlux()
+                .filter(completion -> completion.matches(target, targetId));
+    }
+
+    private static <T> Sinks.EmitResult emit(Sinks.Many<T> sink, T value){
+
+        Sinks.EmitResult result;
+        while((result = sink.tryEmitNext(value)) == Sinks.EmitResult.FAIL_NON_SERIALIZED){
+            Thread.onSpinWait();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+package com.springboot.webflux.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springboot.webflux.dto.PredictionResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+@Service
+public class PredictionResultCache {
+
+    private final boolean enabled;
+    private final Cache<String, PredictionResult> cache;
+    private final AtomicReference<String> modelVersion = new AtomicReference<>();
+
+    public PredictionResultCache(MeterRegistry meterRegistry,
+                                 @Value("${prediction.cache.enabled:true}") boolean enabled,
+                                 @Value("${prediction.cache.max-size:10000}") long maxSize,
+                                 @Value("${prediction.cache.ttl-minutes:60}") long ttlMinutes) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "sentimentPredictionResult");
+    }
+
+    public Mono<PredictionResult> getOrAnalyze(String contents, Function<String, Mono<PredictionResult>> analyzer){
+
+        if(!enabled){
+            return analyzer.apply(contents);
+        }
+
+        return Mono.defer(() -> {
+            String key = PredictionKey.of(contents);
+
+            PredictionResult cached = cache.getIfPresent(key);
+            if(cached != null){
+                return Mono.just(cached);
+            }
+            return analyzer.apply(contents)
+                    .doOnNext(result -> put(key, result));
+        });
+    }
+
+    public void invalidateAll(){
+        cache.invalidateAll();
+    }
+
+    private void put(String key, PredictionResult result){
+
+        String resultModelVersion = result.modelVersion();
+        if(resultModelVersion != null){
+            String previousModelVersion = modelVersion.getAndSet(resultModelVersion);
+            if(previousModelVersion != null && !Objects.equals(previousModelVersion, resultModelVersion)){
+                cache.invalidateAll();
+            }
+        }
+        cache.put(key, result);
+    }
+}
@@ -0,0 +1,74 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.exception.PredictionUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_DEADLINE_EXCEEDED;
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_RETRY_EXHAUSTED;
+
+// 일시적인 실패(5xx, 429, 연결 끊김, 시간 초과)만 지수 backoff + jitter 로 다시 시도
+// 전체 시도는 deadline 안에서 끝나야 하며, 끝내 실패하면 PredictionUnavailableException 으로 바꿔 outbox 로 넘어가게 함
+@Service
+public class PredictionRetry {
+
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double jitter;
+    private final Duration deadline;
+
+    private final Counter retried;
+    private final Counter exhausted;
+    private final Counter deadlineExceeded;
+
+    public PredictionRetry(MeterRegistry meterRegistry,
+                           @Value("${prediction.retry.enabled:true}") boolean enabled,
+                           @Value("${prediction.retry.max-attempts:3}") int maxAttempts,
+                           @Value("${prediction.retry.initial-backoff-millis:100}") long initialBackoffMillis,
+                           @Value("${prediction.retry.max-backoff-millis:2000}") long maxBackoffMillis,
+                           @Value("${prediction.retry.jitter:0.5}") double jitter,
+                           @Value("${prediction.retry.deadline-millis:20000}") long deadlineMillis) {
+        this.enabled = enabled;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMillis);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+        this.jitter = jitter;
+        this.deadline = Duration.ofMillis(deadlineMillis);
+        this.retried = meterRegistry.counter("sentiment.prediction.retry.attempts");
+        this.exhausted = meterRegistry.counter("sentiment.prediction.retry.exhausted");
+        this.deadlineExceeded = meterRegistry.counter("sentiment.prediction.retry.deadline.exceeded");
+    }
+
+    public <T> Mono<T> execute(Supplier<Mono<T>> call){
+
+        if(!enabled){
+            return Mono.defer(call);
+        }
+
+        return Mono.defer(call)
+                .retryWhen(Retry.backoff(maxAttempts - 1, initialBackoff)
+                        .maxBackoff(maxBackoff)
+                        .jitter(jitter)
+                        .filter(PredictionErrors::isRetryable)
+                        .doBeforeRetry(signal -> retried.increment())
+                        .onRetryExhaustedThrow((spec, signal) -> {
+                            exhausted.increment();
+                            return new PredictionUnavailableException(PREDICTION_RETRY_EXHAUSTED);
+                        }))
+                .timeout(deadline)
+                .onErrorMap(TimeoutException.class, e -> {
+                    deadlineExceeded.increment();
+                    return new PredictionUnavailableException(PREDICTION_DEADLINE_EXCEEDED);
+                });
+    }
+}
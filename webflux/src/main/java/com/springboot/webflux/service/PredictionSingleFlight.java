@@ -0,0 +1,49 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.dto.PredictionResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+@Service
+public class PredictionSingleFlight {
+
+    private final boolean enabled;
+    private final Map<String, Mono<PredictionResult>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter sharedCounter;
+
+    public PredictionSingleFlight(MeterRegistry meterRegistry,
+                                  @Value("${prediction.single-flight.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        this.sharedCounter = Counter.builder("sentiment.prediction.singleflight.shared")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("sentiment.prediction.singleflight.inflight", null, inFlight);
+    }
+
+    public Mono<PredictionResult> execute(String contents, Function<String, Mono<PredictionResult>> analyzer){
+
+        if(!enabled){
+            return analyzer.apply(contents);
+        }
+
+        return Mono.defer(() -> {
+            String key = PredictionKey.of(contents);
+
+            Mono<PredictionResult> pending = inFlight.get(key);
+            if(pending != null){
+                sharedCounter.increment();
+                return pending;
+            }
+            return inFlight.computeIfAbsent(key, k -> analyzer.apply(contents)
+                    .doOnTerminate(() -> inFlight.remove(k))
+                    .cache());
+        });
+    }
+}
@@ -0,0 +1,180 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.entity.Member;
+import com.springboot.webflux.entity.SentimentEvent;
+import com.springboot.webflux.repository.MemberRepository;
+import com.springboot.webflux.repository.SentimentEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+// 원장(sentiment_event)을 다시 읽어 회원 집계(activity_count, positive_count)를 새로 계산
+// 회원도 원장도 keyset 으로 page-size 만큼씩 읽으므로 회원 수, 이벤트 수와 상관없이 메모리는 page 하나 분량만 씀
+//
+// 회원 page 마다
+// 1. 지금까지의 마지막 event_id(W)를 읽고 settle 시간만큼 기다림
+//    W 보다 작은 event_id 를 받았지만 아직 커밋되지 않았던 트랜잭션이 그 사이 끝나 합산에 들어감
+// 2. 회원마다 event_id <= W 인 이벤트를 합산
+// 3. member.sentiment_event_id <= W 일 때만 집계를 덮어쓰고 sentiment_rebuilt_event_id 를 W 로 남김
+//    그 사이 W 이후 이벤트가 flush 되어 watermark 가 W 를 넘었으면 덮어쓰지 않고 새 W 로 다시 계산
+//
+// 어느 인스턴스의 메모리에 남아 있던 증감이든 flush 때 마지막 event_id 가 sentiment_rebuilt_event_id 이하면 건너뛰므로
+// 늦게 도착한 커밋 후 반영(afterCommit)도 두 번 더해지지 않고, W 이후 이벤트도 빠지지 않음
+// 단, W 이전과 이후 증감이 한 회원의 같은 flush 에 섞이면 함께 더해지므로 쓰기가 적은 시간에 실행하는 편이 정확함
+// 원장을 만들기 전의 분석 결과는 SchemaMigrationPopulator 가 원장에 채우며, 채우기 전에는 다시 계산하지 않음
+@Slf4j
+@Service
+public class SentimentAggregateRebuilder {
+
+    private final SentimentEventRepository sentimentEventRepository;
+    private final MemberRepository memberRepository;
+    private final MemberSentimentAggregator memberSentimentAggregator;
+    private final MemberSentimentLeaderboard memberSentimentLeaderboard;
+
+    private final int pageSize;
+    private final int maxConflictRetries;
+    private final Duration settleTime;
+    private final boolean rebuildOnStartup;
+    private final List<Long> startupMemberIds;
+
+    private final Counter rebuiltMembers;
+    private final Counter conflicts;
+
+    public SentimentAggregateRebuilder(SentimentEventRepository sentimentEventRepository,
+                                       MemberRepository memberRepository,
+                                       MemberSentimentAggregator memberSentimentAggregator,
+                                       MemberSentimentLeaderboard memberSentimentLeaderboard,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${prediction.ledger.page-size:500}") int pageSize,
+                                       @Value("${prediction.ledger.rebuild.max-conflict-retries:3}") int maxConflictRetries,
+                                       @Value("${prediction.ledger.rebuild.settle-millis:2000}") long settleMillis,
+                                       @Value("${prediction.ledger.rebuild.on-startup:false}") boolean rebuildOnStartup,
+                                       @Value("${prediction.ledger.rebuild.member-ids:}") List<Long> startupMemberIds) {
+        this.sentimentEventRepository = sentimentEventRepository;
+        this.memberRepository = memberRepository;
+        this.memberSentimentAggregator = memberSentimentAggregator;
+        this.memberSentimentLeaderboard = memberSentimentLeaderboard;
+        this.pageSize = pageSize;
+        this.maxConflictRetries = maxConflictRetries;
+        this.settleTime = Duration.ofMillis(settleMillis);
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.startupMemberIds = startupMemberIds;
+        this.rebuiltMembers = meterRegistry.counter("sentiment.ledger.rebuild.members");
+        this.conflicts = meterRegistry.counter("sentiment.ledger.rebuild.conflicts");
+    }
+
+    // schema.sql 이 적용된 뒤에 실행되도록 ApplicationReadyEvent 에서 시작
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup(){
+
+        if(!rebuildOnStartup){
+            return;
+        }
+        Mono<Long> rebuild = startupMemberIds.isEmpty()
+                ? rebuildAll()
+                : rebuild(Flux.fromIterable(startupMemberIds));
+        rebuild.subscribe(
+                count -> log.info("rebuilt sentiment counts of {} members", count),
+                e -> log.warn("sentiment count rebuild failed", e));
+    }
+
+    // 전체 회원을 member_id 순서로 page-size 만큼씩 읽어 차례로 다시 계산
+    public Mono<Long> rebuildAll(){
+
+        Flux<Long> memberIds = memberRepository.findIdsAfter(0L, pageSize)
+                .collectList()
+                .expand(page -> page.size() < pageSize
+                        ? Mono.empty()
+                        : memberRepository.findIdsAfter(page.get(page.size() - 1), pageSize).collectList())
+                .concatMapIterable(page -> page);
+        return rebuild(memberIds);
+    }
+
+    // 다시 계산한 회원 수
+    public Mono<Long> rebuild(Flux<Long> memberIds){
+
+        return requireBackfill()
+                .thenMany(memberIds.buffer(pageSize))
+                .concatMap(page -> settledEventId()
+                        .flatMapMany(upToEventId -> Flux.fromIterable(page)
+                                .concatMap(memberId -> rebuildMember(memberId, upToEventId, 0))))
+                .count();
+    }
+
+    private Mono<Void> requireBackfill(){
+
+        return sentimentEventRepository.countBackfill()
+                .filter(count -> count > 0)
+                .switchIfEmpty(Mono.error(new IllegalStateException(
+                        "sentiment_event has not been backfilled from post / comment yet")))
+                .then();
+    }
+
+    private Mono<Long> settledEventId(){
+
+        return sentimentEventRepository.findLastEventId()
+                .delayElement(settleTime);
+    }
+
+    private Mono<Long> rebuildMember(Long memberId, Long upToEventId, int attempt){
+
+        return sumEvents(memberId, upToEventId)
+                .flatMap(counts -> memberRepository.overwriteSentimentCounts(memberId, counts[0], counts[1], upToEventId)
+                        .doOnNext(updated -> {
+                            if(updated > 0){
+                                refreshLeaderboard(memberId, counts, upToEventId);
+                            }
+                        }))
+                .flatMap(updated -> {
+                    if(updated > 0){
+                        rebuiltMembers.increment();
+                        return Mono.just(memberId);
+                    }
+                    conflicts.increment();
+                    if(attempt >= maxConflictRetries){
+                        log.warn("gave up rebuilding sentiment counts of member {} after {} conflicts", memberId, attempt + 1);
+                        return Mono.empty();
+                    }
+                    return settledEventId().flatMap(next -> rebuildMember(memberId, next, attempt + 1));
+                });
+    }
+
+    // 덮어쓴 뒤에도 메모리에 남아 있는 W 이후 증감을 더해 순위 index 도 맞춤
+    private void refreshLeaderboard(Long memberId, long[] counts, Long upToEventId){
+
+        Member rebuilt = memberSentimentAggregator.withPending(Member.builder()
+                .memberId(memberId)
+                .activityCount(counts[0])
+                .positiveCount(counts[1])
+                .build(), upToEventId);
+        memberSentimentLeaderboard.put(memberId, rebuilt.getActivityCount(), rebuilt.getPositiveCount());
+    }
+
+    // [activity_count, positive_count]
+    private Mono<long[]> sumEvents(Long memberId, Long upToEventId){
+
+        return sentimentEventRepository.findPage(memberId, 0L, upToEventId, pageSize)
+                .collectList()
+                .expand(page -> page.size() < pageSize
+                        ? Mono.empty()
+                        : sentimentEventRepository.findPage(memberId, page.get(page.size() - 1).getEventId(),
+                                upToEventId, pageSize).collectList())
+                .reduce(new long[2], (counts, page) -> {
+                    for(SentimentEvent event : page){
+                        counts[0] += event.getDelta();
+                        counts[1] += event.getPositive() ? event.getDelta() : 0;
+                    }
+                    return counts;
+                })
+                .map(counts -> new long[]{Math.max(counts[0], 0), Math.max(counts[1], 0)});
+    }
+}
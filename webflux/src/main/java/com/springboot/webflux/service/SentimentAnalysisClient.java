@@ -0,0 +1,276 @@
+package com.springboot.webflux.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.springboot.webflux.dto.BatchPredictionRequest;
+import com.springboot.webflux.dto.PredictionCallbackRequest;
+import com.springboot.webflux.dto.PredictionRequest;
+import com.springboot.webflux.dto.PredictionResult;
+import com.springboot.webflux.dto.PredictionSubject;
+import com.springboot.webflux.exception.PredictionParseException;
+import com.springboot.webflux.security.SentimentAnalysisTokenManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.springboot.webflux.constants.ExceptionStatus.BATCH_RESULT_MISMATCH;
+
+@Service
+public class SentimentAnalysisClient {
+
+    private final SentimentAnalysisLoadBalancer sentimentAnalysisLoadBalancer;
+    private final SentimentVocabulary sentimentVocabulary;
+    private final PredictionCallbackRegistry predictionCallbackRegistry;
+    private final CeleryPredictionTransport celeryPredictionTransport;
+    private final boolean encodingEnabled;
+    private final boolean callbackEnabled;
+    private final String callbackUrl;
+    private final WireFormat wireFormat;
+    private final ObjectReader predictionResultReader;
+    private final ObjectReader batchPredictionResultReader;
+    private final ObjectReader cborPredictionResultReader;
+    private final ObjectReader cborBatchPredictionResultReader;
+    private final ObjectWriter cborWriter;
+
+    private final static String PREDICTION_URI = "/api/analysis";
+    private final static String BATCH_PREDICTION_URI = "/api/analysis/batch";
+    private final static String MODEL_VERSION_HEADER = "X-Model-Version";
+    private final static int MAX_PAYLOAD_LENGTH = 1024;
+
+    public enum WireFormat {
+        JSON, CBOR
+    }
+
+    public SentimentAnalysisClient(SentimentAnalysisLoadBalancer sentimentAnalysisLoadBalancer,
+                                   SentimentVocabulary sentimentVocabulary,
+                                   PredictionCallbackRegistry predictionCallbackRegistry,
+                                   CeleryPredictionTransport celeryPredictionTransport,
+                                   ObjectMapper objectMapper,
+                                   @Value("${prediction.encoding.enabled:false}") boolean encodingEnabled,
+                                   @Value("${prediction.wire-format:json}") WireFormat wireFormat,
+                                   @Value("${prediction.callback.enabled:false}") boolean callbackEnabled,
+                                   @Value("${prediction.callback.url:}") String callbackUrl) {
+        this.sentimentAnalysisLoadBalancer = sentimentAnalysisLoadBalancer;
+        this.sentimentVocabulary = sentimentVocabulary;
+        this.predictionCallbackRegistry = predictionCallbackRegistry;
+        this.celeryPredictionTransport = celeryPredictionTransport;
+        this.callbackEnabled = callbackEnabled;
+        this.callbackUrl = callbackUrl;
+        this.encodingEnabled = encodingEnabled && sentimentVocabulary.isLoaded();
+        this.predictionResultReader = objectMapper.readerFor(PredictionResult.class);
+        this.batchPredictionResultReader = objectMapper.readerFor(new TypeReference<List<PredictionResult>>() {});
+        this.wireFormat = wireFormat;
+
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        this.cborPredictionResultReader = cborMapper.readerFor(PredictionResult.class);
+        this.cborBatchPredictionResultReader = cborMapper.readerFor(new TypeReference<List<PredictionResult>>() {});
+        this.cborWriter = cborMapper.writer();
+    }
+
+    public Mono<PredictionResult> analyze(String contents){
+
+        if(celeryPredictionTransport.isEnabled()){
+            Mono<JsonNode> result = encodingEnabled
+                    ? celeryPredictionTransport.submit(CeleryPredictionTransport.PREDICT_SEQUENCES_TASK,
+                            List.of(sentimentVocabulary.encodePadded(contents))).map(results -> results.get(0))
+                    : celeryPredictionTransport.submit(CeleryPredictionTransport.PREDICT_TASK, contents);
+            return result.map(json -> read(json, predictionResultReader));
+        }
+
+        PredictionRequest.PredictionRequestBuilder predictionRequest = encodingEnabled
+                ? PredictionRequest.builder().sequence(sentimentVocabulary.encodePadded(contents))
+                : PredictionRequest.builder().contents(contents);
+
+        if(callbackEnabled){
+            return Mono.deferContextual(context -> predictionCallbackRegistry.await(jobId -> submit(PREDICTION_URI,
+                            predictionRequest
+                                    .jobId(jobId)
+                                    .callbackUrl(callbackUrl)
+                                    .timeoutMillis(predictionCallbackRegistry.getTimeout().toMillis())
+                                    .subject(PredictionCallbackRegistry.subjectOf(context))
+                                    .build())))
+                    .map(callback -> resultsOf(callback, 1).get(0));
+        }
+
+        return send(PREDICTION_URI, predictionRequest.build())
+                .map(response -> this.<PredictionResult>decode(response, predictionResultReader, cborPredictionResultReader)
+                        .withModelVersion(modelVersionOf(response)));
+    }
+
+    // subjects 는 contents 와 같은 순서의 글/댓글 정보, 콜백 모드에서만 사용
+    public Mono<List<PredictionResult>> analyzeBatch(List<String> contents, List<PredictionSubject> subjects){
+
+        if(celeryPredictionTransport.isEnabled()){
+            Mono<JsonNode> results = encodingEnabled
+                    ? celeryPredictionTransport.submit(CeleryPredictionTransport.PREDICT_SEQUENCES_TASK,
+                            encodePadded(contents))
+                    : celeryPredictionTransport.submit(CeleryPredictionTransport.PREDICT_BATCH_TASK, contents);
+            return results.map(json -> read(json, batchPredictionResultReader));
+        }
+
+        BatchPredictionRequest.BatchPredictionRequestBuilder batchPredictionRequest = encodingEnabled
+                ? BatchPredictionRequest.builder().sequences(encodePadded(contents))
+                : BatchPredictionRequest.builder().contents(contents);
+
+        if(callbackEnabled){
+            return predictionCallbackRegistry.await(jobId -> submit(BATCH_PREDICTION_URI, batchPredictionRequest
+                            .jobId(jobId)
+                            .callbackUrl(callbackUrl)
+                            .timeoutMillis(predictionCallbackRegistry.getTimeout().toMillis())
+                            .subjects(subjects)
+                            .build()))
+                    .map(callback -> resultsOf(callback, contents.size()));
+        }
+
+        return send(BATCH_PREDICTION_URI, batchPredictionRequest.build())
+                .map(response -> withModelVersion(
+                        decode(response, batchPredictionResultReader, cborBatchPredictionResultReader),
+                        modelVersionOf(response)));
+    }
+
+    private List<PredictionResult> resultsOf(PredictionCallbackRequest callback, int expectedSize){
+
+        if(callback.getResults() == null || callback.getResults().size() != expectedSize){
+            throw new RuntimeException(BATCH_RESULT_MISMATCH.getMessage());
+        }
+        return withModelVersion(callback.getResults(), callback.getModelVersion());
+    }
+
+    private List<PredictionResult> withModelVersion(List<PredictionResult> decoded, String modelVersion){
+
+        List<PredictionResult> predictionResults = new ArrayList<>(decoded.size());
+        for(PredictionResult result : decoded){
+            predictionResults.add(result.withModelVersion(modelVersion));
+        }
+        return predictionResults;
+    }
+
+    private List<int[]> encodePadded(List<String> contents){
+
+        List<int[]> sequences = new ArrayList<>(contents.size());
+        for(String content : contents){
+            sequences.add(sentimentVocabulary.encodePadded(content));
+        }
+        return sequences;
+    }
+
+    private Mono<ResponseEntity<DataBuffer>> send(String uri, Object body){
+
+        return sentimentAnalysisLoadBalancer.execute(
+                replica -> withToken(replica.getTokenManager(), token -> post(replica, uri, body, token)));
+    }
+
+    // 콜백 모드에서는 접수 응답(202)만 확인하고 본문은 바로 해제
+    private Mono<Void> submit(String uri, Object body){
+
+        return send(uri, body)
+                .doOnNext(response -> {
+                    if(response.getBody() != null){
+                        DataBufferUtils.release(response.getBody());
+                    }
+                })
+                .then();
+    }
+
+    private Mono<ResponseEntity<DataBuffer>> post(SentimentAnalysisReplica replica, String uri, Object body, String token){
+
+        if(wireFormat == WireFormat.JSON || !replica.isBinarySupported()){
+            return postJson(replica.getWebClient(), uri, body, token);
+        }
+
+        // CBOR 을 모르는 flask 는 JSON 으로 다시 요청하고 이후로는 JSON 만 사용
+        return postCbor(replica.getWebClient(), uri, body, token)
+                .onErrorResume(WebClientResponseException.UnsupportedMediaType.class, e -> {
+                    replica.disableBinary();
+                    return postJson(replica.getWebClient(), uri, body, token);
+                });
+    }
+
+    private Mono<ResponseEntity<DataBuffer>> postJson(WebClient webClient, String uri, Object body, String token){
+
+        return webClient.post()
+                .uri(uri)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .bodyValue(body)
+                .retrieve()
+                .toEntity(DataBuffer.class);
+    }
+
+    private Mono<ResponseEntity<DataBuffer>> postCbor(WebClient webClient, String uri, Object body, String token){
+
+        return Mono.fromCallable(() -> cborWriter.writeValueAsBytes(body))
+                .flatMap(bytes -> webClient.post()
+                        .uri(uri)
+                        .accept(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .bodyValue(bytes)
+                        .retrieve()
+                        .toEntity(DataBuffer.class));
+    }
+
+    private <T> Mono<T> withToken(SentimentAnalysisTokenManager tokenManager, Function<String, Mono<T>> request){
+
+        return tokenManager.getToken()
+                .flatMap(token -> request.apply(token)
+                        .onErrorResume(WebClientResponseException.Unauthorized.class,
+                                e -> tokenManager.refreshToken(token).flatMap(request)));
+    }
+
+    private String modelVersionOf(ResponseEntity<DataBuffer> response){
+
+        return response.getHeaders().getFirst(MODEL_VERSION_HEADER);
+    }
+
+    private <T> T read(JsonNode result, ObjectReader reader){
+
+        try {
+            return reader.readValue(result);
+        } catch (IOException e){
+            throw new PredictionParseException(String.valueOf(result), e);
+        }
+    }
+
+    private <T> T decode(ResponseEntity<DataBuffer> response, ObjectReader jsonReader, ObjectReader cborReader){
+
+        MediaType contentType = response.getHeaders().getContentType();
+        ObjectReader reader = contentType != null && MediaType.APPLICATION_CBOR.isCompatibleWith(contentType)
+                ? cborReader
+                : jsonReader;
+
+        DataBuffer buffer = response.getBody();
+        if(buffer == null){
+            throw new PredictionParseException("", null);
+        }
+
+        int start = buffer.readPosition();
+        try {
+            return reader.readValue(buffer.asInputStream());
+        } catch (IOException e){
+            buffer.readPosition(start);
+            throw new PredictionParseException(
+                    buffer.toString(start, Math.min(buffer.readableByteCount(), MAX_PAYLOAD_LENGTH), StandardCharsets.UTF_8), e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.springboot.webflux.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.webflux.security.SentimentAnalysisTokenManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class SentimentAnalysisLoadBalancer {
+
+    public enum Strategy {
+        LEAST_OUTSTANDING,
+        POWER_OF_TWO
+    }
+
+    private final static long HEDGE_DELAY_REFRESH_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final List<SentimentAnalysisReplica> replicas;
+    private final Strategy strategy;
+    private final int failureThreshold;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final boolean hedgeEnabled;
+    private final long minHedgeDelayNanos;
+    private final long hedgeMinSamples;
+    private final LongSupplier nanoClock;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer latencyTimer;
+    private final Counter hedgeCounter;
+
+    private volatile long hedgeDelayNanos = -1;
+    private volatile long hedgeDelayComputedAt;
+
+    @Autowired
+    public SentimentAnalysisLoadBalancer(WebClient webClient,
+                                         ObjectMapper objectMapper,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${prediction.replicas:${server.base.address}}") List<String> replicaAddresses,
+                                         @Value("${prediction.load-balancer.strategy:POWER_OF_TWO}") Strategy strategy,
+                                         @Value("${prediction.load-balancer.failure-threshold:5}") int failureThreshold,
+                                         @Value("${prediction.load-balancer.ejection-seconds:10}") long ejectionSeconds,
+                                         @Value("${prediction.load-balancer.max-ejection-seconds:120}") long maxEjectionSeconds,
+                                         @Value("${prediction.hedge.enabled:false}") boolean hedgeEnabled,
+                                         @Value("${prediction.hedge.min-delay-millis:50}") long minHedgeDelayMillis,
+                                         @Value("${prediction.hedge.min-samples:100}") long hedgeMinSamples,
+                                         @Value("${prediction.token.refresh-fraction:0.8}") double refreshFraction,
+                                         @Value("${prediction.token.default-lifetime-seconds:3600}") long defaultLifetimeSeconds,
+                                         @Value("${prediction.token.error-backoff-millis:1000}") long errorBackoffMillis) {
+        this(replicaAddresses.stream()
+                        .map(String::strip)
+                        .filter(address -> !address.isEmpty())
+                        .distinct()
+                        .map(address -> {
+                            WebClient replicaClient = webClient.mutate().baseUrl(address).build();
+                            return new SentimentAnalysisReplica(address, replicaClient,
+                                    new SentimentAnalysisTokenManager(replicaClient, objectMapper,
+                                            refreshFraction, defaultLifetimeSeconds, errorBackoffMillis));
+                        })
+                        .collect(Collectors.toList()),
+                meterRegistry, strategy, failureThreshold, Duration.ofSeconds(ejectionSeconds),
+                Duration.ofSeconds(maxEjectionSeconds), hedgeEnabled, Duration.ofMillis(minHedgeDelayMillis),
+                hedgeMinSamples, System::nanoTime);
+    }
+
+    SentimentAnalysisLoadBalancer(List<SentimentAnalysisReplica> replicas, MeterRegistry meterRegistry,
+                                  Strategy strategy, int failureThreshold, Duration ejection, Duration maxEjection,
+                                  boolean hedgeEnabled, Duration minHedgeDelay, long hedgeMinSamples,
+                                  LongSupplier nanoClock) {
+        if(replicas.isEmpty()){
+            throw new IllegalArgumentException("prediction.replicas must not be empty");
+        }
+        this.replicas = List.copyOf(replicas);
+        this.strategy = strategy;
+        this.failureThreshold = failureThreshold;
+        this.baseEjectionNanos = ejection.toNanos();
+        this.maxEjectionNanos = maxEjection.toNanos();
+        this.hedgeEnabled = hedgeEnabled;
+        this.minHedgeDelayNanos = minHedgeDelay.toNanos();
+        this.hedgeMinSamples = hedgeMinSamples;
+        this.nanoClock = nanoClock;
+        this.meterRegistry = meterRegistry;
+        this.latencyTimer = Timer.builder("sentiment.prediction.replica.latency")
+                .publishPercentiles(0.95)
+                .register(meterRegistry);
+        this.hedgeCounter = Counter.builder("sentiment.prediction.hedge.requests")
+                .register(meterRegistry);
+
+        for(SentimentAnalysisReplica replica : this.replicas){
+            Gauge.builder("sentiment.prediction.replica.outstanding", replica, SentimentAnalysisReplica::getOutstandingCount)
+                    .tag("replica", replica.getBaseAddress())
+                    .register(meterRegistry);
+            Gauge.builder("sentiment.prediction.replica.ejected", replica, r -> r.isEjected() ? 1 : 0)
+                    .tag("replica", replica.getBaseAddress())
+                    .register(meterRegistry);
+        }
+    }
+
+    public List<SentimentAnalysisReplica> getReplicas(){
+        return replicas;
+    }
+
+    public <T> Mono<T> execute(Function<SentimentAnalysisReplica, Mono<T>> call){
+
+        return Mono.defer(() -> {
+            SentimentAnalysisReplica primary = select(null);
+            long hedgeDelay = hedgeDelayNanos();
+
+            if(hedgeDelay < 0){
+                return attempt(primary, call);
+            }
+
+            // 먼저 성공한 응답을 사용하고, 시작된 요청이 모두 실패했을 때만 실패로 처리한다.
+            AtomicInteger running = new AtomicInteger(1);
+
+            Mono<T> primaryCall = attempt(primary, call)
+                    .onErrorResume(e -> running.decrementAndGet() == 0 ? Mono.error(e) : Mono.never());
+
+            Mono<T> hedgedCall = Mono.delay(Duration.ofNanos(hedgeDelay))
+                    .flatMap(tick -> {
+                        SentimentAnalysisReplica secondary = select(primary);
+                        if(secondary == null){
+                            return Mono.<T>never();
+                        }
+                        running.incrementAndGet();
+                        hedgeCounter.increment();
+                        return attempt(secondary, call)
+                                .onErrorResume(e -> running.decrementAndGet() == 0 ? Mono.error(e) : Mono.never());
+                    });
+
+            return Mono.firstWithSignal(primaryCall, hedgedCall);
+        });
+    }
+
+    SentimentAnalysisReplica select(SentimentAnalysisReplica excluded){
+
+        long now = nanoClock.getAsLong();
+        List<SentimentAnalysisReplica> candidates = new ArrayList<>(replicas.size());
+        for(SentimentAnalysisReplica replica : replicas){
+            if(replica != excluded && replica.isAvailableAt(now)){
+                candidates.add(replica);
+            }
+        }
+
+        if(candidates.isEmpty()){
+            if(excluded != null){
+                return null;
+            }
+            // 모든 replica 가 제외된 경우 가장 먼저 복귀할 replica 로 보낸다.
+            return replicas.stream()
+                    .min(Comparator.comparingLong(replica -> replica.getEjectedUntilNanos() - now))
+                    .orElseThrow();
+        }
+        if(candidates.size() == 1){
+            return candidates.get(0);
+        }
+
+        return switch (strategy){
+            case LEAST_OUTSTANDING -> candidates.stream()
+                    .min(Comparator.comparingInt(SentimentAnalysisReplica::getOutstandingCount))
+                    .orElseThrow();
+            case POWER_OF_TWO -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int first = random.nextInt(candidates.size());
+                int second = random.nextInt(candidates.size() - 1);
+                if(second >= first){
+                    second++;
+                }
+                SentimentAnalysisReplica a = candidates.get(first);
+                SentimentAnalysisReplica b = candidates.get(second);
+                yield a.getOutstandingCount() <= b.getOutstandingCount() ? a : b;
+            }
+        };
+    }
+
+    private <T> Mono<T> attempt(SentimentAnalysisReplica replica, Function<SentimentAnalysisReplica, Mono<T>> call){
+
+        return Mono.defer(() -> {
+            replica.acquire();
+            long startedAt = nanoClock.getAsLong();
+
+            return call.apply(replica)
+                    .doOnSuccess(result -> {
+                        replica.onSuccess();
+                        latencyTimer.record(nanoClock.getAsLong() - startedAt, TimeUnit.NANOSECONDS);
+                    })
+                    .doOnError(e -> {
+                        if(PredictionErrors.isServerSide(e)
+                                && replica.onFailure(nanoClock.getAsLong(), failureThreshold, baseEjectionNanos, maxEjectionNanos)){
+                            log.warn("sentiment analysis replica {} ejected", replica.getBaseAddress(), e);
+                            meterRegistry.counter("sentiment.prediction.replica.ejections",
+                                    "replica", replica.getBaseAddress()).increment();
+                        }
+                    })
+                    .doFinally(signal -> replica.release());
+        });
+    }
+
+    private long hedgeDelayNanos(){
+
+        if(!hedgeEnabled || replicas.size() < 2 || latencyTimer.count() < hedgeMinSamples){
+            return -1;
+        }
+
+        long now = nanoClock.getAsLong();
+        if(hedgeDelayNanos < 0 || now - hedgeDelayComputedAt >= HEDGE_DELAY_REFRESH_NANOS){
+            long p95 = 0;
+            for(ValueAtPercentile percentile : latencyTimer.takeSnapshot().percentileValues()){
+                p95 = (long) percentile.value(TimeUnit.NANOSECONDS);
+            }
+            hedgeDelayNanos = Math.max(minHedgeDelayNanos, p95);
+            hedgeDelayComputedAt = now;
+        }
+        return hedgeDelayNanos;
+    }
+}
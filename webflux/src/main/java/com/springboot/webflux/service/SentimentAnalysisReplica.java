@@ -0,0 +1,85 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.security.SentimentAnalysisTokenManager;
+import lombok.Getter;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SentimentAnalysisReplica {
+
+    @Getter
+    private final String baseAddress;
+    @Getter
+    private final WebClient webClient;
+    @Getter
+    private final SentimentAnalysisTokenManager tokenManager;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private volatile boolean binarySupported = true;
+
+    private boolean ejected;
+    private long ejectedUntilNanos;
+    private int ejectionCount;
+    private int consecutiveFailures;
+
+    public SentimentAnalysisReplica(String baseAddress, WebClient webClient, SentimentAnalysisTokenManager tokenManager) {
+        this.baseAddress = baseAddress;
+        this.webClient = webClient;
+        this.tokenManager = tokenManager;
+    }
+
+    public int getOutstandingCount(){
+        return outstanding.get();
+    }
+
+    public boolean isBinarySupported(){
+        return binarySupported;
+    }
+
+    void disableBinary(){
+        binarySupported = false;
+    }
+
+    public synchronized boolean isEjected(){
+        return ejected;
+    }
+
+    void acquire(){
+        outstanding.incrementAndGet();
+    }
+
+    void release(){
+        outstanding.decrementAndGet();
+    }
+
+    synchronized boolean isAvailableAt(long nowNanos){
+
+        if(ejected && nowNanos - ejectedUntilNanos >= 0){
+            ejected = false;
+        }
+        return !ejected;
+    }
+
+    synchronized long getEjectedUntilNanos(){
+        return ejectedUntilNanos;
+    }
+
+    synchronized void onSuccess(){
+        consecutiveFailures = 0;
+        ejectionCount = 0;
+    }
+
+    synchronized boolean onFailure(long nowNanos, int failureThreshold, long baseEjectionNanos, long maxEjectionNanos){
+
+        if(++consecutiveFailures < failureThreshold || !isAvailableAt(nowNanos)){
+            return false;
+        }
+        consecutiveFailures = 0;
+        ejectionCount++;
+        ejected = true;
+        ejectedUntilNanos = nowNanos + Math.min(maxEjectionNanos, baseEjectionNanos * ejectionCount);
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.dto.PredictionResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+@Service
+public class SentimentAnalyzer implements SentimentEngine {
+
+    private final SentimentAnalysisClient sentimentAnalysisClient;
+    private final PredictionBatcher predictionBatcher;
+    private final PredictionResultCache predictionResultCache;
+    private final PredictionSingleFlight predictionSingleFlight;
+    private final PredictionCircuitBreaker predictionCircuitBreaker;
+    private final PredictionConcurrencyLimiter predictionConcurrencyLimiter;
+    private final PredictionRetry predictionRetry;
+    private final boolean batchEnabled;
+
+    public SentimentAnalyzer(SentimentAnalysisClient sentimentAnalysisClient,
+                             PredictionBatcher predictionBatcher,
+                             PredictionResultCache predictionResultCache,
+                             PredictionSingleFlight predictionSingleFlight,
+                             PredictionCircuitBreaker predictionCircuitBreaker,
+                             PredictionConcurrencyLimiter predictionConcurrencyLimiter,
+                             PredictionRetry predictionRetry,
+                             @Value("${prediction.batch.enabled:true}") boolean batchEnabled) {
+        this.sentimentAnalysisClient = sentimentAnalysisClient;
+        this.predictionBatcher = predictionBatcher;
+        this.predictionResultCache = predictionResultCache;
+        this.predictionSingleFlight = predictionSingleFlight;
+        this.predictionCircuitBreaker = predictionCircuitBreaker;
+        this.predictionConcurrencyLimiter = predictionConcurrencyLimiter;
+        this.predictionRetry = predictionRetry;
+        this.batchEnabled = batchEnabled;
+    }
+
+    // 재시도는 limiter 바깥에서 감싸 backoff 로 기다리는 동안 permit 을 잡고 있지 않도록 함
+    @Override
+    public Mono<PredictionResult> analyze(String contents){
+
+        return predictionResultCache.getOrAnalyze(contents,
+                uncached -> predictionSingleFlight.execute(uncached,
+                        key -> predictionRetry.execute(() -> predictionConcurrencyLimiter.execute(
+                                () -> predictionCircuitBreaker.execute(() -> requestAnalysis(key))))));
+    }
+
+    private Mono<PredictionResult> requestAnalysis(String contents){
+
+        if(batchEnabled){
+            return predictionBatcher.submit(contents);
+        }
+        return sentimentAnalysisClient.analyze(contents);
+    }
+}
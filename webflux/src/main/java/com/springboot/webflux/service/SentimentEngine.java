@@ -0,0 +1,9 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.dto.PredictionResult;
+import reactor.core.publisher.Mono;
+
+public interface SentimentEngine {
+
+    Mono<PredictionResult> analyze(String contents);
+}
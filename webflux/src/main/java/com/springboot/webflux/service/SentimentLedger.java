@@ -0,0 +1,84 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.constants.PredictionTarget;
+import com.springboot.webflux.constants.SentimentEventType;
+import com.springboot.webflux.entity.SentimentEvent;
+import com.springboot.webflux.repository.SentimentEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.springboot.webflux.constants.SentimentEventType.*;
+
+// 분석 결과가 회원 집계에 들어가고 빠지는 것을 sentiment_event 에 +1 / -1 로 남기고 같은 증감을 집계에 반영
+// 구간별 감정 추이(SentimentTrendTracker)도 같은 이벤트로 집계와 함께 모았다가 flush 때 갱신
+// 호출하는 쪽 트랜잭션 안에서 원장과 분석 결과가 함께 저장되므로, 집계가 틀어져도 원장으로 다시 계산할 수 있음
+@Service
+@RequiredArgsConstructor
+public class SentimentLedger {
+
+    private final static String POSITIVE = "positive";
+
+    private final SentimentEventRepository sentimentEventRepository;
+    private final MemberSentimentAggregator memberSentimentAggregator;
+
+    // 이전 결과가 있으면(수정) 이전 결과를 -1 로 빼고 새 결과를 +1 로 더함
+    public Mono<Void> recordPrediction(Long memberId, PredictionTarget target, Long targetId,
+                                       String previousResult, String predictResult){
+
+        List<SentimentEvent> events = new ArrayList<>(2);
+        SentimentEventType eventType = previousResult == null ? PREDICT : EDIT;
+        if(previousResult != null){
+            events.add(SentimentEvent.of(memberId, target, targetId, eventType, -1, POSITIVE.equals(previousResult)));
+        }
+        events.add(SentimentEvent.of(memberId, target, targetId, eventType, 1, POSITIVE.equals(predictResult)));
+        return append(memberId, target, targetId, events);
+    }
+
+    public Mono<Void> recordDelete(Long memberId, PredictionTarget target, Long targetId, String predictResult){
+
+        return append(memberId, target, targetId, List.of(
+                SentimentEvent.of(memberId, target, targetId, DELETE, -1, POSITIVE.equals(predictResult))));
+    }
+
+    // 빼는 이벤트가 있으면 새 이벤트를 저장하기 전에 원래 결과가 더해진 시각을 찾아 추이에서도 같은 bucket 에서 뺌
+    private Mono<Void> append(Long memberId, PredictionTarget target, Long targetId, List<SentimentEvent> events){
+
+        boolean retracts = events.stream().anyMatch(event -> event.getDelta() < 0);
+        Mono<Optional<LocalDateTime>> addedAt = retracts
+                ? sentimentEventRepository.findLastAddedAt(target.name(), targetId).map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                : Mono.just(Optional.empty());
+
+        return addedAt.flatMap(previousAddedAt -> sentimentEventRepository.saveAll(events)
+                .collectList()
+                .flatMap(saved -> {
+                    long totalDelta = 0;
+                    long positiveDelta = 0;
+                    long lastEventId = 0;
+                    List<SentimentTrendTracker.Change> changes = new ArrayList<>(saved.size());
+                    for(SentimentEvent event : saved){
+                        totalDelta += event.getDelta();
+                        positiveDelta += event.getPositive() ? event.getDelta() : 0;
+                        lastEventId = Math.max(lastEventId, event.getEventId());
+
+                        // 원장 이전의 결과라 더해진 시각을 모르면 추이에서는 빼지 않음
+                        LocalDateTime eventAt = event.getDelta() > 0 ? event.getCreatedAt() : previousAddedAt.orElse(null);
+                        if(eventAt != null){
+                            changes.add(new SentimentTrendTracker.Change(epochSecond(eventAt), event.getDelta(), event.getPositive()));
+                        }
+                    }
+                    return memberSentimentAggregator.apply(memberId, totalDelta, positiveDelta, lastEventId, changes);
+                }));
+    }
+
+    private static long epochSecond(LocalDateTime time){
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -0,0 +1,217 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.constants.SentimentWindow;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+// 회원 한 명의 감정 추이: 시간이 지날수록 옛 결과의 비중이 줄어드는 감쇠 점수와 구간(24h, 7d, 30d)별 카운터
+// 결과 하나를 더하거나 빼는 비용은 구간 수만큼으로 일정하고, post/comment 를 다시 읽지 않음
+//
+// - 감쇠 점수: decayedAt 이후 흐른 시간만큼 2^(-경과 / halfLife) 를 곱한 뒤 더함
+// - 구간: bucket 을 ring 으로 돌리며 구간 합을 따로 들고 있어 bucket 이 밀려날 때 그 값만 뺌
+//   현재 bucket 은 아직 차는 중이므로 24h 는 실제로 최근 23~24 시간을 봄
+public class SentimentTrend {
+
+    private final static byte FORMAT_VERSION = 1;
+
+    private final long halfLifeSeconds;
+    private double decayedTotal;
+    private double decayedPositive;
+    private long decayedAt;
+    private final Map<SentimentWindow, Ring> rings = new EnumMap<>(SentimentWindow.class);
+
+    SentimentTrend(long halfLifeSeconds, double decayedTotal, double decayedPositive, long decayedAt, byte[] buckets){
+
+        this.halfLifeSeconds = halfLifeSeconds;
+        this.decayedTotal = decayedTotal;
+        this.decayedPositive = decayedPositive;
+        this.decayedAt = decayedAt;
+        for(SentimentWindow window : SentimentWindow.values()){
+            rings.put(window, new Ring(window));
+        }
+        decode(buckets);
+    }
+
+    static SentimentTrend empty(long halfLifeSeconds, long now){
+        return new SentimentTrend(halfLifeSeconds, 0, 0, now, null);
+    }
+
+    // eventAt 에 반영된 결과를 delta(+1 / -1) 만큼 더함, 빼는 경우 eventAt 은 원래 결과가 더해진 시각
+    // 구간 밖으로 밀려난 결과는 구간 카운터에서는 이미 빠져 있으므로 감쇠 점수에서만 뺌
+    void add(long eventAt, long now, int delta, boolean positive){
+
+        advance(now);
+        double weight = delta * Math.pow(2, -(double) Math.max(now - eventAt, 0) / halfLifeSeconds);
+        decayedTotal = Math.max(decayedTotal + weight, 0);
+        decayedPositive = Math.min(Math.max(decayedPositive + (positive ? weight : 0), 0), decayedTotal);
+
+        for(Ring ring : rings.values()){
+            ring.add(eventAt, delta, positive ? delta : 0);
+        }
+    }
+
+    // 결과가 없던 시간만큼 감쇠시키고 지난 bucket 을 밀어냄
+    void advance(long now){
+
+        if(now > decayedAt){
+            double factor = Math.pow(2, -(double) (now - decayedAt) / halfLifeSeconds);
+            decayedTotal *= factor;
+            decayedPositive *= factor;
+            decayedAt = now;
+        }
+        for(Ring ring : rings.values()){
+            ring.advance(now);
+        }
+    }
+
+    public Float getDecayedPositiveRate(){
+        return rate(decayedPositive, decayedTotal);
+    }
+
+    public double getDecayedTotal(){
+        return decayedTotal;
+    }
+
+    public double getDecayedPositive(){
+        return decayedPositive;
+    }
+
+    public long getDecayedAt(){
+        return decayedAt;
+    }
+
+    public long getActivityCount(SentimentWindow window){
+        return Math.max(rings.get(window).total, 0);
+    }
+
+    public long getPositiveCount(SentimentWindow window){
+        return Math.min(Math.max(rings.get(window).positive, 0), getActivityCount(window));
+    }
+
+    public Float getPositiveRate(SentimentWindow window){
+        return rate(getPositiveCount(window), getActivityCount(window));
+    }
+
+    // 구간마다 [현재 bucket 번호, bucket 별 total, positive] 를 varint 로 이어 붙임 (대부분 0 이라 한 칸에 1 byte)
+    byte[] encode(){
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.write(FORMAT_VERSION);
+        for(SentimentWindow window : SentimentWindow.values()){
+            Ring ring = rings.get(window);
+            writeVarLong(out, ring.head);
+            for(int i = 0; i < window.getBucketCount(); i++){
+                writeVarLong(out, zigZag(ring.totals[i]));
+                writeVarLong(out, zigZag(ring.positives[i]));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private void decode(byte[] buckets){
+
+        if(buckets == null || buckets.length == 0 || buckets[0] != FORMAT_VERSION){
+            return;
+        }
+        ByteBuffer in = ByteBuffer.wrap(buckets, 1, buckets.length - 1);
+        for(SentimentWindow window : SentimentWindow.values()){
+            Ring ring = rings.get(window);
+            ring.head = readVarLong(in);
+            for(int i = 0; i < window.getBucketCount(); i++){
+                ring.totals[i] = (int) unZigZag(readVarLong(in));
+                ring.positives[i] = (int) unZigZag(readVarLong(in));
+                ring.total += ring.totals[i];
+                ring.positive += ring.positives[i];
+            }
+        }
+    }
+
+    private static Float rate(double positive, double total){
+        return total <= 0 ? null : (float) (positive / total);
+    }
+
+    private static long zigZag(long value){
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value){
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value){
+        while((value & ~0x7FL) != 0){
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in){
+        long value = 0;
+        for(int shift = 0; ; shift += 7){
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0){
+                return value;
+            }
+        }
+    }
+
+    // head: 가장 최근 bucket 번호 (epoch 초 / bucketSeconds), head - bucketCount 보다 오래된 bucket 은 버림
+    private static final class Ring {
+
+        private final SentimentWindow window;
+        private final int[] totals;
+        private final int[] positives;
+        private long head;
+        private long total;
+        private long positive;
+
+        private Ring(SentimentWindow window){
+            this.window = window;
+            this.totals = new int[window.getBucketCount()];
+            this.positives = new int[window.getBucketCount()];
+        }
+
+        private void advance(long now){
+
+            long bucket = now / window.getBucketSeconds();
+            if(bucket <= head){
+                return;
+            }
+            if(bucket - head >= totals.length){
+                Arrays.fill(totals, 0);
+                Arrays.fill(positives, 0);
+                total = 0;
+                positive = 0;
+            }
+            else{
+                for(long next = head + 1; next <= bucket; next++){
+                    int index = (int) (next % totals.length);
+                    total -= totals[index];
+                    positive -= positives[index];
+                    totals[index] = 0;
+                    positives[index] = 0;
+                }
+            }
+            head = bucket;
+        }
+
+        private void add(long eventAt, int totalDelta, int positiveDelta){
+
+            long bucket = eventAt / window.getBucketSeconds();
+            if(bucket > head || head - bucket >= totals.length){
+                return;
+            }
+            int index = (int) (bucket % totals.length);
+            totals[index] += totalDelta;
+            positives[index] += positiveDelta;
+            total += totalDelta;
+            positive += positiveDelta;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.entity.MemberSentimentTrend;
+import com.springboot.webflux.repository.MemberSentimentTrendRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// 원장에 남긴 증감을 회원별 감정 추이(SentimentTrend)에 반영
+// 분석 트랜잭션에서는 행을 잠그지 않고, MemberSentimentAggregator 가 모아 둔 증감을 flush 때 회원 여러 명씩 한 번에 반영
+// flush 트랜잭션에서 대상 행을 member_id 순서로 잠그고 읽어 고친 뒤 저장하므로 여러 인스턴스가 동시에 반영해도 잃지 않음
+@Service
+public class SentimentTrendTracker {
+
+    private final MemberSentimentTrendRepository memberSentimentTrendRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final boolean enabled;
+    private final long halfLifeSeconds;
+    private final LongSupplier clock;
+
+    @Autowired
+    public SentimentTrendTracker(MemberSentimentTrendRepository memberSentimentTrendRepository,
+                                 TransactionalOperator transactionalOperator,
+                                 @Value("${prediction.trend.enabled:true}") boolean enabled,
+                                 @Value("${prediction.trend.half-life-hours:168}") long halfLifeHours) {
+        this(memberSentimentTrendRepository, transactionalOperator, enabled, halfLifeHours * 60 * 60,
+                () -> System.currentTimeMillis() / 1000);
+    }
+
+    SentimentTrendTracker(MemberSentimentTrendRepository memberSentimentTrendRepository,
+                          TransactionalOperator transactionalOperator, boolean enabled, long halfLifeSeconds,
+                          LongSupplier clock) {
+        this.memberSentimentTrendRepository = memberSentimentTrendRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.enabled = enabled;
+        this.halfLifeSeconds = halfLifeSeconds;
+        this.clock = clock;
+    }
+
+    // memberId -> 그 회원에게 쌓인 증감
+    public Mono<Void> apply(Map<Long, List<Change>> changes){
+
+        if(!enabled || changes.isEmpty()){
+            return Mono.empty();
+        }
+
+        long now = clock.getAsLong();
+        List<Long> memberIds = new ArrayList<>(changes.keySet());
+        return memberSentimentTrendRepository.createIfAbsent(memberIds, now, LocalDateTime.now())
+                .thenMany(memberSentimentTrendRepository.findAllForUpdate(memberIds))
+                .concatMap(stored -> {
+                    SentimentTrend trend = toTrend(stored);
+                    for(Change change : changes.get(stored.getMemberId())){
+                        trend.add(change.eventAt(), now, change.delta(), change.positive());
+                    }
+                    return memberSentimentTrendRepository.saveTrend(stored.getMemberId(), trend.getDecayedTotal(),
+                            trend.getDecayedPositive(), trend.getDecayedAt(), trend.encode(), LocalDateTime.now());
+                })
+                .as(transactionalOperator::transactional)
+                .then();
+    }
+
+    // 조회 시점까지 감쇠시키고 지난 bucket 을 밀어낸 값을 돌려줌 (저장은 하지 않음)
+    public Mono<SentimentTrend> find(Long memberId){
+
+        long now = clock.getAsLong();
+        return memberSentimentTrendRepository.findById(memberId)
+                .map(this::toTrend)
+                .defaultIfEmpty(SentimentTrend.empty(halfLifeSeconds, now))
+                .doOnNext(trend -> trend.advance(now));
+    }
+
+    public long getHalfLifeSeconds(){
+        return halfLifeSeconds;
+    }
+
+    private SentimentTrend toTrend(MemberSentimentTrend stored){
+
+        return new SentimentTrend(halfLifeSeconds, stored.getDecayedTotal(), stored.getDecayedPositive(),
+                stored.getDecayedAt(), stored.getBuckets());
+    }
+
+    // eventAt: 더할 때는 반영 시각, 뺄 때는 원래 결과가 더해졌던 시각 (epoch 초)
+    public record Change(long eventAt, int delta, boolean positive) {
+    }
+}
@@ -0,0 +1,268 @@
+package com.springboot.webflux.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+// flask/static/data_configs.json(빌드 시 classpath 의 sentiment/ 로 복사됨) 의 단어 사전(vocab)을 배열 기반 trie 로 읽어 정수 인코딩한다.
+// Okt 형태소 분석 대신 어절의 가장 긴 사전 접두어(또는 접두어 + '다' 형태의 기본형)를 단어로 사용한다.
+@Slf4j
+@Component
+public class SentimentVocabulary {
+
+    private final static String VOCAB = "vocab";
+    private final static String VOCAB_SIZE = "vocab_size";
+    private final static char STEM_SUFFIX = '다';
+    private final static Pattern SEPARATORS = Pattern.compile("[^\\p{IsHangul}\\p{IsAlphabetic}\\p{IsDigit}]+");
+    private final static int[] EMPTY = new int[0];
+
+    private final Resource location;
+    private final ObjectMapper objectMapper;
+    private final List<String> stopwords;
+    private final int maxSentenceLength;
+
+    // trie 노드 i 의 자식은 [childStart[i], childStart[i] + childCount[i]) 구간에 label 순으로 정렬되어 있다.
+    private char[] labels = new char[0];
+    private int[] childStart = new int[0];
+    private int[] childCount = new int[0];
+    private int[] ids = new int[0];
+    private boolean[] stopwordIds = new boolean[0];
+    private int size;
+
+    // 기본은 jar 에 함께 묶인 classpath 사전을 읽고, prediction.vocabulary.path 에 절대 경로를 주면 그 파일을 읽는다.
+    @Autowired
+    public SentimentVocabulary(ObjectMapper objectMapper,
+                               @Value("${prediction.vocabulary.location:classpath:sentiment/data_configs.json}") Resource location,
+                               @Value("${prediction.vocabulary.path:}") String path,
+                               @Value("${prediction.vocabulary.stopwords:의,가,이,은,들,는,좀,잘,걍,과,도,를,으로,자,에,와,한,하다}") List<String> stopwords,
+                               @Value("${prediction.vocabulary.max-sentence-length:30}") int maxSentenceLength) {
+        this(objectMapper, path.isBlank() ? location : absoluteFile(path), stopwords, maxSentenceLength);
+    }
+
+    SentimentVocabulary(ObjectMapper objectMapper, Resource location, List<String> stopwords, int maxSentenceLength) {
+        this.objectMapper = objectMapper;
+        this.location = location;
+        this.stopwords = List.copyOf(stopwords);
+        this.maxSentenceLength = maxSentenceLength;
+    }
+
+    // 실행 위치에 따라 다른 파일을 읽지 않도록 상대 경로는 받지 않는다.
+    private static Resource absoluteFile(String path){
+
+        Path file = Path.of(path);
+        if(!file.isAbsolute()){
+            throw new IllegalArgumentException("prediction.vocabulary.path must be an absolute path: " + path);
+        }
+        return new FileSystemResource(file);
+    }
+
+    @PostConstruct
+    public void load(){
+
+        if(!location.exists()){
+            log.warn("sentiment vocabulary not found at {}", location);
+            return;
+        }
+
+        try (InputStream inputStream = location.getInputStream();
+             JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            TrieNode root = new TrieNode();
+            int vocabSize = 0;
+            int words = 0;
+            int maxId = 0;
+
+            parser.nextToken();
+            while(parser.nextToken() == JsonToken.FIELD_NAME){
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if(VOCAB.equals(field)){
+                    while(parser.nextToken() == JsonToken.FIELD_NAME){
+                        String word = parser.getCurrentName();
+                        parser.nextToken();
+                        int id = parser.getIntValue();
+                        root.insert(word, id);
+                        maxId = Math.max(maxId, id);
+                        words++;
+                    }
+                } else if(VOCAB_SIZE.equals(field)){
+                    vocabSize = parser.getIntValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            size = Math.max(vocabSize, maxId + 1);
+            flatten(root);
+            stopwordIds = new boolean[size];
+            for(String stopword : stopwords){
+                int id = exactIndexOf(stopword);
+                if(id > 0){
+                    stopwordIds[id] = true;
+                }
+            }
+            log.info("sentiment vocabulary loaded: {} words, {} trie nodes", words, ids.length);
+        } catch (IOException e){
+            log.warn("sentiment vocabulary could not be loaded from {}", location, e);
+        }
+    }
+
+    public boolean isLoaded(){
+        return ids.length > 1;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public int getMaxSentenceLength(){
+        return maxSentenceLength;
+    }
+
+    public int[] encode(String contents){
+
+        if(!isLoaded()){
+            return EMPTY;
+        }
+
+        String[] tokens = SEPARATORS.split(PredictionKey.normalize(contents));
+        int[] encoded = new int[tokens.length];
+        int length = 0;
+        for(String token : tokens){
+            int id = indexOf(token);
+            if(id > 0){
+                encoded[length++] = id;
+            }
+        }
+        return length == encoded.length ? encoded : Arrays.copyOf(encoded, length);
+    }
+
+    // keras pad_sequences 기본값과 같이 앞쪽을 0 으로 채우고, 길면 앞쪽을 잘라낸다.
+    public int[] encodePadded(String contents){
+
+        int[] encoded = encode(contents);
+        int[] padded = new int[maxSentenceLength];
+        int length = Math.min(encoded.length, maxSentenceLength);
+        System.arraycopy(encoded, encoded.length - length, padded, maxSentenceLength - length, length);
+        return padded;
+    }
+
+    private int indexOf(String token){
+
+        int node = 0;
+        int matched = 0;
+        for(int i = 0; i < token.length(); i++){
+            node = child(node, token.charAt(i));
+            if(node < 0){
+                break;
+            }
+            if(ids[node] > 0){
+                matched = ids[node];
+            } else {
+                int stem = child(node, STEM_SUFFIX);
+                if(stem >= 0 && ids[stem] > 0){
+                    matched = ids[stem];
+                }
+            }
+        }
+        return matched > 0 && !stopwordIds[matched] ? matched : 0;
+    }
+
+    private int exactIndexOf(String word){
+
+        int node = 0;
+        for(int i = 0; i < word.length() && node >= 0; i++){
+            node = child(node, word.charAt(i));
+        }
+        return node >= 0 ? ids[node] : 0;
+    }
+
+    private int child(int node, char label){
+
+        int low = childStart[node];
+        int high = low + childCount[node] - 1;
+        while(low <= high){
+            int mid = (low + high) >>> 1;
+            char midLabel = labels[mid];
+            if(midLabel < label){
+                low = mid + 1;
+            } else if(midLabel > label){
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private void flatten(TrieNode root){
+
+        int nodes = root.count();
+        char[] flatLabels = new char[nodes];
+        int[] flatChildStart = new int[nodes];
+        int[] flatChildCount = new int[nodes];
+        int[] flatIds = new int[nodes];
+
+        Deque<TrieNode> queue = new ArrayDeque<>();
+        queue.add(root);
+        int index = 0;
+        int next = 1;
+        while(!queue.isEmpty()){
+            TrieNode node = queue.poll();
+            flatIds[index] = node.id;
+            flatChildStart[index] = next;
+            flatChildCount[index] = node.children.size();
+            for(Map.Entry<Character, TrieNode> child : node.children.entrySet()){
+                flatLabels[next++] = child.getKey();
+                queue.add(child.getValue());
+            }
+            index++;
+        }
+
+        labels = flatLabels;
+        childStart = flatChildStart;
+        childCount = flatChildCount;
+        ids = flatIds;
+    }
+
+    private static class TrieNode {
+
+        private final TreeMap<Character, TrieNode> children = new TreeMap<>();
+        private int id;
+
+        private void insert(String word, int wordId){
+
+            TrieNode node = this;
+            for(int i = 0; i < word.length(); i++){
+                node = node.children.computeIfAbsent(word.charAt(i), label -> new TrieNode());
+            }
+            node.id = wordId;
+        }
+
+        private int count(){
+
+            int count = 1;
+            for(TrieNode child : children.values()){
+                count += child.count();
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.constants.PredictionLane;
+import com.springboot.webflux.dto.PredictionResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@Slf4j
+@Primary
+@Service
+public class TieredSentimentEngine implements SentimentEngine {
+
+    private final SentimentAnalyzer sentimentAnalyzer;
+    private final LexiconSentimentEngine lexiconSentimentEngine;
+    private final SentimentVocabulary sentimentVocabulary;
+
+    private final boolean enabled;
+    private final double shadowRate;
+    private final int minComparisons;
+    private final double minAgreementRate;
+
+    private final Counter localCounter;
+    private final Counter remoteCounter;
+    private final Counter agreedCounter;
+    private final Counter disagreedCounter;
+
+    private final boolean[] agreements;
+    private int agreementIndex;
+    private int comparisons;
+    private int agreed;
+
+    public TieredSentimentEngine(SentimentAnalyzer sentimentAnalyzer,
+                                 LexiconSentimentEngine lexiconSentimentEngine,
+                                 SentimentVocabulary sentimentVocabulary,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${prediction.local.enabled:true}") boolean enabled,
+                                 @Value("${prediction.local.shadow-rate:0.05}") double shadowRate,
+                                 @Value("${prediction.local.agreement-window:500}") int agreementWindow,
+                                 @Value("${prediction.local.min-comparisons:200}") int minComparisons,
+                                 @Value("${prediction.local.min-agreement-rate:0.9}") double minAgreementRate) {
+        this.sentimentAnalyzer = sentimentAnalyzer;
+        this.lexiconSentimentEngine = lexiconSentimentEngine;
+        this.sentimentVocabulary = sentimentVocabulary;
+        this.enabled = enabled && sentimentVocabulary.isLoaded();
+        this.shadowRate = shadowRate;
+        this.minComparisons = Math.min(minComparisons, agreementWindow);
+        this.minAgreementRate = minAgreementRate;
+        this.agreements = new boolean[agreementWindow];
+        this.localCounter = Counter.builder("sentiment.prediction.tier.requests")
+                .tag("tier", "local")
+                .register(meterRegistry);
+        this.remoteCounter = Counter.builder("sentiment.prediction.tier.requests")
+                .tag("tier", "remote")
+                .register(meterRegistry);
+        this.agreedCounter = Counter.builder("sentiment.prediction.tier.comparisons")
+                .tag("agreed", "true")
+                .register(meterRegistry);
+        this.disagreedCounter = Counter.builder("sentiment.prediction.tier.comparisons")
+                .tag("agreed", "false")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.prediction.tier.escalation.rate", this, TieredSentimentEngine::getEscalationRate)
+                .register(meterRegistry);
+        Gauge.builder("sentiment.prediction.tier.agreement.rate", this, TieredSentimentEngine::getAgreementRate)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<PredictionResult> analyze(String contents){
+
+        if(!enabled){
+            return sentimentAnalyzer.analyze(contents);
+        }
+
+        return Mono.defer(() -> {
+            int[] tokenIds = sentimentVocabulary.encode(contents);
+            LexiconSentimentEngine.LexiconScore score = lexiconSentimentEngine.score(tokenIds);
+
+            if(isTrusted() && lexiconSentimentEngine.isConfident(score)){
+                localCounter.increment();
+                if(ThreadLocalRandom.current().nextDouble() < shadowRate){
+                    sentimentAnalyzer.analyze(contents)
+                            .contextWrite(PredictionConcurrencyLimiter.withLane(PredictionLane.BACKFILL))
+                            .subscribe(result -> compareAndLearn(tokenIds, score, result),
+                                    e -> log.debug("shadow prediction failed", e));
+                }
+                return Mono.just(score.toResult());
+            }
+
+            remoteCounter.increment();
+            return sentimentAnalyzer.analyze(contents)
+                    .doOnNext(result -> compareAndLearn(tokenIds, score, result));
+        });
+    }
+
+    public synchronized double getAgreementRate(){
+        return comparisons == 0 ? 0 : (double) agreed / comparisons;
+    }
+
+    public double getEscalationRate(){
+        double total = localCounter.count() + remoteCounter.count();
+        return total == 0 ? 0 : remoteCounter.count() / total;
+    }
+
+    private synchronized boolean isTrusted(){
+        return comparisons >= minComparisons && (double) agreed / comparisons >= minAgreementRate;
+    }
+
+    private void compareAndLearn(int[] tokenIds, LexiconSentimentEngine.LexiconScore score, PredictionResult result){
+
+        if(score.evidence() > 0){
+            boolean agree = score.predict().equals(result.predict());
+            (agree ? agreedCounter : disagreedCounter).increment();
+            recordAgreement(agree);
+        }
+        lexiconSentimentEngine.learn(tokenIds, result.predict());
+    }
+
+    private synchronized void recordAgreement(boolean agree){
+
+        if(comparisons == agreements.length){
+            if(agreements[agreementIndex]){
+                agreed--;
+            }
+        } else {
+            comparisons++;
+        }
+        agreements[agreementIndex] = agree;
+        if(agree){
+            agreed++;
+        }
+        agreementIndex = (agreementIndex + 1) % agreements.length;
+    }
+}
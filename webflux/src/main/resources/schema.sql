@@ -3,8 +3,10 @@ CREATE TABLE IF NOT EXISTS member
     member_id SERIAL PRIMARY KEY,
     username VARCHAR(50) NOT NULL,
     password VARCHAR(50) NOT NULL,
-    activity_count LONG,
-    positive_rate FLOAT,
+    activity_count BIGINT NOT NULL DEFAULT 0,
+    positive_count BIGINT NOT NULL DEFAULT 0,
+    sentiment_event_id BIGINT NOT NULL DEFAULT 0,
+    sentiment_rebuilt_event_id BIGINT NOT NULL DEFAULT 0,
     registered_at DATETIME NOT NULL
 );
 
@@ -15,6 +17,8 @@ CREATE TABLE IF NOT EXISTS post
     contents VARCHAR(255) NOT NULL,
     predict_result VARCHAR(50),
     predict_percent FLOAT,
+    predict_state VARCHAR(20),
+    prediction_key VARCHAR(100),
     wrote_at DATETIME NOT NULL,
     edited_at DATETIME,
     FOREIGN KEY (member_id)
@@ -29,10 +33,61 @@ CREATE TABLE IF NOT EXISTS comment
     contents VARCHAR(255),
     predict_result VARCHAR(50),
     predict_percent FLOAT,
+    predict_state VARCHAR(20),
+    prediction_key VARCHAR(100),
     wrote_at DATETIME,
     edited_at DATETIME,
     FOREIGN KEY (member_id)
     REFERENCES member(member_id) ON UPDATE CASCADE ON DELETE NO ACTION,
     FOREIGN KEY (post_id)
     REFERENCES post(post_id) ON UPDATE CASCADE ON DELETE NO ACTION
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS prediction_job
+(
+    job_id SERIAL PRIMARY KEY,
+    target VARCHAR(20) NOT NULL,
+    target_id BIGINT UNSIGNED NOT NULL,
+    job_type VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    requeues INT NOT NULL DEFAULT 0,
+    claimed_by VARCHAR(100),
+    claimed_at DATETIME,
+    created_at DATETIME NOT NULL,
+    completed_at DATETIME,
+    next_attempt_at DATETIME,
+    INDEX idx_prediction_job_status (status, job_id)
+);
+
+CREATE TABLE IF NOT EXISTS sentiment_event
+(
+    event_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    member_id BIGINT UNSIGNED NOT NULL,
+    target VARCHAR(20) NOT NULL,
+    target_id BIGINT UNSIGNED NOT NULL,
+    event_type VARCHAR(20) NOT NULL,
+    delta TINYINT NOT NULL,
+    positive BOOLEAN NOT NULL,
+    created_at DATETIME NOT NULL,
+    INDEX idx_sentiment_event_member (member_id, event_id),
+    INDEX idx_sentiment_event_target (target, target_id, event_id)
+);
+
+CREATE TABLE IF NOT EXISTS member_sentiment_trend
+(
+    member_id BIGINT UNSIGNED PRIMARY KEY,
+    decayed_total DOUBLE NOT NULL DEFAULT 0,
+    decayed_positive DOUBLE NOT NULL DEFAULT 0,
+    decayed_at BIGINT NOT NULL,
+    buckets VARBINARY(1024),
+    updated_at DATETIME NOT NULL,
+    FOREIGN KEY (member_id)
+    REFERENCES member(member_id) ON UPDATE CASCADE ON DELETE NO ACTION
+);
+
+CREATE TABLE IF NOT EXISTS schema_migration
+(
+    name VARCHAR(100) PRIMARY KEY,
+    applied_at DATETIME NOT NULL
+);
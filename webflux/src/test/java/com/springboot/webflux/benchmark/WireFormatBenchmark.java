@@ -0,0 +1,106 @@
+package com.springboot.webflux.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.springboot.webflux.dto.BatchPredictionRequest;
+import com.springboot.webflux.dto.PredictionResult;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// flask 와 주고받는 JSON / CBOR 본문의 크기와 인코딩/디코딩 비용 비교
+// 실행: 테스트 클래스패스로 main 실행 (surefire 대상 아님)
+public class WireFormatBenchmark {
+
+    private static final int BATCH_SIZE = 32;
+    private static final int SENTENCE_LENGTH = 30;
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+
+        ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        Random random = new Random(42);
+
+        List<String> contents = new ArrayList<>(BATCH_SIZE);
+        List<int[]> sequences = new ArrayList<>(BATCH_SIZE);
+        List<Map<String, Object>> jsonResults = new ArrayList<>(BATCH_SIZE);
+        List<Map<String, Object>> cborResults = new ArrayList<>(BATCH_SIZE);
+        for(int i = 0; i < BATCH_SIZE; i++){
+            contents.add("오늘 올라온 게시글 " + i + " 정말 재미있고 유익했어요 다음 글도 기대할게요");
+
+            int[] sequence = new int[SENTENCE_LENGTH];
+            for(int j = SENTENCE_LENGTH / 2; j < SENTENCE_LENGTH; j++){
+                sequence[j] = 1 + random.nextInt(40_000);
+            }
+            sequences.add(sequence);
+
+            float percentage = 50 + random.nextInt(5000) / 100f;
+            String predict = random.nextBoolean() ? "positive" : "negative";
+            // flask 는 JSON 에는 문자열, CBOR 에는 실수로 percentage 를 보냄
+            jsonResults.add(result(predict, String.format("%.2f", percentage)));
+            cborResults.add(result(predict, (double) percentage));
+        }
+
+        BatchPredictionRequest contentsRequest = BatchPredictionRequest.builder().contents(contents).build();
+        BatchPredictionRequest sequencesRequest = BatchPredictionRequest.builder().sequences(sequences).build();
+        TypeReference<List<PredictionResult>> resultsType = new TypeReference<>() {};
+
+        System.out.printf("%-22s %-5s %10s %14s %14s%n", "payload", "fmt", "bytes", "encode ns/op", "decode ns/op");
+        run("batch request(text)", "json", jsonMapper.writer(), null, contentsRequest);
+        run("batch request(text)", "cbor", cborMapper.writer(), null, contentsRequest);
+        run("batch request(seq)", "json", jsonMapper.writer(), null, sequencesRequest);
+        run("batch request(seq)", "cbor", cborMapper.writer(), null, sequencesRequest);
+        run("batch response", "json", jsonMapper.writer(), jsonMapper.readerFor(resultsType), jsonResults);
+        run("batch response", "cbor", cborMapper.writer(), cborMapper.readerFor(resultsType), cborResults);
+    }
+
+    private static Map<String, Object> result(String predict, Object percentage){
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("predict", predict);
+        result.put("percentage", percentage);
+        return result;
+    }
+
+    private static void run(String name, String format, ObjectWriter writer, ObjectReader reader, Object value) throws Exception {
+
+        byte[] bytes = writer.writeValueAsBytes(value);
+        long sink = 0;
+
+        for(int i = 0; i < WARMUP_ITERATIONS; i++){
+            sink += writer.writeValueAsBytes(value).length;
+            if(reader != null){
+                sink += reader.readValue(bytes).hashCode();
+            }
+        }
+
+        long start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++){
+            sink += writer.writeValueAsBytes(value).length;
+        }
+        long encodeNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        long decodeNanos = -1;
+        if(reader != null){
+            start = System.nanoTime();
+            for(int i = 0; i < ITERATIONS; i++){
+                sink += reader.readValue(bytes).hashCode();
+            }
+            decodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        }
+
+        System.out.printf("%-22s %-5s %10d %14d %14s%n", name, format, bytes.length, encodeNanos,
+                decodeNanos < 0 ? "-" : String.valueOf(decodeNanos));
+        if(sink == 42){
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.springboot.webflux.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.netty.resources.ConnectionPoolMetrics;
+
+import java.net.InetSocketAddress;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ConnectionPoolMeterRegistrarTest {
+
+    private ConnectionPoolMetrics createMetrics(){
+        return new ConnectionPoolMetrics() {
+            @Override public int acquiredSize() { return 3; }
+            @Override public int allocatedSize() { return 5; }
+            @Override public int idleSize() { return 2; }
+            @Override public int pendingAcquireSize() { return 7; }
+            @Override public int maxAllocatedSize() { return 50; }
+            @Override public int maxPendingAcquireSize() { return 500; }
+        };
+    }
+
+    @Test
+    @DisplayName("커넥션 풀 상태를 게이지로 등록하고 해제한다")
+    void registerAndDeRegister(){
+        //given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ConnectionPoolMeterRegistrar registrar = new ConnectionPoolMeterRegistrar(meterRegistry);
+        InetSocketAddress remoteAddress = InetSocketAddress.createUnresolved("127.0.0.1", 5000);
+
+        //when
+        registrar.registerMetrics("sentiment-analysis", "pool-1", remoteAddress, createMetrics());
+
+        //then
+        assertThat(meterRegistry.get("sentiment.http.pool.active").gauge().value(), is(3.0));
+        assertThat(meterRegistry.get("sentiment.http.pool.idle").gauge().value(), is(2.0));
+        assertThat(meterRegistry.get("sentiment.http.pool.pending").gauge().value(), is(7.0));
+
+        registrar.deRegisterMetrics("sentiment-analysis", "pool-1", remoteAddress);
+        assertThat(meterRegistry.getMeters(), is(empty()));
+    }
+}
@@ -1,5 +1,6 @@
 package com.springboot.webflux.controller;
 
+import com.springboot.webflux.constants.PredictState;
 import com.springboot.webflux.dto.CommentEditRequest;
 import com.springboot.webflux.dto.CommentRegisterRequest;
 import com.springboot.webflux.dto.CommentResponse;
@@ -282,6 +283,37 @@ public class CommentControllerTest {
         }
     }
 
+    @Nested
+    @WithMockUser
+    @DisplayName("comment 감정 분석 결과 대기")
+    class AwaitPredictionComment{
+
+        @Test
+        @DisplayName("comment 감정 분석 결과 대기 성공")
+        void successAwaitPrediction(){
+            Comment comment = createComment("contents");
+            comment.setPredictState(PredictState.COMPLETED);
+
+            when(commentService.awaitPrediction(anyLong()))
+                    .thenReturn(Mono.just(comment));
+
+            webTestClient.get()
+                    .uri("/comment/1/prediction")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(CommentResponse.class)
+                    .consumeWith(result -> {
+                        CommentResponse commentResult = result.getResponseBody();
+
+                        assert commentResult != null;
+                        Assertions.assertEquals(comment.getPredictResult(), commentResult.getPredictResult());
+                        Assertions.assertEquals(PredictState.COMPLETED, commentResult.getPredictState());
+                    });
+
+            verify(commentService, times(1)).awaitPrediction(anyLong());
+        }
+    }
+
     @Nested
     @WithMockUser
     @DisplayName("memberId로 comment 조회")
@@ -1,7 +1,10 @@
 package com.springboot.webflux.controller;
 
+import com.springboot.webflux.constants.SentimentRanking;
 import com.springboot.webflux.dto.MemberEditRequest;
+import com.springboot.webflux.dto.MemberRankingResponse;
 import com.springboot.webflux.dto.MemberResponse;
+import com.springboot.webflux.dto.MemberSentimentTrendResponse;
 import com.springboot.webflux.dto.MemberSignInRequest;
 import com.springboot.webflux.dto.MemberSignUpRequest;
 import com.springboot.webflux.entity.Member;
@@ -17,9 +20,11 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static com.springboot.webflux.constants.ExceptionStatus.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,8 +45,8 @@ public class MemberControllerTest {
         return Member.builder()
                 .memberId(1L)
                 .username("user")
-                .activityCount(0L)
-                .positiveRate(0.5f)
+                .activityCount(2L)
+                .positiveCount(1L)
                 .registeredAt(LocalDateTime.now())
                 .build();
     }
@@ -50,8 +55,8 @@ public class MemberControllerTest {
         return Member.builder()
                 .memberId(1L)
                 .username(username)
-                .activityCount(0L)
-                .positiveRate(0.5f)
+                .activityCount(2L)
+                .positiveCount(1L)
                 .registeredAt(LocalDateTime.now())
                 .build();
     }
@@ -127,6 +132,97 @@ public class MemberControllerTest {
 
     }
 
+    @Nested
+    @WithMockUser
+    @DisplayName("member 감정 순위 조회")
+    class FindLeaderboard{
+
+        @Test
+        @DisplayName("member 감정 순위 조회 성공")
+        void successFindLeaderboard(){
+            MemberRankingResponse ranking = MemberRankingResponse.builder()
+                    .rank(1)
+                    .memberId(1L)
+                    .activityCount(4L)
+                    .positiveCount(1L)
+                    .positiveRate(0.25f)
+                    .build();
+
+            when(memberService.findLeaderboard(SentimentRanking.NEGATIVE, 3))
+                    .thenReturn(Flux.just(ranking));
+
+            webTestClient.get()
+                    .uri("/member/leaderboard?ranking=NEGATIVE&limit=3")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBodyList(MemberRankingResponse.class)
+                    .consumeWith(result -> {
+                        List<MemberRankingResponse> rankingResult = result.getResponseBody();
+
+                        assert rankingResult != null;
+                        Assertions.assertEquals(1, rankingResult.size());
+                        Assertions.assertEquals(1L, rankingResult.get(0).getMemberId());
+                        Assertions.assertEquals(0.25f, rankingResult.get(0).getPositiveRate());
+                    });
+
+            verify(memberService, times(1)).findLeaderboard(SentimentRanking.NEGATIVE, 3);
+        }
+    }
+
+    @Nested
+    @WithMockUser
+    @DisplayName("member 감정 추이 조회")
+    class FindSentimentTrend{
+
+        @Test
+        @DisplayName("member 감정 추이 조회 성공")
+        void successFindSentimentTrend(){
+            MemberSentimentTrendResponse trend = MemberSentimentTrendResponse.builder()
+                    .memberId(1L)
+                    .decayedPositiveRate(0.6f)
+                    .halfLifeHours(168L)
+                    .windows(List.of(MemberSentimentTrendResponse.WindowResponse.builder()
+                            .window("24h")
+                            .activityCount(2L)
+                            .positiveCount(1L)
+                            .positiveRate(0.5f)
+                            .build()))
+                    .build();
+
+            when(memberService.findSentimentTrend(anyLong()))
+                    .thenReturn(Mono.just(trend));
+
+            webTestClient.get()
+                    .uri("/member/1/sentiment/trend")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(MemberSentimentTrendResponse.class)
+                    .consumeWith(result -> {
+                        MemberSentimentTrendResponse trendResult = result.getResponseBody();
+
+                        assert trendResult != null;
+                        Assertions.assertEquals(0.6f, trendResult.getDecayedPositiveRate());
+                        Assertions.assertEquals("24h", trendResult.getWindows().get(0).getWindow());
+                        Assertions.assertEquals(0.5f, trendResult.getWindows().get(0).getPositiveRate());
+                    });
+
+            verify(memberService, times(1)).findSentimentTrend(anyLong());
+        }
+
+        @Test
+        @DisplayName("member 감정 추이 조회 실패 - 멤버를 찾지 못함")
+        void failFindSentimentTrend_MemberNotFound(){
+
+            when(memberService.findSentimentTrend(anyLong()))
+                    .thenReturn(Mono.error(new RuntimeException(MEMBER_NOT_FOUND.getMessage())));
+
+            webTestClient.get()
+                    .uri("/member/1/sentiment/trend")
+                    .exchange()
+                    .expectStatus().is5xxServerError();
+        }
+    }
+
     @Nested
     @WithMockUser
     @DisplayName("member 회원가입")
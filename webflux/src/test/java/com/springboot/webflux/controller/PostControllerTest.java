@@ -1,9 +1,11 @@
 package com.springboot.webflux.controller;
 
+import com.springboot.webflux.constants.PredictState;
 import com.springboot.webflux.dto.PostEditRequest;
 import com.springboot.webflux.dto.PostRegisterRequest;
 import com.springboot.webflux.dto.PostResponse;
 import com.springboot.webflux.entity.Post;
+import com.springboot.webflux.exception.PredictionOverloadedException;
 import com.springboot.webflux.service.PostService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
@@ -14,11 +16,15 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -124,6 +130,24 @@ public class PostControllerTest {
 
             verify(postService, times(1)).write(any(PostRegisterRequest.class), anyString());
         }
+
+        @Test
+        @DisplayName("post 등록 실패 - 감정 분석 대기열 과부하")
+        void failWrite_PredictionOverloaded(){
+            PostRegisterRequest postRegisterRequest = createRegisterRequest();
+
+            when(postService.write(any(PostRegisterRequest.class), anyString()))
+                    .thenReturn(Mono.error(new PredictionOverloadedException(PREDICTION_OVERLOADED, 3)));
+
+            webTestClient.mutateWith(csrf()).post()
+                    .uri("/posts")
+                    .bodyValue(postRegisterRequest)
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                    .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "3");
+
+            verify(postService, times(1)).write(any(PostRegisterRequest.class), anyString());
+        }
     }
 
     @Nested
@@ -259,6 +283,70 @@ public class PostControllerTest {
         }
     }
 
+    @Nested
+    @WithMockUser
+    @DisplayName("post 감정 분석 결과 대기")
+    class AwaitPredictionPost{
+
+        @Test
+        @DisplayName("post 감정 분석 결과 대기 성공")
+        void successAwaitPrediction(){
+            Post post = createPost();
+            post.setPredictState(PredictState.COMPLETED);
+
+            when(postService.awaitPrediction(anyLong()))
+                    .thenReturn(Mono.just(post));
+
+            webTestClient.get()
+                    .uri("/posts/1/prediction")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(PostResponse.class)
+                    .consumeWith(result -> {
+                        PostResponse postResult = result.getResponseBody();
+
+                        assert postResult != null;
+                        Assertions.assertEquals(post.getPredictResult(), postResult.getPredictResult());
+                        Assertions.assertEquals(PredictState.COMPLETED, postResult.getPredictState());
+                    });
+
+            verify(postService, times(1)).awaitPrediction(anyLong());
+        }
+    }
+
+    @Nested
+    @WithMockUser
+    @DisplayName("post 감정 분석 결과 스트림")
+    class StreamPredictionPost{
+
+        @Test
+        @DisplayName("post 감정 분석 결과 스트림 성공")
+        void successStreamPrediction(){
+            Post pending = createPost();
+            pending.setPredictState(PredictState.PENDING);
+            Post completed = createPost();
+            completed.setPredictState(PredictState.COMPLETED);
+
+            when(postService.streamPrediction(anyLong()))
+                    .thenReturn(Flux.just(pending, completed));
+
+            Flux<PostResponse> events = webTestClient.get()
+                    .uri("/posts/1/prediction/stream")
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .returnResult(PostResponse.class)
+                    .getResponseBody();
+
+            StepVerifier.create(events)
+                    .assertNext(event -> Assertions.assertEquals(PredictState.PENDING, event.getPredictState()))
+                    .assertNext(event -> Assertions.assertEquals(PredictState.COMPLETED, event.getPredictState()))
+                    .verifyComplete();
+
+            verify(postService, times(1)).streamPrediction(anyLong());
+        }
+    }
+
     @Nested
     @WithMockUser
     @DisplayName("memberId로 post 조회")
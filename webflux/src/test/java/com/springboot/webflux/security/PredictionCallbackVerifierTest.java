@@ -0,0 +1,64 @@
+package com.springboot.webflux.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class PredictionCallbackVerifierTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final PredictionCallbackVerifier verifier =
+            new PredictionCallbackVerifier("secret", Duration.ofSeconds(300), () -> NOW);
+
+    private final byte[] body = "{\"jobId\":\"job\",\"results\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("같은 키로 서명한 콜백은 통과한다")
+    void successVerify(){
+        //given
+        String timestamp = String.valueOf(NOW - 1000);
+        String signature = verifier.sign(timestamp, body);
+
+        //when
+        boolean verified = verifier.verify(timestamp, signature, body);
+
+        //then
+        assertThat(verified, equalTo(true));
+    }
+
+    @Test
+    @DisplayName("본문이 바뀌거나 다른 키로 서명한 콜백은 거절한다")
+    void failVerify_InvalidSignature(){
+        //given
+        String timestamp = String.valueOf(NOW);
+        String signature = verifier.sign(timestamp, body);
+        String otherKeySignature = new PredictionCallbackVerifier("other", Duration.ofSeconds(300), () -> NOW)
+                .sign(timestamp, body);
+        byte[] tampered = "{\"jobId\":\"job\",\"results\":[{}]}".getBytes(StandardCharsets.UTF_8);
+
+        //when, then
+        assertThat(verifier.verify(timestamp, signature, tampered), equalTo(false));
+        assertThat(verifier.verify(timestamp, otherKeySignature, body), equalTo(false));
+        assertThat(verifier.verify(null, null, body), equalTo(false));
+    }
+
+    @Test
+    @DisplayName("허용 시간보다 오래된 콜백은 거절한다")
+    void failVerify_Expired(){
+        //given
+        String timestamp = String.valueOf(NOW - Duration.ofMinutes(10).toMillis());
+        String signature = verifier.sign(timestamp, body);
+
+        //when
+        boolean verified = verifier.verify(timestamp, signature, body);
+
+        //then
+        assertThat(verified, equalTo(false));
+    }
+}
@@ -0,0 +1,211 @@
+package com.springboot.webflux.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SentimentAnalysisTokenManagerTest {
+
+    private final static Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private AtomicInteger issuedCount;
+
+    private long expiresInSeconds;
+
+    private boolean failIssue;
+
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp(){
+        issuedCount = new AtomicInteger();
+        expiresInSeconds = 3600;
+        failIssue = false;
+        clock = new MutableClock(START);
+    }
+
+    // 테스트에서 시각을 직접 옮기는 Clock
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now){
+            this.now = now;
+        }
+
+        private void advance(Duration duration){
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone(){
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone){
+            return this;
+        }
+
+        @Override
+        public Instant instant(){
+            return now;
+        }
+    }
+
+    private String createToken(int sequence){
+        String payload = "{\"key\":\"" + sequence + "\",\"exp\":" + clock.instant().plusSeconds(expiresInSeconds).getEpochSecond() + "}";
+        return "header." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    private SentimentAnalysisTokenManager createTokenManager(){
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.fromSupplier(() -> {
+                    int sequence = issuedCount.incrementAndGet();
+                    return failIssue
+                            ? ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()
+                            : ClientResponse.create(HttpStatus.OK).body(createToken(sequence)).build();
+                }))
+                .build();
+        return new SentimentAnalysisTokenManager(webClient, new ObjectMapper(), 0.8,
+                Duration.ofSeconds(3600), Duration.ofMillis(200), clock);
+    }
+
+    @Test
+    @DisplayName("동시에 토큰을 요청해도 토큰은 한번만 발급받는다")
+    void successGetToken_ConcurrentWaiters(){
+        //given
+        SentimentAnalysisTokenManager tokenManager = createTokenManager();
+
+        //when
+        Mono<List<String>> tokens = Flux.range(0, 10)
+                .flatMap(i -> tokenManager.getToken())
+                .distinct()
+                .collectList();
+
+        //then
+        StepVerifier.create(tokens)
+                .assertNext(tokenResult -> assertThat(tokenResult.size(), equalTo(1)))
+                .verifyComplete();
+
+        assertThat(issuedCount.get(), equalTo(1));
+    }
+
+    @Test
+    @DisplayName("갱신 시점이 지난 토큰은 만료 전까지 그대로 쓰면서 백그라운드에서 한번만 재발급받는다")
+    void successGetToken_RefreshAheadOfExpiry(){
+        //given
+        SentimentAnalysisTokenManager tokenManager = createTokenManager();
+        String firstToken = tokenManager.getToken().block();
+        clock.advance(Duration.ofSeconds(3000));
+
+        //when
+        Mono<List<String>> tokens = Flux.range(0, 5)
+                .flatMap(i -> tokenManager.getToken())
+                .collectList();
+
+        //then
+        StepVerifier.create(tokens)
+                .assertNext(tokenResult -> {
+                    assertThat(tokenResult.get(0), equalTo(firstToken));
+                    assertThat(tokenResult, hasSize(5));
+                })
+                .verifyComplete();
+        assertThat(issuedCount.get(), equalTo(2));
+        assertThat(tokenManager.getToken().block(), not(equalTo(firstToken)));
+    }
+
+    @Test
+    @DisplayName("요청이 없어도 유효시간의 일정 비율이 지나면 timer 로 미리 재발급받는다")
+    void successScheduledRefresh() throws Exception {
+        //given
+        expiresInSeconds = 1;
+        SentimentAnalysisTokenManager tokenManager = createTokenManager();
+
+        //when
+        tokenManager.getToken().block();
+
+        //then
+        for(int i = 0; i < 30 && issuedCount.get() < 2; i++){
+            Thread.sleep(100);
+        }
+        assertThat(issuedCount.get(), greaterThanOrEqualTo(2));
+    }
+
+    @Test
+    @DisplayName("발급에 실패하면 동시에 기다리던 요청이 실패를 공유하고 backoff 동안 다시 요청하지 않는다")
+    void failGetToken_ShareFailureDuringBackoff() throws Exception {
+        //given
+        failIssue = true;
+        SentimentAnalysisTokenManager tokenManager = createTokenManager();
+
+        //when
+        Mono<Long> failures = Flux.range(0, 10)
+                .flatMap(i -> tokenManager.getToken().map(token -> 0L).onErrorReturn(1L))
+                .reduce(0L, Long::sum);
+
+        //then
+        StepVerifier.create(failures)
+                .expectNext(10L)
+                .verifyComplete();
+        StepVerifier.create(tokenManager.getToken())
+                .expectError()
+                .verify();
+        assertThat(issuedCount.get(), equalTo(1));
+
+        //when
+        failIssue = false;
+        Thread.sleep(300);
+
+        //then
+        StepVerifier.create(tokenManager.getToken())
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(issuedCount.get(), equalTo(2));
+    }
+
+    @Test
+    @DisplayName("거절된 토큰은 한번만 재발급받고 이미 재발급된 경우 새 토큰을 공유한다")
+    void successRefreshToken(){
+        //given
+        SentimentAnalysisTokenManager tokenManager = createTokenManager();
+        String rejectedToken = tokenManager.getToken().block();
+
+        //when
+        Mono<List<String>> tokens = Flux.range(0, 5)
+                .flatMap(i -> tokenManager.refreshToken(rejectedToken))
+                .distinct()
+                .collectList();
+
+        //then
+        StepVerifier.create(tokens)
+                .assertNext(tokenResult -> {
+                    assertThat(tokenResult.size(), equalTo(1));
+                    assertThat(tokenResult.get(0).equals(rejectedToken), equalTo(false));
+                })
+                .verifyComplete();
+
+        assertThat(issuedCount.get(), equalTo(2));
+    }
+}
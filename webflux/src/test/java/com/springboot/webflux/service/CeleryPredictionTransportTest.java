@@ -0,0 +1,184 @@
+package com.springboot.webflux.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.reactivestreams.Publisher;
+import org.springframework.data.redis.core.ReactiveListOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_BROKER_FAILED;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(SpringExtension.class)
+public class CeleryPredictionTransportTest {
+
+    @Mock
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    @Mock
+    private ReactiveListOperations<String, String> listOperations;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOperations;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // redis 대신 사용하는 메모리 저장소 (key -> celery 결과 JSON)
+    private final Map<String, String> results = new ConcurrentHashMap<>();
+    private final List<JsonNode> publishedMessages = new ArrayList<>();
+    private final AtomicInteger pushCalls = new AtomicInteger();
+    private final AtomicInteger getCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp(){
+        given(redisTemplate.opsForList()).willReturn(listOperations);
+        given(redisTemplate.opsForValue()).willReturn(valueOperations);
+        given(listOperations.leftPushAll(eq("celery"), anyCollection())).willAnswer(invocation -> {
+            pushCalls.incrementAndGet();
+            for(Object message : (Iterable<?>) invocation.getArgument(1)){
+                publishedMessages.add(objectMapper.readTree((String) message));
+            }
+            return Mono.just((long) publishedMessages.size());
+        });
+        given(valueOperations.multiGet(anyCollection())).willAnswer(invocation -> {
+            getCalls.incrementAndGet();
+            List<String> values = new ArrayList<>();
+            for(Object key : (Iterable<?>) invocation.getArgument(0)){
+                values.add(results.get((String) key));
+            }
+            return Mono.just(values);
+        });
+        given(redisTemplate.delete(ArgumentMatchers.<Publisher<String>>any())).willAnswer(invocation ->
+                Flux.from(invocation.<Publisher<String>>getArgument(0))
+                        .filter(key -> results.remove(key) != null)
+                        .count());
+    }
+
+    private CeleryPredictionTransport createTransport(long resultTimeoutMillis){
+        return new CeleryPredictionTransport(redisTemplate, objectMapper, meterRegistry,
+                false, "celery", 10, resultTimeoutMillis, 256);
+    }
+
+    // celery worker 처럼 발행된 메시지를 처리해 결과를 저장
+    private void work(String status, String result) throws Exception {
+        for(JsonNode message : publishedMessages){
+            String taskId = message.path("headers").path("id").asText();
+            results.put("celery-task-meta-" + taskId,
+                    "{\"status\":\"" + status + "\",\"result\":" + result + ",\"task_id\":\"" + taskId + "\"}");
+        }
+        publishedMessages.clear();
+    }
+
+    @Test
+    @DisplayName("여러 작업을 한 번의 LPUSH 로 발행하고 한 번의 MGET 으로 결과를 수거한다")
+    void successSubmit_Pipelined() throws Exception {
+        //given
+        CeleryPredictionTransport transport = createTransport(1000);
+        List<JsonNode> received = new ArrayList<>();
+        for(int i = 0; i < 3; i++){
+            transport.submit(CeleryPredictionTransport.PREDICT_TASK, "contents " + i).subscribe(received::add);
+        }
+
+        //when
+        transport.exchange().block();
+        JsonNode message = publishedMessages.get(0);
+        String body = new String(Base64.getDecoder().decode(message.path("body").asText()), StandardCharsets.UTF_8);
+        work("SUCCESS", "{\"predict\":\"positive\",\"percentage\":90.5,\"modelVersion\":\"best_model-1\"}");
+        transport.exchange().block();
+
+        //then
+        assertThat(message.path("headers").path("task").asText(), equalTo(CeleryPredictionTransport.PREDICT_TASK));
+        assertThat(message.path("properties").path("delivery_info").path("routing_key").asText(), equalTo("celery"));
+        assertThat(objectMapper.readTree(body).get(0).get(0).asText(), startsWith("contents "));
+        assertThat(pushCalls.get(), equalTo(1));
+        assertThat(getCalls.get(), equalTo(2));
+        assertThat(received.size(), equalTo(3));
+        assertThat(received.get(0).path("percentage").floatValue(), equalTo(90.5f));
+        assertThat(results.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    @DisplayName("작업이 실패하면 대기 중인 요청을 실패시킨다")
+    void failSubmit_TaskFailure() throws Exception {
+        //given
+        CeleryPredictionTransport transport = createTransport(1000);
+        Mono<JsonNode> result = transport.submit(CeleryPredictionTransport.PREDICT_TASK, "contents");
+
+        //when, then
+        StepVerifier.create(result)
+                .then(() -> transport.exchange().block())
+                .then(() -> {
+                    try {
+                        work("FAILURE", "{\"exc_type\":\"ValueError\",\"exc_message\":[\"bad input\"]}");
+                    } catch (Exception e){
+                        throw new IllegalStateException(e);
+                    }
+                    transport.exchange().block();
+                })
+                .expectErrorSatisfies(e -> assertThat(e.getMessage(), containsString("bad input")))
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("결과가 오지 않으면 시간 초과로 실패하고 더 이상 결과를 조회하지 않는다")
+    void failSubmit_Timeout(){
+        //given
+        CeleryPredictionTransport transport = createTransport(50);
+        Mono<JsonNode> result = transport.submit(CeleryPredictionTransport.PREDICT_TASK, "contents");
+
+        //when, then
+        StepVerifier.create(result)
+                .then(() -> transport.exchange().block())
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(1));
+        transport.exchange().block();
+        assertThat(getCalls.get(), equalTo(1));
+        assertThat(meterRegistry.counter("sentiment.prediction.celery.timeouts").count(), equalTo(1.0));
+    }
+
+    @Test
+    @DisplayName("broker 발행에 실패하면 결과를 기다리지 않고 발행하려던 요청을 바로 실패시킨다")
+    void failSubmit_BrokerFailure(){
+        //given
+        CeleryPredictionTransport transport = createTransport(10000);
+        given(listOperations.leftPushAll(eq("celery"), anyCollection()))
+                .willReturn(Mono.error(new IllegalStateException("redis down")));
+        Mono<JsonNode> result = transport.submit(CeleryPredictionTransport.PREDICT_TASK, "contents");
+
+        //when, then
+        StepVerifier.create(result)
+                .then(() -> transport.exchange().onErrorResume(e -> Mono.empty()).block())
+                .expectErrorSatisfies(e -> assertThat(e.getMessage(),
+                        equalTo(PREDICTION_BROKER_FAILED.getMessage())))
+                .verify(Duration.ofSeconds(1));
+        assertThat(meterRegistry.counter("sentiment.prediction.celery.failed").count(), equalTo(1.0));
+        assertThat(meterRegistry.counter("sentiment.prediction.celery.published").count(), equalTo(0.0));
+    }
+}
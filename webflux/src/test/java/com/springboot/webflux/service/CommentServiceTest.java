@@ -2,12 +2,14 @@ package com.springboot.webflux.service;
 
 import com.springboot.webflux.dto.CommentEditRequest;
 import com.springboot.webflux.dto.CommentRegisterRequest;
+import com.springboot.webflux.dto.PredictionCompletion;
 import com.springboot.webflux.entity.Comment;
 import com.springboot.webflux.entity.Member;
 import com.springboot.webflux.entity.Post;
 import com.springboot.webflux.repository.CommentRepository;
 import com.springboot.webflux.repository.MemberRepository;
 import com.springboot.webflux.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -15,6 +17,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -23,6 +26,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import static com.springboot.webflux.constants.ExceptionStatus.*;
+import static com.springboot.webflux.constants.PredictState.COMPLETED;
+import static com.springboot.webflux.constants.PredictState.PENDING;
+import static com.springboot.webflux.constants.PredictionTarget.COMMENT;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -47,6 +53,14 @@ public class CommentServiceTest {
     @Mock
     private CommentPredictionService commentPredictionService;
 
+    @Mock
+    private PredictionPipeline predictionPipeline;
+
+    @BeforeEach
+    void setUp(){
+        ReflectionTestUtils.setField(commentService, "awaitTimeoutSeconds", 1L);
+    }
+
     private Member createMember(){
         return Member.builder()
                 .memberId(11L)
@@ -124,9 +138,7 @@ public class CommentServiceTest {
                     .willReturn(Mono.just(member));
             given(postRepository.findById(anyLong()))
                     .willReturn(Mono.just(post));
-            given(commentRepository.save(any(Comment.class)))
-                    .willReturn(Mono.just(comment));
-            given(commentPredictionService.callSentimentAnalysisApiAndSaveResultForRegister(any(Comment.class)))
+            given(commentPredictionService.saveAndPredictForRegister(any(Comment.class)))
                     .willReturn(Mono.just(comment));
 
             //when
@@ -208,9 +220,7 @@ public class CommentServiceTest {
                     .willReturn(Mono.just(comment));
             given(memberRepository.findById(anyLong()))
                     .willReturn(Mono.just(member));
-            given(commentRepository.save(any(Comment.class)))
-                    .willReturn(Mono.just(editedComment));
-            given(commentPredictionService.callSentimentAnalysisApiAndSaveResultForEdit(any(Comment.class)))
+            given(commentPredictionService.saveAndPredictForEdit(any(Comment.class)))
                     .willReturn(Mono.just(editedComment));
 
             //when
@@ -267,7 +277,7 @@ public class CommentServiceTest {
                     .willReturn(Mono.just(comment));
             given(memberRepository.findById(anyLong()))
                     .willReturn(Mono.just(member));
-            given(commentRepository.delete(any(Comment.class)))
+            given(commentPredictionService.delete(any(Comment.class)))
                     .willReturn(Mono.empty());
 
             //when
@@ -465,4 +475,76 @@ public class CommentServiceTest {
                     .verify();
         }
     }
+
+    @Nested
+    @DisplayName("comment 감정 분석 결과 대기")
+    class AwaitPredictionComment{
+
+        @Test
+        @DisplayName("comment 감정 분석 결과 대기 성공 - 이미 분석이 끝난 경우")
+        void successAwaitPrediction_AlreadyCompleted(){
+            //given
+            Comment comment = createComment();
+            comment.setPredictState(COMPLETED);
+
+            given(commentRepository.findById(anyLong()))
+                    .willReturn(Mono.just(comment));
+            given(predictionPipeline.completions(COMMENT, 1L))
+                    .willReturn(Flux.never());
+
+            //when
+            Mono<Comment> fetchedComment = commentService.awaitPrediction(1L);
+
+            //then
+            StepVerifier.create(fetchedComment)
+                    .assertNext(commentResult -> assertThat(commentResult.getPredictState(), equalTo(COMPLETED)))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("comment 감정 분석 결과 대기 성공 - 분석 완료 알림을 받은 경우")
+        void successAwaitPrediction_CompletedLater(){
+            //given
+            Comment pendingComment = createComment();
+            pendingComment.setPredictState(PENDING);
+            Comment completedComment = createComment();
+            completedComment.setPredictState(COMPLETED);
+
+            given(commentRepository.findById(anyLong()))
+                    .willReturn(Mono.just(pendingComment))
+                    .willReturn(Mono.just(completedComment));
+            given(predictionPipeline.completions(COMMENT, 1L))
+                    .willReturn(Flux.just(new PredictionCompletion(COMMENT, 1L)));
+
+            //when
+            Mono<Comment> fetchedComment = commentService.awaitPrediction(1L);
+
+            //then
+            StepVerifier.create(fetchedComment)
+                    .assertNext(commentResult -> assertThat(commentResult.getPredictState(), equalTo(COMPLETED)))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("comment 감정 분석 결과 대기 - 시간 초과시 현재 상태 반환")
+        void successAwaitPrediction_Timeout(){
+            //given
+            Comment comment = createComment();
+            comment.setPredictState(PENDING);
+
+            given(commentRepository.findById(anyLong()))
+                    .willReturn(Mono.just(comment));
+            given(predictionPipeline.completions(COMMENT, 1L))
+                    .willReturn(Flux.never());
+
+            //when
+            Mono<Comment> fetchedComment = commentService.awaitPrediction(1L);
+
+            //then
+            StepVerifier.create(fetchedComment)
+                    .assertNext(commentResult -> assertThat(commentResult.getPredictState(), equalTo(PENDING)))
+                    .verifyComplete();
+        }
+    }
+
 }
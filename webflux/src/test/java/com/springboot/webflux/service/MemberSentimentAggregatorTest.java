@@ -0,0 +1,226 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.entity.Member;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+
+public class MemberSentimentAggregatorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // DB 대신 flush 된 증감을 회원별로 누적 (memberId -> [total, positive])
+    private final Map<Long, long[]> persisted = new ConcurrentHashMap<>();
+    private final List<Integer> statementSizes = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicBoolean failWrites = new AtomicBoolean();
+    // 0 이 아니면 그 번째 문장부터 실패
+    private final AtomicInteger failFromStatement = new AtomicInteger();
+    private final List<Map<Long, List<SentimentTrendTracker.Change>>> trendWrites = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicBoolean failTrendWrites = new AtomicBoolean();
+
+    private MemberSentimentAggregator createAggregator(int flushThreshold, Duration flushInterval){
+        return createAggregator(flushThreshold, flushInterval, 500);
+    }
+
+    private MemberSentimentAggregator createAggregator(int flushThreshold, Duration flushInterval, int maxRowsPerStatement){
+        return new MemberSentimentAggregator(null, mock(MemberSentimentLeaderboard.class), rows -> Mono.defer(() -> {
+            if(failWrites.get() || (failFromStatement.get() > 0 && statementSizes.size() + 1 >= failFromStatement.get())){
+                return Mono.error(new IllegalStateException("connection lost"));
+            }
+            statementSizes.add(rows.size());
+            for(MemberSentimentAggregator.MemberDelta row : rows){
+                persisted.merge(row.memberId(), new long[]{row.totalDelta(), row.positiveDelta()},
+                        (current, added) -> new long[]{current[0] + added[0], current[1] + added[1]});
+            }
+            return Mono.<Void>empty();
+        }), changes -> Mono.defer(() -> {
+            if(failTrendWrites.get()){
+                return Mono.error(new IllegalStateException("lock wait timeout"));
+            }
+            trendWrites.add(Map.copyOf(changes));
+            return Mono.<Void>empty();
+        }), meterRegistry, true, flushInterval, flushThreshold, maxRowsPerStatement, Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 같은 회원에 더하는 중에 flush 해도 증감을 잃지 않는다")
+    void successFlush_ConcurrentAdds() throws Exception {
+        //given
+        MemberSentimentAggregator aggregator = createAggregator(Integer.MAX_VALUE, Duration.ofHours(1));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        AtomicLong flushedWhileAdding = new AtomicLong();
+
+        //when
+        for(int thread = 0; thread < 8; thread++){
+            executor.execute(() -> {
+                for(int i = 0; i < 10_000; i++){
+                    aggregator.add(1L + i % 3, 1, i % 2, 1);
+                    if(i % 1000 == 0){
+                        aggregator.flush().block();
+                        flushedWhileAdding.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        done.await(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        aggregator.flush().block();
+
+        //then
+        long total = persisted.values().stream().mapToLong(counts -> counts[0]).sum();
+        long positive = persisted.values().stream().mapToLong(counts -> counts[1]).sum();
+        assertThat(total, equalTo(80_000L));
+        assertThat(positive, equalTo(40_000L));
+        assertThat(flushedWhileAdding.get(), equalTo(80L));
+    }
+
+    @Test
+    @DisplayName("조회 시 DB 값에 아직 flush 되지 않은 증감을 더해 positiveRate 를 계산한다")
+    void successWithPending(){
+        //given
+        MemberSentimentAggregator aggregator = createAggregator(Integer.MAX_VALUE, Duration.ofHours(1));
+        Member member = Member.builder().memberId(1L).activityCount(2L).positiveCount(1L).build();
+        aggregator.add(1L, 1, 1, 1);
+        aggregator.add(1L, 1, 1, 1);
+
+        //when
+        Member merged = aggregator.withPending(member);
+
+        //then
+        assertThat(merged.getActivityCount(), equalTo(4L));
+        assertThat(merged.getPositiveCount(), equalTo(3L));
+        assertThat(merged.getPositiveRate(), equalTo(0.75f));
+    }
+
+    @Test
+    @DisplayName("flush 에 실패하면 증감을 되돌려 다음 flush 에서 다시 반영한다")
+    void successFlush_RetryAfterFailure(){
+        //given
+        MemberSentimentAggregator aggregator = createAggregator(Integer.MAX_VALUE, Duration.ofHours(1));
+        aggregator.add(1L, 1, 1, 1);
+        aggregator.add(2L, 1, 0, 1);
+        failWrites.set(true);
+        aggregator.flush().onErrorResume(e -> Mono.empty()).block();
+
+        //when
+        failWrites.set(false);
+        aggregator.flush().block();
+
+        //then
+        assertThat(persisted.get(1L), equalTo(new long[]{1, 1}));
+        assertThat(persisted.get(2L), equalTo(new long[]{1, 0}));
+        assertThat(statementSizes, contains(2));
+        assertThat(meterRegistry.counter("sentiment.member.aggregator.flush.failures").count(), equalTo(1.0));
+    }
+
+    @Test
+    @DisplayName("대기 중인 회원 수가 기준을 넘으면 주기를 기다리지 않고 flush 하고, 종료 시 남은 증감을 반영한다")
+    void successFlush_ThresholdAndShutdown() throws Exception {
+        //given
+        MemberSentimentAggregator aggregator = createAggregator(2, Duration.ofHours(1));
+        aggregator.start();
+
+        //when
+        aggregator.add(1L, 1, 1, 1);
+        aggregator.add(2L, 1, 0, 1);
+        Thread.sleep(200);
+        aggregator.add(3L, 1, 1, 1);
+        aggregator.stop();
+
+        //then
+        assertThat(statementSizes, contains(2, 1));
+        assertThat(persisted.keySet(), containsInAnyOrder(1L, 2L, 3L));
+    }
+
+    @Test
+    @DisplayName("추이 증감은 분석마다 반영하지 않고 flush 때 회원 여러 명을 한 번에 반영하며, 실패하면 추이만 다시 반영한다")
+    void successFlush_TrendChanges(){
+        //given
+        MemberSentimentAggregator aggregator = createAggregator(Integer.MAX_VALUE, Duration.ofHours(1));
+        SentimentTrendTracker.Change added = new SentimentTrendTracker.Change(100, 1, true);
+        SentimentTrendTracker.Change retracted = new SentimentTrendTracker.Change(50, -1, true);
+        aggregator.add(1L, 1, 1, 1, List.of(added));
+        aggregator.add(1L, 0, 0, 2, List.of(retracted, added));
+        aggregator.add(2L, 1, 0, 3, List.of(added));
+        failTrendWrites.set(true);
+        aggregator.flush().onErrorResume(e -> Mono.empty()).block();
+
+        //when
+        failTrendWrites.set(false);
+        aggregator.flush().block();
+
+        //then
+        assertThat(persisted.get(1L), equalTo(new long[]{1, 1}));
+        assertThat(persisted.get(2L), equalTo(new long[]{1, 0}));
+        assertThat(trendWrites, hasSize(1));
+        assertThat(trendWrites.get(0).get(1L), contains(added, retracted, added));
+        assertThat(trendWrites.get(0).get(2L), contains(added));
+    }
+
+    @Test
+    @DisplayName("조회 시 다시 계산한 지점 이후에 쌓인 증감만 더한다")
+    void successWithPending_AfterRebuiltEventId(){
+        //given
+        MemberSentimentAggregator aggregator = createAggregator(Integer.MAX_VALUE, Duration.ofHours(1));
+        aggregator.add(1L, 1, 1, 10);
+        aggregator.add(2L, 1, 0, 12);
+        aggregator.add(2L, -1, -1, 15);
+
+        //when
+        Member rebuiltBefore = aggregator.withPending(
+                Member.builder().memberId(1L).activityCount(5L).positiveCount(3L).build(), 12);
+        Member rebuiltAfter = aggregator.withPending(
+                Member.builder().memberId(2L).activityCount(5L).positiveCount(3L).build(), 12);
+
+        //then
+        assertThat(rebuiltBefore.getActivityCount(), equalTo(5L));
+        assertThat(rebuiltAfter.getActivityCount(), equalTo(5L));
+        assertThat(rebuiltAfter.getPositiveCount(), equalTo(2L));
+    }
+
+    @Test
+    @DisplayName("여러 문장 중 뒤 문장이 실패하면 커밋되지 않은 묶음만 다시 반영해 집계가 한 번씩만 더해진다")
+    void successFlush_RetryOnlyUncommittedChunks(){
+        //given
+        MemberSentimentAggregator aggregator = createAggregator(Integer.MAX_VALUE, Duration.ofHours(1), 2);
+        SentimentTrendTracker.Change added = new SentimentTrendTracker.Change(100, 1, true);
+        for(long memberId = 1; memberId <= 5; memberId++){
+            aggregator.add(memberId, 1, 1, memberId, List.of(added));
+        }
+        failFromStatement.set(2);
+        aggregator.flush().onErrorResume(e -> Mono.empty()).block();
+
+        //when
+        failFromStatement.set(0);
+        aggregator.flush().block();
+
+        //then
+        for(long memberId = 1; memberId <= 5; memberId++){
+            assertThat(persisted.get(memberId), equalTo(new long[]{1, 1}));
+        }
+        assertThat(statementSizes, contains(2, 2, 2, 1));
+        long trendWritten = trendWrites.stream().mapToLong(changes -> changes.size()).sum();
+        assertThat(trendWritten, equalTo(5L));
+    }
+}
@@ -0,0 +1,173 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.constants.SentimentRanking;
+import com.springboot.webflux.entity.Member;
+import com.springboot.webflux.repository.MemberRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.springboot.webflux.constants.SentimentRanking.NEGATIVE;
+import static com.springboot.webflux.constants.SentimentRanking.POSITIVE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class MemberSentimentLeaderboardTest {
+
+    private final static int SIZE = 5;
+    private final static long MIN_ACTIVITY_COUNT = 3;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MemberRepository memberRepository = mock(MemberRepository.class);
+
+    // DB 의 member 테이블 대신 회원별 [activity_count, positive_count]
+    private final Map<Long, long[]> members = new HashMap<>();
+
+    private MemberSentimentLeaderboard createLeaderboard(int buffer){
+        return new MemberSentimentLeaderboard(memberRepository, meterRegistry, true, SIZE, buffer, MIN_ACTIVITY_COUNT, 2, 60);
+    }
+
+    // 아래 SQL 의 정렬을 Java 로 옮긴 기준 결과 (NEGATIVE 는 비율만 ASC), DB 에서 실행한 결과와 비교하는 것은 아님
+    // SELECT member_id FROM member WHERE activity_count >= :minActivityCount
+    // ORDER BY positive_count / activity_count DESC, activity_count DESC, member_id ASC LIMIT :limit
+    private List<Long> referenceQuery(SentimentRanking ranking, int limit){
+        Comparator<Map.Entry<Long, long[]>> byRate = Comparator.comparing(
+                entry -> new BigDecimal(entry.getValue()[1])
+                        .divide(new BigDecimal(entry.getValue()[0]), 20, RoundingMode.HALF_EVEN));
+        Comparator<Map.Entry<Long, long[]>> order = (ranking == POSITIVE ? byRate.reversed() : byRate)
+                .thenComparing(entry -> entry.getValue()[0], Comparator.reverseOrder())
+                .thenComparing(Map.Entry::getKey);
+        return members.entrySet().stream()
+                .filter(entry -> entry.getValue()[0] >= MIN_ACTIVITY_COUNT)
+                .sorted(order)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> served(MemberSentimentLeaderboard leaderboard, SentimentRanking ranking){
+        return leaderboard.top(ranking, SIZE).stream()
+                .map(MemberSentimentLeaderboard.Score::memberId)
+                .collect(Collectors.toList());
+    }
+
+    private void applyDelta(MemberSentimentLeaderboard leaderboard, long memberId, long totalDelta, long positiveDelta){
+        long[] counts = members.computeIfAbsent(memberId, id -> new long[2]);
+        counts[0] += totalDelta;
+        counts[1] += positiveDelta;
+        if(counts[0] == 0){
+            members.remove(memberId);
+        }
+        leaderboard.applyDelta(memberId, totalDelta, positiveDelta);
+    }
+
+    @Test
+    @DisplayName("등록, 수정, 삭제가 섞여도 메모리 순위가 SQL 과 같은 정렬로 매긴 순위와 항상 같다")
+    void successApplyDelta_MatchesReferenceOrdering(){
+        //given
+        MemberSentimentLeaderboard leaderboard = createLeaderboard(3);
+        Random random = new Random(42);
+
+        //when, then
+        for(int step = 0; step < 20_000; step++){
+            long memberId = 1 + random.nextInt(40);
+            long[] counts = members.get(memberId);
+            int action = random.nextInt(10);
+
+            if(action < 6 || counts == null){
+                // 새 글 분석
+                applyDelta(leaderboard, memberId, 1, random.nextBoolean() ? 1 : 0);
+            }
+            else if(action < 8){
+                // 수정으로 결과가 바뀜
+                boolean wasPositive = counts[1] > 0 && (counts[1] == counts[0] || random.nextBoolean());
+                applyDelta(leaderboard, memberId, 0, wasPositive ? -1 : (counts[1] < counts[0] ? 1 : 0));
+            }
+            else{
+                // 삭제
+                boolean positive = counts[1] > 0 && (counts[1] == counts[0] || random.nextBoolean());
+                applyDelta(leaderboard, memberId, -1, positive ? -1 : 0);
+            }
+
+            assertThat("step " + step, served(leaderboard, POSITIVE), equalTo(referenceQuery(POSITIVE, SIZE)));
+            assertThat("step " + step, served(leaderboard, NEGATIVE), equalTo(referenceQuery(NEGATIVE, SIZE)));
+        }
+        assertThat(meterRegistry.counter("sentiment.leaderboard.refills").count(), greaterThan(0.0));
+    }
+
+    @Test
+    @DisplayName("활동 수가 기준보다 적은 회원은 비율이 높아도 순위에 들지 않는다")
+    void successTop_MinActivityCount(){
+        //given
+        MemberSentimentLeaderboard leaderboard = createLeaderboard(3);
+        applyDelta(leaderboard, 1L, 2, 2);
+        applyDelta(leaderboard, 2L, 4, 3);
+
+        //when
+        List<MemberSentimentLeaderboard.Score> ranked = leaderboard.top(POSITIVE, SIZE);
+
+        //then
+        assertThat(ranked, hasSize(1));
+        assertThat(ranked.get(0).memberId(), equalTo(2L));
+        assertThat(ranked.get(0).getPositiveRate(), equalTo(0.75f));
+
+        //when
+        applyDelta(leaderboard, 1L, 1, 1);
+
+        //then
+        assertThat(served(leaderboard, POSITIVE), contains(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("시작할 때 활동이 있는 회원을 keyset 으로 읽어 순위를 채운다")
+    void successLoad_KeysetPages(){
+        //given
+        MemberSentimentLeaderboard leaderboard = createLeaderboard(3);
+        given(memberRepository.findWithActivityAfter(0L, 2)).willReturn(Flux.just(
+                Member.builder().memberId(1L).activityCount(4L).positiveCount(1L).build(),
+                Member.builder().memberId(3L).activityCount(5L).positiveCount(5L).build()));
+        given(memberRepository.findWithActivityAfter(3L, 2)).willReturn(Flux.just(
+                Member.builder().memberId(7L).activityCount(3L).positiveCount(2L).build()));
+
+        //when, then
+        StepVerifier.create(leaderboard.load(Function.identity()))
+                .expectNext(3L)
+                .verifyComplete();
+        assertThat(served(leaderboard, POSITIVE), contains(3L, 7L, 1L));
+        assertThat(served(leaderboard, NEGATIVE), contains(1L, 7L, 3L));
+    }
+
+    @Test
+    @DisplayName("다시 읽으면 다른 인스턴스에서 바뀐 카운터로 덮어쓰고 활동이 없어진 회원은 순위에서 뺀다")
+    void successLoad_Reconcile(){
+        //given
+        MemberSentimentLeaderboard leaderboard = createLeaderboard(3);
+        leaderboard.applyDelta(1L, 4, 1);
+        leaderboard.applyDelta(2L, 5, 5);
+        given(memberRepository.findWithActivityAfter(0L, 2)).willReturn(Flux.just(
+                Member.builder().memberId(1L).activityCount(6L).positiveCount(6L).build(),
+                Member.builder().memberId(3L).activityCount(4L).positiveCount(1L).build()));
+        given(memberRepository.findWithActivityAfter(3L, 2)).willReturn(Flux.empty());
+
+        //when, then
+        StepVerifier.create(leaderboard.load(Function.identity()))
+                .expectNext(2L)
+                .verifyComplete();
+        assertThat(served(leaderboard, POSITIVE), contains(1L, 3L));
+        assertThat(leaderboard.top(POSITIVE, SIZE).get(0).activityCount(), equalTo(6L));
+    }
+}
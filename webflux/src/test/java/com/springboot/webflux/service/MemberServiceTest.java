@@ -5,6 +5,7 @@ import com.springboot.webflux.dto.MemberSignInRequest;
 import com.springboot.webflux.dto.MemberSignUpRequest;
 import com.springboot.webflux.entity.Member;
 import com.springboot.webflux.repository.MemberRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -20,6 +21,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(SpringExtension.class)
 public class MemberServiceTest {
@@ -33,6 +36,15 @@ public class MemberServiceTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private MemberSentimentAggregator memberSentimentAggregator;
+
+    @BeforeEach
+    void setUp(){
+        given(memberSentimentAggregator.withPending(any(Member.class)))
+                .willAnswer(invocation -> invocation.getArgument(0));
+    }
+
     private Member createMember(){
         return Member.builder()
                 .memberId(1L)
@@ -222,9 +234,10 @@ public class MemberServiceTest {
             MemberEditRequest memberEditRequest = createEditRequest();
 
             given(memberRepository.findById(anyLong()))
-                    .willReturn(Mono.just(member));
-            given(memberRepository.save(any(Member.class)))
+                    .willReturn(Mono.just(member))
                     .willReturn(Mono.just(editedMember));
+            given(memberRepository.updateAccount(anyLong(), anyString(), anyString()))
+                    .willReturn(Mono.just(1));
 
             //when
             Mono<Member> fetchedMember = memberService.edit(memberEditRequest, "user");
@@ -238,6 +251,38 @@ public class MemberServiceTest {
                     .verifyComplete();
         }
 
+        @Test
+        @DisplayName("member 수정은 계정 정보만 바꾸고 먼저 읽은 집계 값으로 덮어쓰지 않는다")
+        void successEdit_KeepSentimentCounts(){
+            //given
+            Member staleMember = createMember();
+            staleMember.setActivityCount(3L);
+            staleMember.setPositiveCount(1L);
+            Member flushedMember = createEditedMember();
+            flushedMember.setActivityCount(10L);
+            flushedMember.setPositiveCount(7L);
+            MemberEditRequest memberEditRequest = createEditRequest();
+
+            given(memberRepository.findById(anyLong()))
+                    .willReturn(Mono.just(staleMember))
+                    .willReturn(Mono.just(flushedMember));
+            given(memberRepository.updateAccount(anyLong(), anyString(), anyString()))
+                    .willReturn(Mono.just(1));
+
+            //when
+            Mono<Member> fetchedMember = memberService.edit(memberEditRequest, "user");
+
+            //then
+            StepVerifier.create(fetchedMember)
+                    .assertNext(memberResult -> {
+                        assertThat(memberResult.getActivityCount(), equalTo(10L));
+                        assertThat(memberResult.getPositiveCount(), equalTo(7L));
+                    })
+                    .verifyComplete();
+            verify(memberRepository).updateAccount(1L, "edited user", "password");
+            verify(memberRepository, never()).save(any(Member.class));
+        }
+
         @Test
         @DisplayName("member 수정 실패 - 유효하지 않은 요청")
         void failEdit_InvalidRequest(){
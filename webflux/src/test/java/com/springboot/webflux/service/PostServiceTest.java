@@ -2,10 +2,12 @@ package com.springboot.webflux.service;
 
 import com.springboot.webflux.dto.PostEditRequest;
 import com.springboot.webflux.dto.PostRegisterRequest;
+import com.springboot.webflux.dto.PredictionCompletion;
 import com.springboot.webflux.entity.Member;
 import com.springboot.webflux.entity.Post;
 import com.springboot.webflux.repository.MemberRepository;
 import com.springboot.webflux.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -13,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -21,6 +24,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import static com.springboot.webflux.constants.ExceptionStatus.*;
+import static com.springboot.webflux.constants.PredictState.COMPLETED;
+import static com.springboot.webflux.constants.PredictState.PENDING;
+import static com.springboot.webflux.constants.PredictionTarget.POST;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -42,6 +48,14 @@ public class PostServiceTest {
     @Mock
     private PostPredictionService postPredictionService;
 
+    @Mock
+    private PredictionPipeline predictionPipeline;
+
+    @BeforeEach
+    void setUp(){
+        ReflectionTestUtils.setField(postService, "awaitTimeoutSeconds", 1L);
+    }
+
     private Member createMember(){
         return Member.builder()
                 .memberId(1L)
@@ -105,9 +119,7 @@ public class PostServiceTest {
 
             given(memberRepository.findById(anyLong()))
                     .willReturn(Mono.just(member));
-            given(postRepository.save(any(Post.class)))
-                    .willReturn(Mono.just(post));
-            given(postPredictionService.callSentimentAnalysisApiAndSaveResultForRegister(any(Post.class)))
+            given(postPredictionService.saveAndPredictForRegister(any(Post.class)))
                     .willReturn(Mono.just(post));
 
             //when
@@ -164,9 +176,7 @@ public class PostServiceTest {
                     .willReturn(Mono.just(post));
             given(memberRepository.findById(anyLong()))
                     .willReturn(Mono.just(member));
-            given(postRepository.save(any(Post.class)))
-                    .willReturn(Mono.just(editedPost));
-            given(postPredictionService.callSentimentAnalysisApiAndSaveResultForEdit(any(Post.class)))
+            given(postPredictionService.saveAndPredictForEdit(any(Post.class)))
                     .willReturn(Mono.just(editedPost));
 
             //when
@@ -223,7 +233,7 @@ public class PostServiceTest {
                     .willReturn(Mono.just(post));
             given(memberRepository.findById(anyLong()))
                     .willReturn(Mono.just(member));
-            given(postRepository.delete(any(Post.class)))
+            given(postPredictionService.delete(any(Post.class)))
                     .willReturn(Mono.empty());
 
             //when
@@ -245,7 +255,7 @@ public class PostServiceTest {
                     .willReturn(Mono.just(post));
             given(memberRepository.findById(anyLong()))
                     .willReturn(Mono.just(member));
-            given(postRepository.delete(any(Post.class)))
+            given(postPredictionService.delete(any(Post.class)))
                     .willReturn(Mono.empty());
 
             //when
@@ -363,4 +373,75 @@ public class PostServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("post 감정 분석 결과 대기")
+    class AwaitPredictionPost{
+
+        @Test
+        @DisplayName("post 감정 분석 결과 대기 성공 - 이미 분석이 끝난 경우")
+        void successAwaitPrediction_AlreadyCompleted(){
+            //given
+            Post post = createPost();
+            post.setPredictState(COMPLETED);
+
+            given(postRepository.findById(anyLong()))
+                    .willReturn(Mono.just(post));
+            given(predictionPipeline.completions(POST, 1L))
+                    .willReturn(Flux.never());
+
+            //when
+            Mono<Post> fetchedPost = postService.awaitPrediction(1L);
+
+            //then
+            StepVerifier.create(fetchedPost)
+                    .assertNext(postResult -> assertThat(postResult.getPredictState(), equalTo(COMPLETED)))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("post 감정 분석 결과 대기 성공 - 분석 완료 알림을 받은 경우")
+        void successAwaitPrediction_CompletedLater(){
+            //given
+            Post pendingPost = createPost();
+            pendingPost.setPredictState(PENDING);
+            Post completedPost = createPost();
+            completedPost.setPredictState(COMPLETED);
+
+            given(postRepository.findById(anyLong()))
+                    .willReturn(Mono.just(pendingPost))
+                    .willReturn(Mono.just(completedPost));
+            given(predictionPipeline.completions(POST, 1L))
+                    .willReturn(Flux.just(new PredictionCompletion(POST, 1L)));
+
+            //when
+            Mono<Post> fetchedPost = postService.awaitPrediction(1L);
+
+            //then
+            StepVerifier.create(fetchedPost)
+                    .assertNext(postResult -> assertThat(postResult.getPredictState(), equalTo(COMPLETED)))
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("post 감정 분석 결과 대기 - 시간 초과시 현재 상태 반환")
+        void successAwaitPrediction_Timeout(){
+            //given
+            Post post = createPost();
+            post.setPredictState(PENDING);
+
+            given(postRepository.findById(anyLong()))
+                    .willReturn(Mono.just(post));
+            given(predictionPipeline.completions(POST, 1L))
+                    .willReturn(Flux.never());
+
+            //when
+            Mono<Post> fetchedPost = postService.awaitPrediction(1L);
+
+            //then
+            StepVerifier.create(fetchedPost)
+                    .assertNext(postResult -> assertThat(postResult.getPredictState(), equalTo(PENDING)))
+                    .verifyComplete();
+        }
+    }
+
 }
@@ -0,0 +1,108 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.constants.PredictionLane;
+import com.springboot.webflux.exception.PredictionOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_OVERLOADED;
+import static com.springboot.webflux.constants.PredictionLane.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class PredictionAdmissionControllerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+
+    private final PredictionConcurrencyLimiter limiter = new PredictionConcurrencyLimiter(meterRegistry, true, 1, 1, 1,
+            0.9, 2.0, 500, Map.of(
+            CREATE, new PredictionConcurrencyLimiter.LaneSettings(3, 16, Duration.ofSeconds(5)),
+            EDIT, new PredictionConcurrencyLimiter.LaneSettings(2, 16, Duration.ofSeconds(5)),
+            BACKFILL, new PredictionConcurrencyLimiter.LaneSettings(1, 16, Duration.ofSeconds(5))),
+            clock::get);
+
+    private PredictionAdmissionController createController(PredictionAdmissionController.Mode mode, int maxBacklog){
+        return new PredictionAdmissionController(limiter, meterRegistry, true, mode, maxBacklog, 1500, 1);
+    }
+
+    private Sinks.One<String> occupy(PredictionLane lane){
+        Sinks.One<String> blocker = Sinks.one();
+        limiter.execute(blocker::asMono)
+                .contextWrite(PredictionConcurrencyLimiter.withLane(lane))
+                .subscribe();
+        return blocker;
+    }
+
+    @Test
+    @DisplayName("대기열이 한도 아래면 바로 분석하도록 받아들인다")
+    void successAdmit_UnderThreshold(){
+        //given
+        PredictionAdmissionController controller = createController(PredictionAdmissionController.Mode.REJECT, 3);
+        occupy(CREATE);
+
+        //when, then
+        StepVerifier.create(controller.admit())
+                .expectNext(true)
+                .verifyComplete();
+        assertThat(controller.getBacklog(), equalTo(1));
+        assertThat(meterRegistry.counter("sentiment.prediction.admission.admitted").count(), equalTo(1.0));
+    }
+
+    @Test
+    @DisplayName("REJECT 모드에서 대기열이 한도를 넘으면 재시도 시간과 함께 거절한다")
+    void failAdmit_RejectWhenBacklogFull(){
+        //given
+        PredictionAdmissionController controller = createController(PredictionAdmissionController.Mode.REJECT, 3);
+        occupy(CREATE);
+        occupy(EDIT);
+        occupy(BACKFILL);
+
+        //when, then
+        StepVerifier.create(controller.admit())
+                .expectErrorSatisfies(e -> {
+                    PredictionOverloadedException overloaded = (PredictionOverloadedException) e;
+                    assertThat(overloaded.getStatus(), equalTo(PREDICTION_OVERLOADED));
+                    assertThat(overloaded.getRetryAfterSeconds(), equalTo(1L));
+                })
+                .verify();
+        assertThat(controller.getBacklog(), equalTo(3));
+        assertThat(meterRegistry.get("sentiment.prediction.admission.shed").tag("mode", "REJECT").counter().count(),
+                equalTo(1.0));
+    }
+
+    @Test
+    @DisplayName("DEFER 모드에서 예상 대기 시간이 한도를 넘으면 분석을 미루도록 받아들인다")
+    void successAdmit_DeferWhenDelayed(){
+        //given
+        PredictionAdmissionController controller = createController(PredictionAdmissionController.Mode.DEFER, 100);
+        Sinks.One<String> slow = occupy(CREATE);
+        occupy(CREATE);
+        occupy(CREATE);
+        occupy(CREATE);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        slow.tryEmitValue("done");
+
+        //when
+        Mono<Boolean> admission = controller.admit();
+
+        //then
+        StepVerifier.create(admission)
+                .expectNext(false)
+                .verifyComplete();
+        assertThat(limiter.getEstimatedDelayMillis(), equalTo(2000L));
+        assertThat(meterRegistry.get("sentiment.prediction.admission.estimated-delay").gauge().value(),
+                equalTo(2000.0));
+        assertThat(meterRegistry.get("sentiment.prediction.admission.shed").tag("mode", "DEFER").counter().count(),
+                equalTo(1.0));
+    }
+}
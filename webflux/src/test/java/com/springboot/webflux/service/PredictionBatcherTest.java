@@ -0,0 +1,100 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.dto.PredictionResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.springboot.webflux.constants.ExceptionStatus.BATCH_RESULT_MISMATCH;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(SpringExtension.class)
+public class PredictionBatcherTest {
+
+    @Mock
+    private SentimentAnalysisClient sentimentAnalysisClient;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PredictionBatcher predictionBatcher;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        predictionBatcher = new PredictionBatcher(sentimentAnalysisClient, meterRegistry, 2, 50);
+        predictionBatcher.start();
+    }
+
+    @AfterEach
+    void tearDown(){
+        predictionBatcher.stop();
+    }
+
+    private PredictionResult createResult(String predict){
+        return PredictionResult.builder()
+                .predict(predict)
+                .percentage(90f)
+                .build();
+    }
+
+    @Test
+    @DisplayName("동시에 들어온 요청을 하나의 batch 요청으로 보내고 각자의 결과를 돌려준다")
+    void successSubmit(){
+        //given
+        given(sentimentAnalysisClient.analyzeBatch(anyList(), any()))
+                .willAnswer(invocation -> {
+                    List<String> contents = invocation.getArgument(0);
+                    return Mono.just(contents.stream()
+                            .map(this::createResult)
+                            .collect(Collectors.toList()));
+                });
+
+        //when
+        Mono<List<String>> results = Mono.zip(
+                predictionBatcher.submit("first"),
+                predictionBatcher.submit("second"))
+                .map(tuple -> List.of(tuple.getT1().predict(), tuple.getT2().predict()));
+
+        //then
+        StepVerifier.create(results)
+                .assertNext(predicts -> assertThat(predicts, equalTo(List.of("first", "second"))))
+                .verifyComplete();
+
+        verify(sentimentAnalysisClient, times(1)).analyzeBatch(anyList(), any());
+        assertThat(meterRegistry.summary("sentiment.prediction.batch.fill.ratio").mean(), equalTo(1.0));
+    }
+
+    @Test
+    @DisplayName("batch 결과 개수가 다르면 모든 요청이 실패한다")
+    void failSubmit_BatchResultMismatch(){
+        //given
+        given(sentimentAnalysisClient.analyzeBatch(anyList(), any()))
+                .willReturn(Mono.just(List.of(createResult("positive"))));
+
+        //when
+        Mono<PredictionResult> first = predictionBatcher.submit("first");
+        Mono<PredictionResult> second = predictionBatcher.submit("second");
+
+        //then
+        StepVerifier.create(Mono.zip(first, second))
+                .expectErrorMatches(throwable -> throwable instanceof RuntimeException &&
+                        throwable.getMessage().equals(BATCH_RESULT_MISMATCH.getMessage()))
+                .verify();
+    }
+}
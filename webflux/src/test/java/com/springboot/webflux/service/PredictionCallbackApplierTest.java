@@ -0,0 +1,101 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.dto.PredictionCallbackRequest;
+import com.springboot.webflux.dto.PredictionResult;
+import com.springboot.webflux.dto.PredictionSubject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.springboot.webflux.constants.PredictionTarget.COMMENT;
+import static com.springboot.webflux.constants.PredictionTarget.POST;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class PredictionCallbackApplierTest {
+
+    @Mock
+    private PostPredictionService postPredictionService;
+
+    @Mock
+    private CommentPredictionService commentPredictionService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PredictionCallbackApplier predictionCallbackApplier;
+
+    @BeforeEach
+    void setUp(){
+        predictionCallbackApplier = new PredictionCallbackApplier(postPredictionService, commentPredictionService,
+                meterRegistry);
+
+        given(postPredictionService.applyCallbackResult(any(PredictionSubject.class), any(PredictionResult.class)))
+                .willReturn(Mono.empty());
+        given(commentPredictionService.applyCallbackResult(any(PredictionSubject.class), any(PredictionResult.class)))
+                .willReturn(Mono.empty());
+    }
+
+    @Test
+    @DisplayName("기다리는 쪽이 없는 콜백은 subject 의 대상별로 결과를 저장한다")
+    void successApply(){
+        //given
+        PredictionSubject post = new PredictionSubject(POST, 1L, 10L, "post-key");
+        PredictionSubject comment = new PredictionSubject(COMMENT, 2L, 20L, "comment-key");
+        PredictionCallbackRequest callback = PredictionCallbackRequest.builder()
+                .jobId("job")
+                .modelVersion("best_model-2")
+                .results(List.of(new PredictionResult("positive", 91.5f, null),
+                        new PredictionResult("negative", 60f, null),
+                        new PredictionResult("positive", 70f, null)))
+                .subjects(Arrays.asList(post, null, comment))
+                .build();
+
+        //when, then
+        StepVerifier.create(predictionCallbackApplier.apply(callback))
+                .expectNext(true)
+                .verifyComplete();
+        verify(postPredictionService, times(1)).applyCallbackResult(eq(post),
+                eq(new PredictionResult("positive", 91.5f, "best_model-2")));
+        verify(commentPredictionService, times(1)).applyCallbackResult(eq(comment),
+                eq(new PredictionResult("positive", 70f, "best_model-2")));
+        assertThat(meterRegistry.counter("sentiment.prediction.callback.applied").count(), equalTo(2.0));
+    }
+
+    @Test
+    @DisplayName("subject 가 없거나 실패한 콜백은 저장하지 않는다")
+    void failApply_NothingToSave(){
+        //given
+        PredictionCallbackRequest withoutSubjects = PredictionCallbackRequest.builder()
+                .jobId("job")
+                .results(List.of(new PredictionResult("positive", 91.5f, null)))
+                .build();
+        PredictionCallbackRequest failed = PredictionCallbackRequest.builder()
+                .jobId("job")
+                .error("prediction failed")
+                .subjects(List.of(new PredictionSubject(POST, 1L, 10L, "post-key")))
+                .build();
+
+        //when, then
+        StepVerifier.create(predictionCallbackApplier.apply(withoutSubjects))
+                .expectNext(false)
+                .verifyComplete();
+        StepVerifier.create(predictionCallbackApplier.apply(failed))
+                .expectNext(false)
+                .verifyComplete();
+        verify(postPredictionService, never()).applyCallbackResult(any(PredictionSubject.class),
+                any(PredictionResult.class));
+    }
+}
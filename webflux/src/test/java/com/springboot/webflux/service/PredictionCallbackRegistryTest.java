@@ -0,0 +1,105 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.dto.PredictionCallbackRequest;
+import com.springboot.webflux.dto.PredictionResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class PredictionCallbackRegistryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PredictionCallbackRequest createCallback(String jobId){
+        return PredictionCallbackRequest.builder()
+                .jobId(jobId)
+                .modelVersion("best_model-1")
+                .results(List.of(new PredictionResult("positive", 90f, null)))
+                .build();
+    }
+
+    @Test
+    @DisplayName("제출 응답보다 먼저 도착한 콜백도 결과로 전달한다")
+    void successAwait_CallbackBeforeSubmitResponse(){
+        //given
+        PredictionCallbackRegistry registry = new PredictionCallbackRegistry(meterRegistry, 1000);
+
+        //when
+        Mono<PredictionCallbackRequest> result = registry.await(jobId -> {
+            registry.complete(createCallback(jobId));
+            return Mono.empty();
+        });
+
+        //then
+        StepVerifier.create(result)
+                .assertNext(callback -> assertThat(callback.getResults().get(0).predict(), equalTo("positive")))
+                .verifyComplete();
+        assertThat(registry.getPendingCount(), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("콜백이 오지 않으면 시간 초과로 실패하고 늦게 온 콜백은 거절한다")
+    void failAwait_Timeout(){
+        //given
+        PredictionCallbackRegistry registry = new PredictionCallbackRegistry(meterRegistry, 50);
+        String[] submittedJobId = new String[1];
+
+        //when
+        Mono<PredictionCallbackRequest> result = registry.await(jobId -> {
+            submittedJobId[0] = jobId;
+            return Mono.empty();
+        });
+
+        //then
+        StepVerifier.create(result)
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(1));
+        assertThat(registry.getPendingCount(), equalTo(0));
+        assertThat(registry.complete(createCallback(submittedJobId[0])), equalTo(false));
+        assertThat(meterRegistry.counter("sentiment.prediction.callback.timeouts").count(), equalTo(1.0));
+        assertThat(meterRegistry.counter("sentiment.prediction.callback.late").count(), equalTo(1.0));
+    }
+
+    @Test
+    @DisplayName("분석 실패 콜백을 받으면 대기 중인 요청을 실패시킨다")
+    void failAwait_ErrorCallback(){
+        //given
+        PredictionCallbackRegistry registry = new PredictionCallbackRegistry(meterRegistry, 1000);
+
+        //when
+        Mono<PredictionCallbackRequest> result = registry.await(jobId -> {
+            registry.complete(PredictionCallbackRequest.builder().jobId(jobId).error("prediction failed").build());
+            return Mono.empty();
+        });
+
+        //then
+        StepVerifier.create(result)
+                .expectErrorSatisfies(e -> assertThat(e.getMessage(), containsString("prediction failed")))
+                .verify();
+    }
+
+    @Test
+    @DisplayName("제출이 실패하면 등록한 job 을 정리한다")
+    void failAwait_SubmitFailed(){
+        //given
+        PredictionCallbackRegistry registry = new PredictionCallbackRegistry(meterRegistry, 1000);
+
+        //when
+        Mono<PredictionCallbackRequest> result = registry.await(jobId -> Mono.error(new IllegalStateException("down")));
+
+        //then
+        StepVerifier.create(result)
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertThat(registry.getPendingCount(), equalTo(0));
+    }
+}
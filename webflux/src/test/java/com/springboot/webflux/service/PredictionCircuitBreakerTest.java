@@ -0,0 +1,136 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.exception.PredictionUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_BULKHEAD_FULL;
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_CIRCUIT_OPEN;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class PredictionCircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PredictionCircuitBreaker predictionCircuitBreaker;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        predictionCircuitBreaker = new PredictionCircuitBreaker(meterRegistry, true, 4, 4, 50f,
+                Duration.ofSeconds(10), 2, Duration.ofSeconds(5), 2, clock::get);
+    }
+
+    private void callWith(Mono<String> result){
+        predictionCircuitBreaker.execute(() -> result)
+                .onErrorResume(e -> Mono.empty())
+                .block();
+    }
+
+    @Test
+    @DisplayName("실패율이 임계치를 넘으면 서킷이 열리고 호출을 거절한다")
+    void openOnFailureRate(){
+        //given
+        callWith(Mono.just("positive"));
+        callWith(Mono.just("positive"));
+        callWith(Mono.error(WebClientResponseException.create(503, "flask down", null, null, null)));
+
+        //when
+        callWith(Mono.error(WebClientResponseException.create(503, "flask down", null, null, null)));
+
+        //then
+        assertThat(predictionCircuitBreaker.getState(), is(PredictionCircuitBreaker.State.OPEN));
+        StepVerifier.create(predictionCircuitBreaker.execute(() -> Mono.just("positive")))
+                .expectErrorSatisfies(e -> assertThat(((PredictionUnavailableException) e).getStatus(),
+                        is(PREDICTION_CIRCUIT_OPEN)))
+                .verify();
+        assertThat(meterRegistry.get("sentiment.prediction.circuit.rejected")
+                .tag("reason", "circuit_open").counter().count(), is(1.0));
+    }
+
+    @Test
+    @DisplayName("요청 자체의 오류(4xx)는 실패로 세지 않는다")
+    void clientErrorIsNotFailure(){
+        //given
+        callWith(Mono.error(WebClientResponseException.create(400, "bad request", null, null, null)));
+        callWith(Mono.error(WebClientResponseException.create(400, "bad request", null, null, null)));
+        callWith(Mono.error(WebClientResponseException.create(400, "bad request", null, null, null)));
+
+        //when
+        callWith(Mono.error(WebClientResponseException.create(400, "bad request", null, null, null)));
+
+        //then
+        assertThat(predictionCircuitBreaker.getState(), is(PredictionCircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    @DisplayName("차단 시간이 지나고 시험 호출이 모두 성공하면 서킷이 닫힌다")
+    void closeAfterHalfOpenSuccess(){
+        //given
+        for(int i = 0; i < 4; i++){
+            callWith(Mono.error(WebClientResponseException.create(503, "flask down", null, null, null)));
+        }
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        //when
+        callWith(Mono.just("positive"));
+        assertThat(predictionCircuitBreaker.getState(), is(PredictionCircuitBreaker.State.HALF_OPEN));
+        callWith(Mono.just("positive"));
+
+        //then
+        assertThat(predictionCircuitBreaker.getState(), is(PredictionCircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    @DisplayName("시험 호출이 실패하면 서킷이 다시 열린다")
+    void reopenOnHalfOpenFailure(){
+        //given
+        for(int i = 0; i < 4; i++){
+            callWith(Mono.error(WebClientResponseException.create(503, "flask down", null, null, null)));
+        }
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        //when
+        callWith(Mono.error(WebClientResponseException.create(503, "flask down", null, null, null)));
+
+        //then
+        assertThat(predictionCircuitBreaker.getState(), is(PredictionCircuitBreaker.State.OPEN));
+        assertThat(predictionCircuitBreaker.isCallPermitted(), is(false));
+    }
+
+    @Test
+    @DisplayName("동시 호출 한도를 넘으면 즉시 거절한다")
+    void rejectWhenBulkheadFull(){
+        //given
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        predictionCircuitBreaker.execute(first::asMono).subscribe();
+        predictionCircuitBreaker.execute(second::asMono).subscribe();
+
+        //when
+        Mono<String> rejected = predictionCircuitBreaker.execute(() -> Mono.just("positive"));
+
+        //then
+        StepVerifier.create(rejected)
+                .expectErrorSatisfies(e -> assertThat(((PredictionUnavailableException) e).getStatus(),
+                        is(PREDICTION_BULKHEAD_FULL)))
+                .verify();
+
+        first.tryEmitValue("positive");
+        StepVerifier.create(predictionCircuitBreaker.execute(() -> Mono.just("positive")))
+                .expectNext("positive")
+                .verifyComplete();
+    }
+}
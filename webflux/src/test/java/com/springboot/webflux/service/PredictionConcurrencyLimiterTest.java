@@ -0,0 +1,190 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.constants.PredictionLane;
+import com.springboot.webflux.exception.PredictionUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_LIMIT_EXCEEDED;
+import static com.springboot.webflux.constants.PredictionLane.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class PredictionConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PredictionConcurrencyLimiter createLimiter(int initialLimit, int capacity){
+        return new PredictionConcurrencyLimiter(meterRegistry, true, initialLimit, 1, 16, 0.5, 2.0, 500, Map.of(
+                CREATE, new PredictionConcurrencyLimiter.LaneSettings(3, capacity, Duration.ofSeconds(5)),
+                EDIT, new PredictionConcurrencyLimiter.LaneSettings(2, capacity, Duration.ofSeconds(5)),
+                BACKFILL, new PredictionConcurrencyLimiter.LaneSettings(1, capacity, Duration.ofSeconds(5))),
+                clock::get);
+    }
+
+    private <T> Mono<T> execute(PredictionConcurrencyLimiter limiter, PredictionLane lane, Mono<T> call){
+        return limiter.execute(() -> call)
+                .contextWrite(PredictionConcurrencyLimiter.withLane(lane));
+    }
+
+    private Mono<String> respondAfter(long millis){
+        return Mono.fromSupplier(() -> {
+            clock.addAndGet(Duration.ofMillis(millis).toNanos());
+            return "positive";
+        });
+    }
+
+    @Test
+    @DisplayName("한도를 넘는 요청은 대기열에서 기다렸다가 순서대로 실행된다")
+    void queueBeyondLimit(){
+        //given
+        PredictionConcurrencyLimiter limiter = createLimiter(1, 4);
+        Sinks.One<String> first = Sinks.one();
+        limiter.execute(first::asMono).subscribe();
+
+        //when
+        Mono<String> queued = limiter.execute(() -> Mono.just("queued"));
+
+        //then
+        StepVerifier.create(queued)
+                .then(() -> {
+                    assertThat(limiter.getQueued(), is(1));
+                    first.tryEmitValue("positive");
+                })
+                .expectNext("queued")
+                .verifyComplete();
+        assertThat(limiter.getInFlight(), is(0));
+        assertThat(meterRegistry.get("sentiment.prediction.limiter.queue.time").tag("lane", "CREATE").timer().count(),
+                is(2L));
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 차면 요청을 버린다")
+    void shedWhenQueueFull(){
+        //given
+        PredictionConcurrencyLimiter limiter = createLimiter(1, 1);
+        limiter.execute(() -> Sinks.<String>one().asMono()).subscribe();
+        limiter.execute(() -> Sinks.<String>one().asMono()).subscribe();
+
+        //when
+        Mono<String> shed = limiter.execute(() -> Mono.just("positive"));
+
+        //then
+        StepVerifier.create(shed)
+                .expectErrorSatisfies(e -> assertThat(((PredictionUnavailableException) e).getStatus(),
+                        is(PREDICTION_LIMIT_EXCEEDED)))
+                .verify();
+        assertThat(meterRegistry.get("sentiment.prediction.limiter.shed").tag("lane", "CREATE").counter().count(),
+                is(1.0));
+    }
+
+    @Test
+    @DisplayName("밀린 요청은 lane 가중치 비율로 처리하고 낮은 lane 도 굶기지 않는다")
+    void grantByLaneWeight(){
+        //given
+        PredictionConcurrencyLimiter limiter = createLimiter(1, 16);
+        Sinks.One<String> blocker = Sinks.one();
+        execute(limiter, CREATE, blocker.asMono()).subscribe();
+
+        List<PredictionLane> served = new ArrayList<>();
+        for(int i = 0; i < 6; i++){
+            for(PredictionLane lane : List.of(BACKFILL, EDIT, CREATE)){
+                execute(limiter, lane, Mono.fromCallable(() -> served.add(lane))).subscribe();
+            }
+        }
+        assertThat(limiter.getDepth(CREATE), is(6));
+        assertThat(limiter.getDepth(BACKFILL), is(6));
+
+        //when
+        blocker.tryEmitValue("positive");
+
+        //then
+        List<PredictionLane> firstRound = served.subList(0, 6);
+        assertThat(served.size(), is(18));
+        assertThat(served.get(0), is(CREATE));
+        assertThat(firstRound.stream().filter(lane -> lane == CREATE).count(), is(3L));
+        assertThat(firstRound.stream().filter(lane -> lane == EDIT).count(), is(2L));
+        assertThat(firstRound, hasItem(BACKFILL));
+        assertThat(limiter.getInFlight(), is(0));
+        assertThat(meterRegistry.get("sentiment.prediction.limiter.queue.time").tag("lane", "BACKFILL").timer().count(),
+                is(6L));
+    }
+
+    @Test
+    @DisplayName("lane 대기열이 가득 차면 해당 lane 요청만 버린다")
+    void shedOnlyFullLane(){
+        //given
+        PredictionConcurrencyLimiter limiter = createLimiter(1, 1);
+        Sinks.One<String> blocker = Sinks.one();
+        execute(limiter, CREATE, blocker.asMono()).subscribe();
+        execute(limiter, BACKFILL, Mono.just("queued")).subscribe();
+
+        //when
+        Mono<String> shed = execute(limiter, BACKFILL, Mono.just("shed"));
+        Mono<String> accepted = execute(limiter, CREATE, Mono.just("accepted"));
+
+        //then
+        StepVerifier.create(shed)
+                .expectError(PredictionUnavailableException.class)
+                .verify();
+        StepVerifier.create(accepted)
+                .then(() -> blocker.tryEmitValue("positive"))
+                .expectNext("accepted")
+                .verifyComplete();
+        assertThat(meterRegistry.get("sentiment.prediction.limiter.shed").tag("lane", "BACKFILL").counter().count(),
+                is(1.0));
+    }
+
+    @Test
+    @DisplayName("대기 중인 요청이 취소되면 대기열에서 빠진다")
+    void removeCancelledWaiter(){
+        //given
+        PredictionConcurrencyLimiter limiter = createLimiter(1, 4);
+        Sinks.One<String> first = Sinks.one();
+        limiter.execute(first::asMono).subscribe();
+
+        //when
+        limiter.execute(() -> Mono.just("queued")).subscribe().dispose();
+
+        //then
+        assertThat(limiter.getQueued(), is(0));
+        first.tryEmitValue("positive");
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    @DisplayName("응답 시간이 기준 이내면 한도를 늘리고 지연되거나 실패하면 줄인다")
+    void adjustLimitByRtt(){
+        //given
+        PredictionConcurrencyLimiter limiter = createLimiter(1, 4);
+
+        //when
+        limiter.execute(() -> respondAfter(100)).block();
+        limiter.execute(() -> respondAfter(100)).block();
+        double increased = limiter.getLimit();
+
+        limiter.execute(() -> respondAfter(1000)).block();
+        double decreasedBySlowResponse = limiter.getLimit();
+
+        limiter.execute(() -> Mono.<String>error(WebClientResponseException.create(503, "unavailable",
+                null, null, null))).onErrorResume(e -> Mono.empty()).block();
+
+        //then
+        assertThat(increased, is(greaterThan(1.0)));
+        assertThat(decreasedBySlowResponse, is(lessThan(increased)));
+        assertThat(limiter.getLimit(), is(closeTo(1.0, 0.0001)));
+    }
+}
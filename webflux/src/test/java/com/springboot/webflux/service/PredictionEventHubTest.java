@@ -0,0 +1,96 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.entity.Member;
+import com.springboot.webflux.entity.Post;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static com.springboot.webflux.constants.PredictState.COMPLETED;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class PredictionEventHubTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Post createPost(Long postId){
+        return Post.builder()
+                .postId(postId)
+                .memberId(1L)
+                .contents("contents")
+                .predictResult("positive")
+                .predictState(COMPLETED)
+                .build();
+    }
+
+    @Test
+    @DisplayName("구독한 post 의 예측 결과만 전달하고 구독이 끝나면 topic 을 정리한다")
+    void successPostEvents(){
+        //given
+        PredictionEventHub hub = new PredictionEventHub(meterRegistry, 16);
+
+        //when, then
+        StepVerifier.create(hub.postEvents(1L).take(1))
+                .then(() -> {
+                    hub.publishPost(createPost(2L));
+                    hub.publishPost(createPost(1L));
+                })
+                .assertNext(post -> assertThat(post.getPostId(), equalTo(1L)))
+                .verifyComplete();
+        assertThat(hub.getTopicCount(), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("같은 member 를 구독한 모든 구독자에게 positiveRate 변경을 전달한다")
+    void successMemberEvents_Multicast(){
+        //given
+        PredictionEventHub hub = new PredictionEventHub(meterRegistry, 16);
+        Member member = Member.builder().memberId(1L).positiveCount(3L).activityCount(4L).build();
+
+        //when, then
+        StepVerifier.create(hub.memberEvents(1L).take(1).mergeWith(hub.memberEvents(1L).take(1)))
+                .then(() -> hub.publishMember(member))
+                .assertNext(received -> assertThat(received.getPositiveRate(), equalTo(0.75f)))
+                .assertNext(received -> assertThat(received.getPositiveRate(), equalTo(0.75f)))
+                .verifyComplete();
+        assertThat(hub.getTopicCount(), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("버퍼를 넘길 만큼 느린 구독자는 버퍼에 쌓인 결과까지만 받고 스트림이 끊긴다")
+    void dropSlowSubscriber(){
+        //given
+        PredictionEventHub hub = new PredictionEventHub(meterRegistry, 2);
+
+        //when, then
+        StepVerifier.create(hub.postEvents(1L), 0)
+                .then(() -> {
+                    for(int i = 0; i < 5; i++){
+                        hub.publishPost(createPost(1L));
+                    }
+                })
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(2)
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        assertThat(hub.getTopicCount(), equalTo(0));
+        assertThat(meterRegistry.counter("sentiment.prediction.stream.dropped").count(), equalTo(1.0));
+    }
+
+    @Test
+    @DisplayName("구독자가 없는 topic 으로의 발행은 무시한다")
+    void ignorePublishWithoutSubscriber(){
+        //given
+        PredictionEventHub hub = new PredictionEventHub(meterRegistry, 16);
+
+        //when
+        hub.publishPost(createPost(1L));
+
+        //then
+        assertThat(hub.getTopicCount(), equalTo(0));
+    }
+}
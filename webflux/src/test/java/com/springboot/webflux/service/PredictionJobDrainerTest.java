@@ -0,0 +1,228 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.constants.PredictionJobType;
+import com.springboot.webflux.entity.PredictionJob;
+import com.springboot.webflux.exception.PredictionUnavailableException;
+import com.springboot.webflux.repository.PredictionJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.hamcrest.Matcher;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_CIRCUIT_OPEN;
+import static com.springboot.webflux.constants.PredictionTarget.COMMENT;
+import static com.springboot.webflux.constants.PredictionTarget.POST;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class PredictionJobDrainerTest {
+
+    @Mock
+    private PredictionJobRepository predictionJobRepository;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    @Mock
+    private PostPredictionService postPredictionService;
+
+    @Mock
+    private CommentPredictionService commentPredictionService;
+
+    @Mock
+    private PredictionCircuitBreaker predictionCircuitBreaker;
+
+    private PredictionJobDrainer predictionJobDrainer;
+
+    @BeforeEach
+    void setUp(){
+        predictionJobDrainer = new PredictionJobDrainer(predictionJobRepository, transactionalOperator,
+                postPredictionService, commentPredictionService, new PredictionPipeline(true),
+                predictionCircuitBreaker, new SimpleMeterRegistry(), 10, 4, 2, 1000, 300, 1000, 60000, 3);
+
+        given(predictionCircuitBreaker.isCallPermitted())
+                .willReturn(true);
+        given(transactionalOperator.transactional(ArgumentMatchers.<Mono<Object>>any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        given(predictionJobRepository.claim(anyList(), anyString(), any(LocalDateTime.class)))
+                .willReturn(Mono.just(1));
+        given(predictionJobRepository.markDone(anyLong(), any(LocalDateTime.class)))
+                .willReturn(Mono.just(1));
+        given(predictionJobRepository.release(anyLong(), anyString(), any()))
+                .willReturn(Mono.just(1));
+        given(predictionJobRepository.requeue(anyLong(), any(LocalDateTime.class)))
+                .willReturn(Mono.just(1));
+    }
+
+    private PredictionJob createJob(Long jobId, int attempts){
+        PredictionJob job = PredictionJob.of(jobId % 2 == 0 ? COMMENT : POST, jobId, PredictionJobType.REGISTER);
+        job.setJobId(jobId);
+        job.setAttempts(attempts);
+        return job;
+    }
+
+    private Matcher<LocalDateTime> after(LocalDateTime from, Duration delay){
+        return allOf(greaterThanOrEqualTo(from.plus(delay)), lessThan(from.plus(delay).plusSeconds(5)));
+    }
+
+    @Test
+    @DisplayName("점유한 작업을 대상별로 처리하고 완료 처리한다")
+    void successDrain(){
+        //given
+        given(predictionJobRepository.findClaimable(any(LocalDateTime.class), any(LocalDateTime.class), anyInt()))
+                .willReturn(Flux.just(createJob(1L, 0), createJob(2L, 0)));
+        given(postPredictionService.processPredictionJob(any(PredictionJob.class)))
+                .willReturn(Mono.empty());
+        given(commentPredictionService.processPredictionJob(any(PredictionJob.class)))
+                .willReturn(Mono.empty());
+
+        //when
+        Mono<Void> drained = predictionJobDrainer.drain();
+
+        //then
+        StepVerifier.create(drained)
+                .verifyComplete();
+
+        verify(predictionJobRepository, times(1)).claim(eq(List.of(1L, 2L)), anyString(), any(LocalDateTime.class));
+        verify(predictionJobRepository, times(1)).markDone(eq(1L), any(LocalDateTime.class));
+        verify(predictionJobRepository, times(1)).markDone(eq(2L), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("실패한 작업은 다시 대기 상태로 돌리고 최대 시도 횟수를 넘으면 실패 처리한다")
+    void failDrain_ReleaseOrFail(){
+        //given
+        given(predictionJobRepository.findClaimable(any(LocalDateTime.class), any(LocalDateTime.class), anyInt()))
+                .willReturn(Flux.just(createJob(1L, 0), createJob(3L, 1)));
+        given(postPredictionService.processPredictionJob(any(PredictionJob.class)))
+                .willReturn(Mono.error(new RuntimeException("analysis failed")));
+        given(postPredictionService.markPredictionFailed(anyLong()))
+                .willReturn(Mono.empty());
+
+        //when
+        Mono<Void> drained = predictionJobDrainer.drain();
+
+        //then
+        StepVerifier.create(drained)
+                .verifyComplete();
+
+        verify(predictionJobRepository, times(1)).release(eq(1L), eq("PENDING"), any(LocalDateTime.class));
+        verify(predictionJobRepository, times(1)).release(3L, "FAILED", null);
+        verify(postPredictionService, times(1)).markPredictionFailed(3L);
+        verify(predictionJobRepository, never()).markDone(anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("감정 분석 서버가 차단된 동안 거절된 작업은 시도 횟수 증가 없이 다시 대기시킨다")
+    void unavailableDrain_Requeue(){
+        //given
+        given(predictionJobRepository.findClaimable(any(LocalDateTime.class), any(LocalDateTime.class), anyInt()))
+                .willReturn(Flux.just(createJob(1L, 4)));
+        given(postPredictionService.processPredictionJob(any(PredictionJob.class)))
+                .willReturn(Mono.error(new PredictionUnavailableException(PREDICTION_CIRCUIT_OPEN)));
+
+        //when
+        Mono<Void> drained = predictionJobDrainer.drain();
+
+        //then
+        StepVerifier.create(drained)
+                .verifyComplete();
+
+        verify(predictionJobRepository, times(1)).requeue(eq(1L), any(LocalDateTime.class));
+        verify(predictionJobRepository, never()).release(anyLong(), anyString(), any());
+        verify(postPredictionService, never()).markPredictionFailed(anyLong());
+    }
+
+    @Test
+    @DisplayName("다시 시도할 작업은 시도 횟수에 따라 두 배씩 늘어나는 간격 뒤로 미룬다")
+    void failDrain_Backoff(){
+        //given
+        PredictionJob failed = createJob(1L, 0);
+        PredictionJob unavailable = createJob(3L, 0);
+        unavailable.setRequeues(1);
+        given(predictionJobRepository.findClaimable(any(LocalDateTime.class), any(LocalDateTime.class), anyInt()))
+                .willReturn(Flux.just(failed, unavailable));
+        given(postPredictionService.processPredictionJob(failed))
+                .willReturn(Mono.error(new RuntimeException("analysis failed")));
+        given(postPredictionService.processPredictionJob(unavailable))
+                .willReturn(Mono.error(new PredictionUnavailableException(PREDICTION_CIRCUIT_OPEN)));
+        LocalDateTime now = LocalDateTime.now();
+
+        //when
+        Mono<Void> drained = predictionJobDrainer.drain();
+
+        //then
+        StepVerifier.create(drained)
+                .verifyComplete();
+
+        ArgumentCaptor<LocalDateTime> releasedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> requeuedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(predictionJobRepository, times(1)).release(eq(1L), eq("PENDING"), releasedAt.capture());
+        verify(predictionJobRepository, times(1)).requeue(eq(3L), requeuedAt.capture());
+        assertThat(releasedAt.getValue(), after(now, Duration.ofSeconds(1)));
+        assertThat(requeuedAt.getValue(), after(now, Duration.ofSeconds(2)));
+    }
+
+    @Test
+    @DisplayName("감정 분석 서버를 쓸 수 없어 최대 횟수만큼 되돌린 작업은 한 번의 실패로 센다")
+    void unavailableDrain_RequeueLimit(){
+        //given
+        PredictionJob job = createJob(1L, 1);
+        job.setRequeues(2);
+        given(predictionJobRepository.findClaimable(any(LocalDateTime.class), any(LocalDateTime.class), anyInt()))
+                .willReturn(Flux.just(job));
+        given(postPredictionService.processPredictionJob(any(PredictionJob.class)))
+                .willReturn(Mono.error(new PredictionUnavailableException(PREDICTION_CIRCUIT_OPEN)));
+        given(postPredictionService.markPredictionFailed(anyLong()))
+                .willReturn(Mono.empty());
+
+        //when
+        Mono<Void> drained = predictionJobDrainer.drain();
+
+        //then
+        StepVerifier.create(drained)
+                .verifyComplete();
+
+        verify(predictionJobRepository, never()).requeue(anyLong(), any(LocalDateTime.class));
+        verify(predictionJobRepository, times(1)).release(1L, "FAILED", null);
+        verify(postPredictionService, times(1)).markPredictionFailed(1L);
+    }
+
+
+    @Test
+    @DisplayName("서킷이 열려 있으면 작업을 점유하지 않는다")
+    void circuitOpenDrain_SkipClaim(){
+        //given
+        given(predictionCircuitBreaker.isCallPermitted())
+                .willReturn(false);
+
+        //when
+        Mono<Void> drained = predictionJobDrainer.drain();
+
+        //then
+        StepVerifier.create(drained)
+                .verifyComplete();
+
+        verify(predictionJobRepository, never()).findClaimable(any(LocalDateTime.class), any(LocalDateTime.class), anyInt());
+    }
+}
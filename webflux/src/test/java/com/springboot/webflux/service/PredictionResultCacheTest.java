@@ -0,0 +1,70 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.dto.PredictionResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class PredictionResultCacheTest {
+
+    private PredictionResultCache predictionResultCache;
+
+    private AtomicInteger analyzeCount;
+
+    @BeforeEach
+    void setUp(){
+        predictionResultCache = new PredictionResultCache(new SimpleMeterRegistry(), true, 100, 60);
+        analyzeCount = new AtomicInteger();
+    }
+
+    private Function<String, Mono<PredictionResult>> analyzer(String modelVersion){
+        return contents -> Mono.fromSupplier(() -> {
+            analyzeCount.incrementAndGet();
+            return PredictionResult.builder()
+                    .predict("positive")
+                    .percentage(99f)
+                    .modelVersion(modelVersion)
+                    .build();
+        });
+    }
+
+    @Test
+    @DisplayName("정규화 후 같은 내용이면 캐시된 결과를 사용한다")
+    void successGetOrAnalyze_CacheHit(){
+        //when
+        Mono<PredictionResult> first = predictionResultCache.getOrAnalyze("좋아요", analyzer("1"));
+        Mono<PredictionResult> second = predictionResultCache.getOrAnalyze("  좋아요 ", analyzer("1"));
+
+        //then
+        StepVerifier.create(first.then(second))
+                .assertNext(result -> assertThat(result.predict(), equalTo("positive")))
+                .verifyComplete();
+
+        assertThat(analyzeCount.get(), equalTo(1));
+    }
+
+    @Test
+    @DisplayName("모델 버전이 바뀌면 캐시가 무효화된다")
+    void successGetOrAnalyze_ModelVersionChanged(){
+        //when
+        Mono<PredictionResult> calls = predictionResultCache.getOrAnalyze("대박", analyzer("1"))
+                .then(predictionResultCache.getOrAnalyze("ㅋㅋㅋ", analyzer("2")))
+                .then(predictionResultCache.getOrAnalyze("대박", analyzer("2")));
+
+        //then
+        StepVerifier.create(calls)
+                .assertNext(result -> assertThat(result.modelVersion(), equalTo("2")))
+                .verifyComplete();
+
+        assertThat(analyzeCount.get(), equalTo(3));
+    }
+}
@@ -0,0 +1,101 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.exception.PredictionUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_DEADLINE_EXCEEDED;
+import static com.springboot.webflux.constants.ExceptionStatus.PREDICTION_RETRY_EXHAUSTED;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class PredictionRetryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private PredictionRetry createRetry(long deadlineMillis){
+        return new PredictionRetry(meterRegistry, true, 3, 1, 10, 0.5, deadlineMillis);
+    }
+
+    private WebClientResponseException responseException(HttpStatus status){
+        return WebClientResponseException.create(status.value(), status.getReasonPhrase(),
+                HttpHeaders.EMPTY, new byte[0], null);
+    }
+
+    // 정해진 횟수만큼 실패한 뒤 성공하는 호출
+    private Mono<String> failingCall(int failures, Throwable error){
+        return Mono.defer(() -> attempts.incrementAndGet() <= failures
+                ? Mono.error(error)
+                : Mono.just("positive"));
+    }
+
+    @Test
+    @DisplayName("일시적인 5xx 는 다시 시도해 성공한다")
+    void successExecute_RetryServerError(){
+        //given
+        PredictionRetry retry = createRetry(1000);
+
+        //when, then
+        StepVerifier.create(retry.execute(() -> failingCall(2, responseException(HttpStatus.SERVICE_UNAVAILABLE))))
+                .expectNext("positive")
+                .verifyComplete();
+        assertThat(attempts.get(), equalTo(3));
+        assertThat(meterRegistry.counter("sentiment.prediction.retry.attempts").count(), equalTo(2.0));
+    }
+
+    @Test
+    @DisplayName("4xx 는 다시 시도하지 않고 그대로 실패한다")
+    void failExecute_NotRetryable(){
+        //given
+        PredictionRetry retry = createRetry(1000);
+
+        //when, then
+        StepVerifier.create(retry.execute(() -> failingCall(1, responseException(HttpStatus.BAD_REQUEST))))
+                .expectError(WebClientResponseException.BadRequest.class)
+                .verify();
+        assertThat(attempts.get(), equalTo(1));
+    }
+
+    @Test
+    @DisplayName("재시도 횟수를 모두 쓰면 outbox 로 넘길 수 있도록 PredictionUnavailableException 으로 실패한다")
+    void failExecute_RetryExhausted(){
+        //given
+        PredictionRetry retry = createRetry(1000);
+
+        //when, then
+        StepVerifier.create(retry.execute(() -> failingCall(5, responseException(HttpStatus.BAD_GATEWAY))))
+                .expectErrorSatisfies(e -> {
+                    assertThat(e, instanceOf(PredictionUnavailableException.class));
+                    assertThat(((PredictionUnavailableException) e).getStatus(), equalTo(PREDICTION_RETRY_EXHAUSTED));
+                })
+                .verify();
+        assertThat(attempts.get(), equalTo(3));
+        assertThat(meterRegistry.counter("sentiment.prediction.retry.exhausted").count(), equalTo(1.0));
+    }
+
+    @Test
+    @DisplayName("deadline 이 지나면 남은 재시도 없이 실패한다")
+    void failExecute_DeadlineExceeded(){
+        //given
+        PredictionRetry retry = createRetry(50);
+
+        //when, then
+        StepVerifier.create(retry.execute(() -> Mono.never()))
+                .expectErrorSatisfies(e -> {
+                    assertThat(e, instanceOf(PredictionUnavailableException.class));
+                    assertThat(((PredictionUnavailableException) e).getStatus(), equalTo(PREDICTION_DEADLINE_EXCEEDED));
+                })
+                .verify(Duration.ofSeconds(1));
+        assertThat(meterRegistry.counter("sentiment.prediction.retry.deadline.exceeded").count(), equalTo(1.0));
+    }
+}
@@ -0,0 +1,79 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.dto.PredictionResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class PredictionSingleFlightTest {
+
+    private PredictionSingleFlight predictionSingleFlight;
+
+    private AtomicInteger analyzeCount;
+
+    private Sinks.One<PredictionResult> response;
+
+    @BeforeEach
+    void setUp(){
+        predictionSingleFlight = new PredictionSingleFlight(new SimpleMeterRegistry(), true);
+        analyzeCount = new AtomicInteger();
+        response = Sinks.one();
+    }
+
+    private Function<String, Mono<PredictionResult>> analyzer(){
+        return contents -> Mono.defer(() -> {
+            analyzeCount.incrementAndGet();
+            return response.asMono();
+        });
+    }
+
+    @Test
+    @DisplayName("진행중인 같은 내용의 요청이 있으면 그 요청의 결과를 공유한다")
+    void successExecute_SharePendingRequest(){
+        //when
+        Mono<PredictionResult> first = predictionSingleFlight.execute("대박", analyzer());
+        Mono<PredictionResult> second = predictionSingleFlight.execute("대박", analyzer());
+
+        //then
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> response.tryEmitValue(PredictionResult.builder()
+                        .predict("positive")
+                        .percentage(97f)
+                        .build()))
+                .assertNext(tuple -> assertThat(tuple.getT1(), equalTo(tuple.getT2())))
+                .verifyComplete();
+
+        assertThat(analyzeCount.get(), equalTo(1));
+    }
+
+    @Test
+    @DisplayName("요청이 끝난 뒤 들어온 요청은 새로 분석한다")
+    void successExecute_AfterCompletion(){
+        //given
+        response.tryEmitValue(PredictionResult.builder()
+                .predict("negative")
+                .percentage(80f)
+                .build());
+
+        //when
+        Mono<PredictionResult> calls = predictionSingleFlight.execute("별로", analyzer())
+                .then(predictionSingleFlight.execute("별로", analyzer()));
+
+        //then
+        StepVerifier.create(calls)
+                .assertNext(result -> assertThat(result.predict(), equalTo("negative")))
+                .verifyComplete();
+
+        assertThat(analyzeCount.get(), equalTo(2));
+    }
+}
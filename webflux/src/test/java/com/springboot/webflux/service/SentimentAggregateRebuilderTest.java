@@ -0,0 +1,127 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.entity.Member;
+import com.springboot.webflux.entity.SentimentEvent;
+import com.springboot.webflux.repository.MemberRepository;
+import com.springboot.webflux.repository.SentimentEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+public class SentimentAggregateRebuilderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SentimentEventRepository sentimentEventRepository = mock(SentimentEventRepository.class);
+    private final MemberRepository memberRepository = mock(MemberRepository.class);
+    private final MemberSentimentAggregator memberSentimentAggregator = mock(MemberSentimentAggregator.class);
+    private final MemberSentimentLeaderboard memberSentimentLeaderboard = mock(MemberSentimentLeaderboard.class);
+
+    private final SentimentAggregateRebuilder rebuilder = new SentimentAggregateRebuilder(sentimentEventRepository,
+            memberRepository, memberSentimentAggregator, memberSentimentLeaderboard, meterRegistry, 2, 3, 0, false, List.of());
+
+    // event_id 1 ~ lastEventId, 홀수 id 는 긍정 +1, 짝수 id 는 부정 +1, 마지막 이벤트는 긍정 -1 (삭제)
+    private final List<SentimentEvent> events = LongStream.rangeClosed(1, 5)
+            .mapToObj(id -> SentimentEvent.builder()
+                    .eventId(id)
+                    .memberId(1L)
+                    .delta(id == 5 ? -1 : 1)
+                    .positive(id % 2 == 1)
+                    .build())
+            .collect(Collectors.toList());
+
+    @BeforeEach
+    void setUp(){
+        given(sentimentEventRepository.countBackfill()).willReturn(Mono.just(1L));
+        given(memberSentimentAggregator.withPending(any(Member.class), anyLong()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        given(sentimentEventRepository.findPage(anyLong(), anyLong(), anyLong(), anyInt()))
+                .willAnswer(invocation -> {
+                    long afterEventId = invocation.getArgument(1);
+                    long upToEventId = invocation.getArgument(2);
+                    int limit = invocation.getArgument(3);
+                    return Flux.fromIterable(events)
+                            .filter(event -> event.getEventId() > afterEventId && event.getEventId() <= upToEventId)
+                            .take(limit);
+                });
+    }
+
+    @Test
+    @DisplayName("원장을 page 단위로 끝까지 읽어 합산한 값으로 집계를 덮어쓴다")
+    void successRebuild_SumAllPages(){
+        //given
+        given(sentimentEventRepository.findLastEventId()).willReturn(Mono.just(5L));
+        given(memberRepository.overwriteSentimentCounts(anyLong(), anyLong(), anyLong(), anyLong()))
+                .willReturn(Mono.just(1));
+
+        //when, then
+        StepVerifier.create(rebuilder.rebuild(Flux.just(1L)))
+                .expectNext(1L)
+                .verifyComplete();
+        verify(memberRepository).overwriteSentimentCounts(1L, 3L, 1L, 5L);
+        verify(sentimentEventRepository, times(3)).findPage(anyLong(), anyLong(), anyLong(), anyInt());
+        verify(memberSentimentAggregator).withPending(any(Member.class), eq(5L));
+        verify(memberSentimentLeaderboard).put(1L, 3L, 1L);
+    }
+
+    @Test
+    @DisplayName("합산하는 동안 새 이벤트가 반영되어 watermark 가 앞서면 새 watermark 까지 다시 계산한다")
+    void successRebuild_RetryOnConflict(){
+        //given
+        given(sentimentEventRepository.findLastEventId()).willReturn(Mono.just(4L)).willReturn(Mono.just(5L));
+        given(memberRepository.overwriteSentimentCounts(1L, 4L, 2L, 4L)).willReturn(Mono.just(0));
+        given(memberRepository.overwriteSentimentCounts(1L, 3L, 1L, 5L)).willReturn(Mono.just(1));
+
+        //when, then
+        StepVerifier.create(rebuilder.rebuild(Flux.just(1L)))
+                .expectNext(1L)
+                .verifyComplete();
+        assertThat(meterRegistry.counter("sentiment.ledger.rebuild.conflicts").count(), equalTo(1.0));
+        assertThat(meterRegistry.counter("sentiment.ledger.rebuild.members").count(), equalTo(1.0));
+    }
+
+    @Test
+    @DisplayName("전체 회원을 member_id keyset 으로 page 단위로 읽어 모두 다시 계산한다")
+    void successRebuildAll_KeysetMembers(){
+        //given
+        given(memberRepository.findIdsAfter(0L, 2)).willReturn(Flux.just(1L, 2L));
+        given(memberRepository.findIdsAfter(2L, 2)).willReturn(Flux.just(3L));
+        given(sentimentEventRepository.findLastEventId()).willReturn(Mono.just(0L));
+        given(memberRepository.overwriteSentimentCounts(anyLong(), anyLong(), anyLong(), anyLong()))
+                .willReturn(Mono.just(1));
+
+        //when, then
+        StepVerifier.create(rebuilder.rebuildAll())
+                .expectNext(3L)
+                .verifyComplete();
+        verify(memberRepository).overwriteSentimentCounts(3L, 0L, 0L, 0L);
+        verify(memberRepository, never()).findIdsAfter(3L, 2);
+    }
+
+    @Test
+    @DisplayName("원장 이전의 분석 결과를 원장에 채우기 전에는 다시 계산하지 않는다")
+    void failRebuild_NotBackfilled(){
+        //given
+        given(sentimentEventRepository.countBackfill()).willReturn(Mono.just(0L));
+
+        //when, then
+        StepVerifier.create(rebuilder.rebuild(Flux.just(1L)))
+                .expectError(IllegalStateException.class)
+                .verify();
+        verify(sentimentEventRepository, never()).findLastEventId();
+        verify(memberRepository, never()).overwriteSentimentCounts(anyLong(), anyLong(), anyLong(), anyLong());
+    }
+}
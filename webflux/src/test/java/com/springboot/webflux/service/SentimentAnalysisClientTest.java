@@ -0,0 +1,239 @@
+package com.springboot.webflux.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.springboot.webflux.dto.PredictionCallbackRequest;
+import com.springboot.webflux.dto.PredictionResult;
+import com.springboot.webflux.exception.PredictionParseException;
+import com.springboot.webflux.security.SentimentAnalysisTokenManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SentimentAnalysisClientTest {
+
+    private SentimentAnalysisReplica replica;
+    private PredictionCallbackRegistry callbackRegistry;
+
+    private SentimentAnalysisClient createClient(String responseBody){
+        return createClient(SentimentAnalysisClient.WireFormat.JSON, request -> ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header("X-Model-Version", "best_model-1")
+                .body(responseBody)
+                .build());
+    }
+
+    private SentimentAnalysisClient createClient(SentimentAnalysisClient.WireFormat wireFormat,
+                                                 Function<ClientRequest, ClientResponse> postHandler){
+        return createClient(wireFormat, false, postHandler);
+    }
+
+    private SentimentAnalysisClient createClient(SentimentAnalysisClient.WireFormat wireFormat, boolean callbackEnabled,
+                                                 Function<ClientRequest, ClientResponse> postHandler){
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.fromSupplier(() -> request.method() == HttpMethod.GET
+                        ? ClientResponse.create(HttpStatus.OK).body("token").build()
+                        : postHandler.apply(request)))
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        replica = new SentimentAnalysisReplica("http://flask", webClient,
+                new SentimentAnalysisTokenManager(webClient, objectMapper, 0.8, 3600, 1000));
+        SentimentAnalysisLoadBalancer loadBalancer = new SentimentAnalysisLoadBalancer(List.of(replica), meterRegistry,
+                SentimentAnalysisLoadBalancer.Strategy.POWER_OF_TWO, 5, Duration.ofSeconds(10),
+                Duration.ofSeconds(60), false, Duration.ofMillis(50), 100, System::nanoTime);
+
+        SentimentVocabulary vocabulary = new SentimentVocabulary(objectMapper,
+                new ByteArrayResource(new byte[0]), List.of(), 30);
+
+        callbackRegistry = new PredictionCallbackRegistry(meterRegistry, 1000);
+
+        CeleryPredictionTransport celeryTransport = new CeleryPredictionTransport(null, objectMapper, meterRegistry,
+                false, "celery", 10, 1000, 256);
+
+        return new SentimentAnalysisClient(loadBalancer, vocabulary, callbackRegistry, celeryTransport, objectMapper,
+                false, wireFormat, callbackEnabled, "http://webflux/internal/prediction/callback");
+    }
+
+    private ClientResponse cborResponse(Object body){
+        try {
+            byte[] bytes = new CBORMapper().writeValueAsBytes(body);
+            return ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE)
+                    .header("X-Model-Version", "best_model-1")
+                    .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(bytes)))
+                    .build();
+        } catch (JsonProcessingException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("감정 분석 응답을 모델 버전과 함께 결과로 변환한다")
+    void successAnalyze(){
+        //given
+        SentimentAnalysisClient client = createClient("{\"predict\":\"positive\",\"percentage\":\"87.25\"}");
+
+        //when
+        Mono<PredictionResult> result = client.analyze("contents");
+
+        //then
+        StepVerifier.create(result)
+                .assertNext(predictionResult -> {
+                    assertThat(predictionResult.predict(), equalTo("positive"));
+                    assertThat(predictionResult.percentage(), equalTo(87.25f));
+                    assertThat(predictionResult.modelVersion(), equalTo("best_model-1"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("배치 감정 분석 응답을 요청 순서대로 변환한다")
+    void successAnalyzeBatch(){
+        //given
+        SentimentAnalysisClient client = createClient(
+                "[{\"predict\":\"positive\",\"percentage\":91.5},{\"predict\":\"negative\",\"percentage\":\"60.00\"}]");
+
+        //when
+        Mono<List<PredictionResult>> results = client.analyzeBatch(List.of("good", "bad"), null);
+
+        //then
+        StepVerifier.create(results)
+                .assertNext(predictionResults -> {
+                    assertThat(predictionResults.size(), equalTo(2));
+                    assertThat(predictionResults.get(0).predict(), equalTo("positive"));
+                    assertThat(predictionResults.get(1).percentage(), equalTo(60f));
+                    assertThat(predictionResults.get(1).modelVersion(), equalTo("best_model-1"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("감정 분석 응답을 변환하지 못하면 응답 본문을 담아 실패한다")
+    void failAnalyze_InvalidPayload(){
+        //given
+        SentimentAnalysisClient client = createClient("<html>Internal Server Error</html>");
+
+        //when
+        Mono<PredictionResult> result = client.analyze("contents");
+
+        //then
+        StepVerifier.create(result)
+                .expectErrorSatisfies(e -> {
+                    assertThat(e, instanceOf(PredictionParseException.class));
+                    assertThat(((PredictionParseException) e).getPayload(),
+                            equalTo("<html>Internal Server Error</html>"));
+                })
+                .verify();
+    }
+
+    @Test
+    @DisplayName("CBOR 로 요청하면 CBOR 응답의 실수 값을 그대로 결과로 변환한다")
+    void successAnalyze_Cbor(){
+        //given
+        AtomicReference<MediaType> requestContentType = new AtomicReference<>();
+        SentimentAnalysisClient client = createClient(SentimentAnalysisClient.WireFormat.CBOR, request -> {
+            requestContentType.set(request.headers().getContentType());
+            return cborResponse(Map.of("predict", "negative", "percentage", 73.5));
+        });
+
+        //when
+        Mono<PredictionResult> result = client.analyze("contents");
+
+        //then
+        StepVerifier.create(result)
+                .assertNext(predictionResult -> {
+                    assertThat(requestContentType.get(), equalTo(MediaType.APPLICATION_CBOR));
+                    assertThat(predictionResult.predict(), equalTo("negative"));
+                    assertThat(predictionResult.percentage(), equalTo(73.5f));
+                    assertThat(predictionResult.modelVersion(), equalTo("best_model-1"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("CBOR 를 지원하지 않는 서버에는 JSON 으로 다시 요청하고 이후 JSON 만 사용한다")
+    void successAnalyze_CborUnsupported(){
+        //given
+        AtomicInteger cborRequests = new AtomicInteger();
+        SentimentAnalysisClient client = createClient(SentimentAnalysisClient.WireFormat.CBOR, request -> {
+            if(MediaType.APPLICATION_CBOR.equals(request.headers().getContentType())){
+                cborRequests.incrementAndGet();
+                return ClientResponse.create(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+            }
+            return ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"predict\":\"positive\",\"percentage\":\"87.25\"}")
+                    .build();
+        });
+
+        //when
+        Mono<PredictionResult> results = client.analyze("first").then(client.analyze("second"));
+
+        //then
+        StepVerifier.create(results)
+                .assertNext(predictionResult -> assertThat(predictionResult.percentage(), equalTo(87.25f)))
+                .verifyComplete();
+        assertThat(cborRequests.get(), equalTo(1));
+        assertThat(replica.isBinarySupported(), equalTo(false));
+    }
+
+    @Test
+    @DisplayName("콜백 모드에서는 접수 응답 후 도착한 콜백의 결과를 반환한다")
+    void successAnalyze_Callback(){
+        //given
+        SentimentAnalysisClient client = createClient(SentimentAnalysisClient.WireFormat.JSON, true,
+                request -> ClientResponse.create(HttpStatus.ACCEPTED)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body("{\"jobId\":\"job\"}")
+                        .build());
+
+        //when
+        Mono<List<PredictionResult>> results = client.analyzeBatch(List.of("good", "bad"), null);
+
+        //then
+        StepVerifier.create(results)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> {
+                    assertThat(callbackRegistry.getPendingCount(), equalTo(1));
+                    callbackRegistry.complete(PredictionCallbackRequest.builder()
+                            .jobId(callbackRegistry.pendingJobIds().iterator().next())
+                            .modelVersion("best_model-2")
+                            .results(List.of(new PredictionResult("positive", 91.5f, null),
+                                    new PredictionResult("negative", 60f, null)))
+                            .build());
+                })
+                .assertNext(predictionResults -> {
+                    assertThat(predictionResults.size(), equalTo(2));
+                    assertThat(predictionResults.get(1).predict(), equalTo("negative"));
+                    assertThat(predictionResults.get(1).modelVersion(), equalTo("best_model-2"));
+                })
+                .verifyComplete();
+        assertThat(callbackRegistry.getPendingCount(), equalTo(0));
+    }
+}
@@ -0,0 +1,155 @@
+package com.springboot.webflux.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SentimentAnalysisLoadBalancerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SentimentAnalysisReplica createReplica(String address){
+        return new SentimentAnalysisReplica(address, null, null);
+    }
+
+    private SentimentAnalysisLoadBalancer createLoadBalancer(List<SentimentAnalysisReplica> replicas,
+                                                             SentimentAnalysisLoadBalancer.Strategy strategy,
+                                                             boolean hedgeEnabled){
+        return new SentimentAnalysisLoadBalancer(replicas, meterRegistry, strategy, 2, Duration.ofSeconds(10),
+                Duration.ofSeconds(60), hedgeEnabled, Duration.ofMillis(20), 0, clock::get);
+    }
+
+    private Mono<String> serverError(){
+        return Mono.error(WebClientResponseException.create(503, "unavailable", null, null, null));
+    }
+
+    @Test
+    @DisplayName("처리 중인 요청이 가장 적은 replica 를 선택한다")
+    void selectLeastOutstanding(){
+        //given
+        SentimentAnalysisReplica busy = createReplica("http://flask-1");
+        SentimentAnalysisReplica idle = createReplica("http://flask-2");
+        SentimentAnalysisLoadBalancer loadBalancer = createLoadBalancer(List.of(busy, idle),
+                SentimentAnalysisLoadBalancer.Strategy.LEAST_OUTSTANDING, false);
+        loadBalancer.execute(replica -> Sinks.<String>one().asMono()).subscribe();
+
+        //when
+        Mono<String> selected = loadBalancer.execute(replica -> Mono.just(replica.getBaseAddress()));
+
+        //then
+        StepVerifier.create(selected)
+                .assertNext(address -> assertThat(address, is(not(equalTo(
+                        busy.getOutstandingCount() == 1 ? busy.getBaseAddress() : idle.getBaseAddress())))))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("연속으로 실패한 replica 는 일정 시간 제외했다가 다시 사용한다")
+    void ejectFailingReplica(){
+        //given
+        SentimentAnalysisReplica failing = createReplica("http://flask-1");
+        SentimentAnalysisReplica healthy = createReplica("http://flask-2");
+        SentimentAnalysisLoadBalancer loadBalancer = createLoadBalancer(List.of(failing, healthy),
+                SentimentAnalysisLoadBalancer.Strategy.POWER_OF_TWO, false);
+
+        //when
+        for(int i = 0; i < 20; i++){
+            loadBalancer.execute(replica -> replica == failing ? serverError() : Mono.just("positive"))
+                    .onErrorResume(e -> Mono.empty())
+                    .block();
+        }
+
+        //then
+        assertThat(failing.isEjected(), is(true));
+        for(int i = 0; i < 10; i++){
+            assertThat(loadBalancer.select(null), is(healthy));
+        }
+        assertThat(meterRegistry.get("sentiment.prediction.replica.ejections")
+                .tag("replica", "http://flask-1").counter().count(), is(1.0));
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(loadBalancer.select(healthy), is(failing));
+        assertThat(failing.isEjected(), is(false));
+    }
+
+    @Test
+    @DisplayName("모든 replica 가 제외되어도 가장 먼저 복귀할 replica 로 요청을 보낸다")
+    void selectWhenAllEjected(){
+        //given
+        SentimentAnalysisReplica replica = createReplica("http://flask-1");
+        SentimentAnalysisLoadBalancer loadBalancer = createLoadBalancer(List.of(replica),
+                SentimentAnalysisLoadBalancer.Strategy.POWER_OF_TWO, false);
+
+        //when
+        for(int i = 0; i < 2; i++){
+            loadBalancer.execute(selected -> serverError())
+                    .onErrorResume(e -> Mono.empty())
+                    .block();
+        }
+
+        //then
+        assertThat(replica.isEjected(), is(true));
+        assertThat(loadBalancer.select(null), is(replica));
+    }
+
+    @Test
+    @DisplayName("응답이 지연되면 다른 replica 로 중복 요청을 보내고 먼저 온 응답을 사용한다")
+    void hedgeSlowRequest(){
+        //given
+        SentimentAnalysisLoadBalancer loadBalancer = createLoadBalancer(
+                List.of(createReplica("http://flask-1"), createReplica("http://flask-2")),
+                SentimentAnalysisLoadBalancer.Strategy.POWER_OF_TWO, true);
+        AtomicInteger attempts = new AtomicInteger();
+
+        //when
+        Mono<String> hedged = loadBalancer.execute(replica -> attempts.getAndIncrement() == 0
+                ? Mono.never() : Mono.just(replica.getBaseAddress()));
+
+        //then
+        StepVerifier.create(hedged)
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(attempts.get(), is(2));
+        assertThat(meterRegistry.get("sentiment.prediction.hedge.requests").counter().count(), is(1.0));
+    }
+
+    @Test
+    @DisplayName("중복 요청 중 하나가 실패해도 나머지 응답을 기다린다")
+    void hedgeIgnoreSingleFailure(){
+        //given
+        SentimentAnalysisLoadBalancer loadBalancer = createLoadBalancer(
+                List.of(createReplica("http://flask-1"), createReplica("http://flask-2")),
+                SentimentAnalysisLoadBalancer.Strategy.POWER_OF_TWO, true);
+        AtomicInteger attempts = new AtomicInteger();
+        Sinks.One<String> primary = Sinks.one();
+
+        //when
+        Mono<String> hedged = loadBalancer.execute(replica -> attempts.getAndIncrement() == 0
+                ? primary.asMono() : serverError());
+
+        //then
+        StepVerifier.create(hedged)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(200))
+                .then(() -> {
+                    assertThat(attempts.get(), is(2));
+                    primary.tryEmitValue("positive");
+                })
+                .expectNext("positive")
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,102 @@
+package com.springboot.webflux.service;
+
+import com.springboot.webflux.entity.SentimentEvent;
+import com.springboot.webflux.repository.SentimentEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.springboot.webflux.constants.PredictionTarget.COMMENT;
+import static com.springboot.webflux.constants.PredictionTarget.POST;
+import static com.springboot.webflux.constants.SentimentEventType.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class SentimentLedgerTest {
+
+    private final SentimentEventRepository sentimentEventRepository = mock(SentimentEventRepository.class);
+    private final MemberSentimentAggregator memberSentimentAggregator = mock(MemberSentimentAggregator.class);
+    private final SentimentLedger sentimentLedger = new SentimentLedger(sentimentEventRepository,
+            memberSentimentAggregator);
+
+    private final LocalDateTime addedAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private final List<SentimentEvent> saved = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong(10);
+
+    @BeforeEach
+    void setUp(){
+        given(sentimentEventRepository.saveAll(anyIterable()))
+                .willAnswer(invocation -> Flux.fromIterable(invocation.<Iterable<SentimentEvent>>getArgument(0))
+                        .doOnNext(event -> {
+                            event.setEventId(sequence.incrementAndGet());
+                            saved.add(event);
+                        }));
+        given(memberSentimentAggregator.apply(anyLong(), anyLong(), anyLong(), anyLong(), anyList()))
+                .willReturn(Mono.empty());
+        given(sentimentEventRepository.findLastAddedAt(anyString(), anyLong()))
+                .willReturn(Mono.just(addedAt));
+    }
+
+    @Test
+    @DisplayName("처음 분석된 결과는 +1 이벤트 하나로 남기고 활동 수와 긍정 수에 더한다")
+    void successRecordPrediction_First(){
+        //when, then
+        StepVerifier.create(sentimentLedger.recordPrediction(1L, POST, 3L, null, "positive"))
+                .verifyComplete();
+        assertThat(saved, hasSize(1));
+        assertThat(saved.get(0).getEventType(), equalTo(PREDICT));
+        verify(memberSentimentAggregator).apply(eq(1L), eq(1L), eq(1L), eq(11L), anyList());
+    }
+
+    @Test
+    @DisplayName("수정으로 결과가 바뀌면 이전 결과 -1 과 새 결과 +1 을 남겨 활동 수는 그대로 두고 긍정 수만 바꾼다")
+    void successRecordPrediction_Edit(){
+        //when, then
+        StepVerifier.create(sentimentLedger.recordPrediction(1L, COMMENT, 3L, "positive", "negative"))
+                .verifyComplete();
+        assertThat(saved, hasSize(2));
+        assertThat(saved.get(0).getDelta(), equalTo(-1));
+        assertThat(saved.get(0).getPositive(), equalTo(true));
+        assertThat(saved.get(1).getDelta(), equalTo(1));
+        assertThat(saved.get(1).getPositive(), equalTo(false));
+        verify(memberSentimentAggregator).apply(eq(1L), eq(0L), eq(-1L), eq(12L), anyList());
+    }
+
+    @Test
+    @DisplayName("삭제된 글의 결과는 -1 이벤트로 남겨 집계에서 뺀다")
+    void successRecordDelete(){
+        //when, then
+        StepVerifier.create(sentimentLedger.recordDelete(1L, POST, 3L, "positive"))
+                .verifyComplete();
+        assertThat(saved.get(0).getEventType(), equalTo(DELETE));
+        verify(memberSentimentAggregator).apply(1L, -1L, -1L, 11L, List.of(new SentimentTrendTracker.Change(
+                addedAt.atZone(ZoneId.systemDefault()).toEpochSecond(), -1, true)));
+    }
+
+    @Test
+    @DisplayName("원장 이전의 결과라 더해진 시각을 모르면 추이에서는 빼지 않는다")
+    void successRecordDelete_UnknownAddedAt(){
+        //given
+        given(sentimentEventRepository.findLastAddedAt(anyString(), anyLong()))
+                .willReturn(Mono.empty());
+
+        //when, then
+        StepVerifier.create(sentimentLedger.recordDelete(1L, COMMENT, 3L, "negative"))
+                .verifyComplete();
+        verify(memberSentimentAggregator).apply(1L, -1L, 0L, 11L, List.of());
+    }
+}
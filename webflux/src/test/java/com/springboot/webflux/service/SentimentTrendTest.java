@@ -0,0 +1,95 @@
+package com.springboot.webflux.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.springboot.webflux.constants.SentimentWindow.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SentimentTrendTest {
+
+    private final static long HOUR = 60 * 60;
+    private final static long DAY_SECONDS = 24 * HOUR;
+    private final static long START = 1_000 * DAY_SECONDS;
+
+    @Test
+    @DisplayName("구간 길이가 지난 결과는 짧은 구간에서만 빠지고 긴 구간에는 남아 있다")
+    void successAdvance_ExpireShortWindow(){
+        //given
+        SentimentTrend trend = SentimentTrend.empty(7 * DAY_SECONDS, START);
+        trend.add(START, START, 1, true);
+        trend.add(START + HOUR, START + HOUR, 1, false);
+
+        //when
+        trend.advance(START + 24 * HOUR);
+
+        //then
+        assertThat(trend.getActivityCount(DAY), equalTo(1L));
+        assertThat(trend.getPositiveRate(DAY), equalTo(0.0f));
+        assertThat(trend.getActivityCount(WEEK), equalTo(2L));
+        assertThat(trend.getPositiveRate(WEEK), equalTo(0.5f));
+        assertThat(trend.getActivityCount(MONTH), equalTo(2L));
+    }
+
+    @Test
+    @DisplayName("뺄 때는 원래 결과가 더해진 bucket 에서 빼고, 이미 구간 밖이면 구간 카운터는 그대로 둔다")
+    void successAdd_RetractFromOriginalBucket(){
+        //given
+        SentimentTrend trend = SentimentTrend.empty(7 * DAY_SECONDS, START);
+        trend.add(START, START, 1, true);
+        trend.add(START + 2 * DAY_SECONDS, START + 2 * DAY_SECONDS, 1, false);
+
+        //when
+        trend.add(START, START + 2 * DAY_SECONDS + HOUR, -1, true);
+
+        //then
+        assertThat(trend.getActivityCount(DAY), equalTo(1L));
+        assertThat(trend.getPositiveCount(DAY), equalTo(0L));
+        assertThat(trend.getActivityCount(WEEK), equalTo(1L));
+        assertThat(trend.getPositiveCount(WEEK), equalTo(0L));
+        assertThat(trend.getDecayedPositive(), closeTo(0.0, 1e-9));
+    }
+
+    @Test
+    @DisplayName("감쇠 점수는 반감기만큼 지난 결과를 절반만 반영한다")
+    void successAdd_DecayByHalfLife(){
+        //given
+        SentimentTrend trend = SentimentTrend.empty(DAY_SECONDS, START);
+        trend.add(START, START, 1, true);
+
+        //when
+        trend.add(START + DAY_SECONDS, START + DAY_SECONDS, 1, false);
+
+        //then
+        assertThat(trend.getDecayedTotal(), closeTo(1.5, 1e-9));
+        assertThat(trend.getDecayedPositive(), closeTo(0.5, 1e-9));
+        assertThat((double) trend.getDecayedPositiveRate(), closeTo(1.0 / 3, 1e-6));
+    }
+
+    @Test
+    @DisplayName("인코딩한 bucket 을 다시 읽으면 같은 구간 카운터가 된다")
+    void successEncode_RoundTrip(){
+        //given
+        SentimentTrend trend = SentimentTrend.empty(7 * DAY_SECONDS, START);
+        for(int i = 0; i < 200; i++){
+            long now = START + i * HOUR;
+            trend.add(now, now, 1, i % 3 == 0);
+        }
+        trend.add(START + 150 * HOUR, START + 199 * HOUR, -1, true);
+
+        //when
+        byte[] encoded = trend.encode();
+        SentimentTrend decoded = new SentimentTrend(7 * DAY_SECONDS, trend.getDecayedTotal(),
+                trend.getDecayedPositive(), trend.getDecayedAt(), encoded);
+
+        //then
+        assertThat(encoded.length, lessThan(256));
+        for(var window : values()){
+            assertThat(decoded.getActivityCount(window), equalTo(trend.getActivityCount(window)));
+            assertThat(decoded.getPositiveCount(window), equalTo(trend.getPositiveCount(window)));
+        }
+        assertThat(decoded.getActivityCount(DAY), equalTo(24L));
+        assertThat(decoded.getActivityCount(MONTH), equalTo(199L));
+    }
+}
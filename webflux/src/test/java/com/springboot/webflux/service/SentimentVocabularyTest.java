@@ -0,0 +1,159 @@
+package com.springboot.webflux.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SentimentVocabularyTest {
+
+    private final static String DATA_CONFIGS = "{\"vocab\": {\"영화\": 1, \"보다\": 2, \"좋다\": 3, \"최고\": 4, \"하다\": 5}, \"vocab_size\": 6}";
+
+    private SentimentVocabulary sentimentVocabulary;
+
+    @BeforeEach
+    void setUp(){
+        sentimentVocabulary = new SentimentVocabulary(new ObjectMapper(),
+                new ByteArrayResource(DATA_CONFIGS.getBytes(StandardCharsets.UTF_8)), List.of("는", "하다"), 5);
+        sentimentVocabulary.load();
+    }
+
+    @Test
+    @DisplayName("단어 사전을 읽어 크기를 알 수 있다")
+    void successLoad(){
+        assertThat(sentimentVocabulary.isLoaded(), equalTo(true));
+        assertThat(sentimentVocabulary.size(), equalTo(6));
+    }
+
+    @Test
+    @DisplayName("절대 경로를 지정하면 classpath 사전 대신 그 파일을 읽는다")
+    void successLoad_AbsolutePath(@TempDir Path directory) throws IOException {
+        //given
+        Path file = Files.writeString(directory.resolve("data_configs.json"), DATA_CONFIGS);
+        SentimentVocabulary vocabulary = new SentimentVocabulary(new ObjectMapper(),
+                new ByteArrayResource(new byte[0]), file.toString(), List.of(), 5);
+
+        //when
+        vocabulary.load();
+
+        //then
+        assertThat(vocabulary.size(), equalTo(6));
+    }
+
+    @Test
+    @DisplayName("상대 경로는 실행 위치에 따라 달라지므로 받지 않는다")
+    void failLoad_RelativePath(){
+        assertThrows(IllegalArgumentException.class, () -> new SentimentVocabulary(new ObjectMapper(),
+                new ByteArrayResource(new byte[0]), "flask/static/data_configs.json", List.of(), 5));
+    }
+
+    @Test
+    @DisplayName("조사와 어미가 붙은 어절도 사전의 단어로 인코딩한다")
+    void successEncode(){
+        //when
+        int[] encoded = sentimentVocabulary.encode("영화는   최고!! 정말 좋아요, 보고 싶다");
+
+        //then
+        assertThat(encoded, equalTo(new int[]{1, 4, 3, 2}));
+    }
+
+    @Test
+    @DisplayName("불용어와 사전에 없는 단어는 제외한다")
+    void successEncode_SkipStopwords(){
+        //when
+        int[] encoded = sentimentVocabulary.encode("는 하다 없는단어");
+
+        //then
+        assertThat(encoded.length, equalTo(0));
+    }
+
+    @Test
+    @DisplayName("문장 최대 길이에 맞춰 앞쪽을 0 으로 채운다")
+    void successEncodePadded(){
+        //when
+        int[] padded = sentimentVocabulary.encodePadded("영화 최고");
+
+        //then
+        assertThat(padded, equalTo(new int[]{0, 0, 0, 1, 4}));
+    }
+
+    @Test
+    @DisplayName("문장 최대 길이보다 길면 앞쪽을 잘라낸다")
+    void successEncodePadded_Truncate(){
+        //when
+        int[] padded = sentimentVocabulary.encodePadded("영화 보다 좋다 최고 영화 보다 좋다");
+
+        //then
+        assertThat(padded, equalTo(new int[]{3, 4, 1, 2, 3}));
+    }
+
+    @Test
+    @DisplayName("실제 사전으로 인코딩한 번호가 Okt 형태소 분석으로 만든 번호와 기준 이상 일치한다")
+    void successEncode_OktParity() throws IOException {
+        //given
+        SentimentVocabulary vocabulary = new SentimentVocabulary(new ObjectMapper(),
+                new ClassPathResource("sentiment/data_configs.json"),
+                List.of("의", "가", "이", "은", "들", "는", "좀", "잘", "걍", "과", "도", "를", "으로", "자", "에", "와", "한", "하다"), 30);
+        vocabulary.load();
+        int oktTotal = 0;
+        int encodedTotal = 0;
+        int matched = 0;
+
+        //when
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource("sentiment/okt_parity.tsv").getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while((line = reader.readLine()) != null){
+                if(line.isBlank() || line.startsWith("#")){
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                int[] expected = Arrays.stream(columns[2].split(" ")).mapToInt(Integer::parseInt).toArray();
+                int[] encoded = vocabulary.encode(columns[0]);
+                oktTotal += expected.length;
+                encodedTotal += encoded.length;
+                matched += commonCount(expected, encoded);
+            }
+        }
+
+        //then
+        // 어절마다 사전 접두어 하나만 고르므로 '안봤다' 처럼 한 어절이 여러 형태소로 나뉘면 뒤쪽 형태소를 놓침 (현재 재현율 0.77, 정밀도 0.88)
+        assertThat((double) matched / oktTotal, greaterThanOrEqualTo(0.75));
+        assertThat((double) matched / encodedTotal, greaterThanOrEqualTo(0.85));
+    }
+
+    // 순서와 상관없이 두 번호 목록에 함께 들어 있는 번호 수
+    private static int commonCount(int[] expected, int[] encoded){
+        Map<Integer, Integer> remaining = new HashMap<>();
+        for(int id : expected){
+            remaining.merge(id, 1, Integer::sum);
+        }
+        int common = 0;
+        for(int id : encoded){
+            if(remaining.getOrDefault(id, 0) > 0){
+                remaining.merge(id, -1, Integer::sum);
+                common++;
+            }
+        }
+        return common;
+    }
+}
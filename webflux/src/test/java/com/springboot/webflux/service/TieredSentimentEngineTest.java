@@ -0,0 +1,121 @@
+package com.springboot.webflux.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.webflux.dto.PredictionResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class TieredSentimentEngineTest {
+
+    @Mock
+    private SentimentAnalyzer sentimentAnalyzer;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TieredSentimentEngine tieredSentimentEngine;
+
+    @BeforeEach
+    void setUp(){
+        String dataConfigs = "{\"vocab\": {\"좋다\": 1, \"최고\": 2, \"별로\": 3, \"싫다\": 4, \"영화\": 5}, \"vocab_size\": 6}";
+        SentimentVocabulary sentimentVocabulary = new SentimentVocabulary(new ObjectMapper(),
+                new ByteArrayResource(dataConfigs.getBytes(StandardCharsets.UTF_8)), List.of(), 30);
+        sentimentVocabulary.load();
+
+        meterRegistry = new SimpleMeterRegistry();
+        LexiconSentimentEngine lexiconSentimentEngine = new LexiconSentimentEngine(sentimentVocabulary, 0.9f, 10);
+        tieredSentimentEngine = new TieredSentimentEngine(sentimentAnalyzer, lexiconSentimentEngine,
+                sentimentVocabulary, meterRegistry, true, 0, 20, 10, 0.9);
+    }
+
+    private PredictionResult createResult(String predict){
+        return PredictionResult.builder()
+                .predict(predict)
+                .percentage(99f)
+                .modelVersion("best_model-1")
+                .build();
+    }
+
+    private void train(int rounds){
+        given(sentimentAnalyzer.analyze("영화 최고 좋아요")).willReturn(Mono.just(createResult("positive")));
+        given(sentimentAnalyzer.analyze("영화 별로 싫어요")).willReturn(Mono.just(createResult("negative")));
+        for(int i = 0; i < rounds; i++){
+            tieredSentimentEngine.analyze("영화 최고 좋아요").block();
+            tieredSentimentEngine.analyze("영화 별로 싫어요").block();
+        }
+    }
+
+    @Test
+    @DisplayName("학습되지 않은 상태에서는 Flask 모델로 분석을 넘긴다")
+    void escalateWhenUntrained(){
+        //given
+        given(sentimentAnalyzer.analyze(anyString())).willReturn(Mono.just(createResult("positive")));
+
+        //when
+        Mono<PredictionResult> result = tieredSentimentEngine.analyze("영화 최고");
+
+        //then
+        StepVerifier.create(result)
+                .assertNext(predictionResult -> assertThat(predictionResult.modelVersion(), equalTo("best_model-1")))
+                .verifyComplete();
+        assertThat(tieredSentimentEngine.getEscalationRate(), equalTo(1.0));
+    }
+
+    @Test
+    @DisplayName("Flask 모델과 충분히 일치하면 확신하는 문장은 로컬에서 바로 분석한다")
+    void answerLocallyWhenTrusted(){
+        //given
+        train(10);
+        clearInvocations(sentimentAnalyzer);
+        double localCount = meterRegistry.get("sentiment.prediction.tier.requests").tag("tier", "local").counter().count();
+
+        //when
+        Mono<PredictionResult> result = tieredSentimentEngine.analyze("최고 좋은 영화");
+
+        //then
+        StepVerifier.create(result)
+                .assertNext(predictionResult -> {
+                    assertThat(predictionResult.predict(), equalTo("positive"));
+                    assertThat(predictionResult.modelVersion(), equalTo(LexiconSentimentEngine.MODEL_VERSION));
+                })
+                .verifyComplete();
+        verify(sentimentAnalyzer, never()).analyze(anyString());
+        assertThat(tieredSentimentEngine.getAgreementRate(), is(greaterThanOrEqualTo(0.9)));
+        assertThat(meterRegistry.get("sentiment.prediction.tier.requests").tag("tier", "local").counter().count(),
+                equalTo(localCount + 1));
+    }
+
+    @Test
+    @DisplayName("확신이 낮은 문장은 학습 후에도 Flask 모델로 넘긴다")
+    void escalateUncertainText(){
+        //given
+        train(10);
+        given(sentimentAnalyzer.analyze("영화")).willReturn(Mono.just(createResult("negative")));
+
+        //when
+        Mono<PredictionResult> result = tieredSentimentEngine.analyze("영화");
+
+        //then
+        StepVerifier.create(result)
+                .assertNext(predictionResult -> assertThat(predictionResult.modelVersion(), equalTo("best_model-1")))
+                .verifyComplete();
+        verify(sentimentAnalyzer, times(1)).analyze("영화");
+    }
+}